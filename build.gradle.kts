@@ -24,9 +24,41 @@ repositories {
     mavenCentral()
 }
 
+// Микробенчмарки горячего пути анализа (JMH), запуск: gradle jmh
+// Нагрузочный тест REST API (генератор CSV общий с JMH), запуск: gradle loadTest
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+    create("loadtest") {
+        compileClasspath += sourceSets.main.get().output + sourceSets["jmh"].output
+        runtimeClasspath += sourceSets.main.get().output + sourceSets["jmh"].output
+    }
+}
+
+configurations {
+    named("jmhImplementation") {
+        extendsFrom(configurations.implementation.get())
+    }
+    named("jmhRuntimeOnly") {
+        extendsFrom(configurations.runtimeOnly.get())
+    }
+    named("loadtestImplementation") {
+        extendsFrom(configurations.implementation.get())
+    }
+    named("loadtestRuntimeOnly") {
+        extendsFrom(configurations.runtimeOnly.get())
+    }
+}
+
+val jmhVersion = "1.37"
+
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 
     compileOnly("org.projectlombok:lombok")
     runtimeOnly("com.h2database:h2")
@@ -42,8 +74,49 @@ dependencies {
     testImplementation("org.springframework.boot:spring-boot-testcontainers")
     testImplementation("org.testcontainers:junit-jupiter")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+// Дополнительные аргументы JMH: gradle jmh -Pjmh="AnalyzeBenchmark -p rows=100000"
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks of the analysis hot path with the gc profiler"
+    dependsOn(tasks.named("jmhClasses"))
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "org.openjdk.jmh.Main"
+
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json")
+    outputs.file(resultFile)
+    outputs.upToDateWhen { false }
+    doFirst {
+        resultFile.get().asFile.parentFile.mkdirs()
+    }
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf("-prof", "gc", "-rf", "json", "-rff", resultFile.get().asFile.absolutePath) +
+                (findProperty("jmh")?.toString()?.trim()?.split(Regex("\\s+"))?.filter { it.isNotEmpty() } ?: emptyList())
+    })
+}
+
+// Настройки нагрузочного теста: gradle loadTest -PloadTest="concurrency=32 analyzeRatio=0.5 duration=2m"
+tasks.register<JavaExec>("loadTest") {
+    group = "benchmark"
+    description = "Runs the application on a random port and measures POST /analyze and GET /history under load"
+    dependsOn(tasks.named("loadtestClasses"))
+    classpath = sourceSets["loadtest"].runtimeClasspath
+    mainClass = "org.example.csvanalyzer.loadtest.LoadTest"
+    systemProperty("loadtest.version", project.version.toString())
+
+    val resultFile = layout.buildDirectory.file("reports/loadtest/results.json")
+    outputs.file(resultFile)
+    outputs.upToDateWhen { false }
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf("report=" + resultFile.get().asFile.absolutePath) +
+                (findProperty("loadTest")?.toString()?.trim()?.split(Regex("\\s+"))?.filter { it.isNotEmpty() } ?: emptyList())
+    })
+}
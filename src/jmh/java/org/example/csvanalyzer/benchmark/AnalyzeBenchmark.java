@@ -0,0 +1,83 @@
+package org.example.csvanalyzer.benchmark;
+
+import org.example.csvanalyzer.analysis.CsvValueScanner;
+import org.example.csvanalyzer.analysis.ParallelCsvAnalyzer;
+import org.example.csvanalyzer.analysis.StatisticsAccumulator;
+import org.example.csvanalyzer.analysis.StatisticsSettings;
+import org.example.csvanalyzer.config.AnalysisProperties;
+import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole analysis of one file as {@code AnalysisServiceImpl} runs it, minus the database write:
+ * scanning, parsing, all sketches with the default {@link AnalysisProperties}, and filling the
+ * record. The parallel variant reads the same bytes from a temporary file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Analyzer {
+
+        StatisticsSettings settings;
+        ParallelCsvAnalyzer parallel;
+        Path file;
+
+        @Setup(Level.Trial)
+        public void setUp(CsvInput input) throws IOException {
+            AnalysisProperties properties = new AnalysisProperties();
+            settings = properties.toStatisticsSettings();
+            parallel = new ParallelCsvAnalyzer(properties.getParallel().getParallelism(),
+                    64 * 1024, 0);
+            file = Files.createTempFile("analyze-benchmark", ".csv");
+            Files.write(file, input.csv);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            parallel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public AnalysisRecord sequential(CsvInput input, Analyzer analyzer, Throughput throughput) throws IOException {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator(analyzer.settings);
+        new CsvValueScanner(accumulator).scan(new ByteArrayInputStream(input.csv));
+        AnalysisRecord record = new AnalysisRecord();
+        accumulator.applyTo(record);
+        throughput.processed(input.rows, input.csv.length);
+        return record;
+    }
+
+    @Benchmark
+    public AnalysisRecord parallel(CsvInput input, Analyzer analyzer, Throughput throughput) throws IOException {
+        StatisticsAccumulator accumulator = analyzer.parallel.analyze(analyzer.file, null,
+                () -> new StatisticsAccumulator(analyzer.settings));
+        AnalysisRecord record = new AnalysisRecord();
+        accumulator.applyTo(record);
+        throughput.processed(input.rows, input.csv.length);
+        return record;
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.csvanalyzer.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible synthetic {@code timestamp,value} files: the same arguments always give the same bytes.
+ */
+public final class CsvGenerator {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final String[] INVALID_VALUES = {"n/a", "", "1,2", "abc"};
+
+    private CsvGenerator() {
+    }
+
+    /**
+     * @param rows          number of data rows after the header
+     * @param distinctRatio share of distinct values among the rows, in (0, 1]
+     * @param invalidRatio  share of rows the analysis counts as missing, in [0, 1)
+     * @param seed          random seed
+     */
+    public static byte[] generate(int rows, double distinctRatio, double invalidRatio, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int distinct = Math.max(1, (int) (rows * distinctRatio));
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 32);
+        StringBuilder line = new StringBuilder(64);
+
+        write(out, line.append("timestamp,value\n"));
+        for (int i = 0; i < rows; i++) {
+            line.setLength(0);
+            line.append(TIMESTAMP.format(START.plusSeconds(i))).append(',');
+            if (random.nextDouble() < invalidRatio) {
+                line.append(INVALID_VALUES[random.nextInt(INVALID_VALUES.length)]);
+            } else {
+                // Значение с двумя знаками после запятой из пула заданного размера
+                int key = random.nextInt(distinct);
+                line.append(Math.floorDiv(key, 100) - distinct / 200).append('.');
+                int cents = Math.floorMod(key, 100);
+                line.append(cents < 10 ? "0" : "").append(cents);
+            }
+            write(out, line.append('\n'));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Counts the data rows (lines after the header) of a generated file.
+     */
+    public static int countRows(byte[] csv) {
+        int lines = 0;
+        for (byte b : csv) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+        return lines - 1;
+    }
+
+    private static void write(ByteArrayOutputStream out, CharSequence text) {
+        out.writeBytes(text.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.csvanalyzer.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Generated input shared by all benchmarks; the parameters span file size, value cardinality
+ * and the share of rows that fail to parse.
+ */
+@State(Scope.Benchmark)
+public class CsvInput {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"0.01", "1.0"})
+    public double distinctRatio;
+
+    @Param({"0.0", "0.05"})
+    public double invalidRatio;
+
+    public byte[] csv;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        csv = CsvGenerator.generate(rows, distinctRatio, invalidRatio, 42);
+    }
+}
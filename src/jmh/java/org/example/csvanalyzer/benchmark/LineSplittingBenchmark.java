@@ -0,0 +1,58 @@
+package org.example.csvanalyzer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding rows and fields alone: the original {@code readLine} + {@code split(",")}
+ * against a byte scan that looks for the same line breaks and commas in place.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineSplittingBenchmark {
+
+    @Benchmark
+    public long readLineAndSplit(CsvInput input, Throughput throughput) throws IOException {
+        long fields = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(input.csv), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                fields += line.split(",").length;
+            }
+        }
+        throughput.processed(input.rows, input.csv.length);
+        return fields;
+    }
+
+    @Benchmark
+    public long byteScan(CsvInput input, Throughput throughput) {
+        byte[] csv = input.csv;
+        long lines = 0;
+        long commas = 0;
+        for (byte b : csv) {
+            if (b == '\n') {
+                lines++;
+            } else if (b == ',') {
+                commas++;
+            }
+        }
+        throughput.processed(input.rows, csv.length);
+        return lines + commas;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.csvanalyzer.benchmark;
+
+import org.example.csvanalyzer.analysis.NumberParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the value column only: the value fields are located once in setup, then parsed in place
+ * by {@link NumberParser} or copied into a {@code String} for {@link Double#parseDouble}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NumberParsingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Fields {
+
+        int[] starts;
+        int[] ends;
+        long valueBytes;
+
+        @Setup(Level.Trial)
+        public void locate(CsvInput input) {
+            byte[] csv = input.csv;
+            starts = new int[input.rows];
+            ends = new int[input.rows];
+            int count = 0;
+            int lineStart = 0;
+            boolean header = true;
+            for (int i = 0; i < csv.length; i++) {
+                if (csv[i] != '\n') {
+                    continue;
+                }
+                if (!header) {
+                    int comma = lineStart;
+                    while (comma < i && csv[comma] != ',') {
+                        comma++;
+                    }
+                    starts[count] = Math.min(comma + 1, i);
+                    ends[count] = i;
+                    valueBytes += ends[count] - starts[count];
+                    count++;
+                }
+                header = false;
+                lineStart = i + 1;
+            }
+            starts = Arrays.copyOf(starts, count);
+            ends = Arrays.copyOf(ends, count);
+        }
+    }
+
+    @Benchmark
+    public double numberParser(CsvInput input, Fields fields, Throughput throughput) {
+        NumberParser parser = new NumberParser();
+        double sum = 0;
+        for (int i = 0; i < fields.starts.length; i++) {
+            if (parser.parse(input.csv, fields.starts[i], fields.ends[i])) {
+                sum += parser.value();
+            }
+        }
+        throughput.processed(fields.starts.length, fields.valueBytes);
+        return sum;
+    }
+
+    @Benchmark
+    public double doubleParseDouble(CsvInput input, Fields fields, Throughput throughput) {
+        double sum = 0;
+        for (int i = 0; i < fields.starts.length; i++) {
+            String text = new String(input.csv, fields.starts[i], fields.ends[i] - fields.starts[i],
+                    StandardCharsets.UTF_8);
+            try {
+                sum += Double.parseDouble(text.trim());
+            } catch (NumberFormatException ignored) {
+                // некорректная строка, как и в анализе, просто пропускается
+            }
+        }
+        throughput.processed(fields.starts.length, fields.valueBytes);
+        return sum;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.csvanalyzer.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary JMH counters: bytes and rows processed, reported per second next to ops/s.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+
+    public long rows;
+
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        rows = 0;
+        bytes = 0;
+    }
+
+    public double megabytes() {
+        return bytes / 1_000_000.0;
+    }
+
+    void processed(long rowCount, long byteCount) {
+        rows += rowCount;
+        bytes += byteCount;
+    }
+}
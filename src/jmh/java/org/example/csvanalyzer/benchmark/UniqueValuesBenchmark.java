@@ -0,0 +1,94 @@
+package org.example.csvanalyzer.benchmark;
+
+import org.example.csvanalyzer.analysis.DistinctCounter;
+import org.example.csvanalyzer.analysis.DoubleHashSet;
+import org.example.csvanalyzer.analysis.NumberParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distinct counting of already parsed values: boxed {@code HashSet<Double>} (the original
+ * approach), the primitive {@link DoubleHashSet} and {@link DistinctCounter} with the default
+ * exact-count budget, after which it switches to HyperLogLog. The {@code gc.alloc.rate.norm} of the
+ * gc profiler gives the bytes each set allocates to hold the same values, the memory comparison that a
+ * heap measurement in a unit test can only approximate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UniqueValuesBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Values {
+
+        double[] values;
+
+        @Setup(Level.Trial)
+        public void parse(CsvInput input) {
+            byte[] csv = input.csv;
+            NumberParser parser = new NumberParser();
+            values = new double[input.rows];
+            int count = 0;
+            int comma = -1;
+            boolean header = true;
+            for (int i = 0; i < csv.length; i++) {
+                if (csv[i] == ',' && comma < 0) {
+                    comma = i;
+                } else if (csv[i] == '\n') {
+                    if (!header && comma >= 0 && parser.parse(csv, comma + 1, i)) {
+                        values[count++] = parser.value();
+                    }
+                    header = false;
+                    comma = -1;
+                }
+            }
+            values = Arrays.copyOf(values, count);
+        }
+    }
+
+    @Benchmark
+    public int boxedHashSet(Values values, Throughput throughput) {
+        Set<Double> set = new HashSet<>();
+        for (double value : values.values) {
+            set.add(value);
+        }
+        throughput.processed(values.values.length, values.values.length * (long) Double.BYTES);
+        return set.size();
+    }
+
+    @Benchmark
+    public int doubleHashSet(Values values, Throughput throughput) {
+        DoubleHashSet set = new DoubleHashSet();
+        for (double value : values.values) {
+            set.add(value);
+        }
+        throughput.processed(values.values.length, values.values.length * (long) Double.BYTES);
+        return set.size();
+    }
+
+    @Benchmark
+    public long distinctCounter(Values values, Throughput throughput) {
+        DistinctCounter counter = new DistinctCounter(1_000_000, 32L * 1024 * 1024, 14);
+        for (double value : values.values) {
+            counter.add(value);
+        }
+        throughput.processed(values.values.length, values.values.length * (long) Double.BYTES);
+        return counter.count();
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.csvanalyzer.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies and response statuses of one kind of request, recorded by a single client thread;
+ * the recorders of all threads are merged after the run.
+ */
+final class LatencyRecorder {
+
+    // Статус 0 — запрос не дошел до ответа (ошибка соединения, таймаут)
+    static final int NO_RESPONSE = 0;
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private int errors;
+    private final Map<Integer, Integer> statuses = new TreeMap<>();
+
+    void record(long latencyNanos, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        statuses.merge(status, 1, Integer::sum);
+        if (status == NO_RESPONSE || status >= 400) {
+            errors++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        errors += other.errors;
+        other.statuses.forEach((status, n) -> statuses.merge(status, n, Integer::sum));
+    }
+
+    Map<String, Object> summary(double seconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+
+        Map<String, Object> latency = new TreeMap<>();
+        latency.put("p50", millis(percentile(sorted, 50)));
+        latency.put("p99", millis(percentile(sorted, 99)));
+        latency.put("p999", millis(percentile(sorted, 99.9)));
+        latency.put("max", millis(count > 0 ? sorted[count - 1] : 0));
+        latency.put("mean", millis(count > 0 ? (long) Arrays.stream(sorted).average().orElse(0) : 0));
+
+        Map<String, Object> summary = new TreeMap<>();
+        summary.put("requests", count);
+        summary.put("errors", errors);
+        summary.put("errorRate", count > 0 ? (double) errors / count : 0.0);
+        summary.put("throughputPerSecond", count / seconds);
+        summary.put("latencyMs", latency);
+        Map<String, Integer> byStatus = new TreeMap<>();
+        statuses.forEach((status, n) -> byStatus.put(status == NO_RESPONSE ? "none" : String.valueOf(status), n));
+        summary.put("statuses", byStatus);
+        return summary;
+    }
+
+    // Ближайший ранг: наименьшее значение, не меньше которого percent процентов замеров
+    private static long percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
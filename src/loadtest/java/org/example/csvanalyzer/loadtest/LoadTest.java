@@ -0,0 +1,207 @@
+package org.example.csvanalyzer.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.csvanalyzer.CsvAnalyzerApplication;
+import org.example.csvanalyzer.benchmark.CsvGenerator;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test: starts the application on a random port with the in-memory H2 database
+ * and a temporary upload directory, drives a mix of {@code POST /analyze} (multipart uploads of
+ * generated CSV files) and {@code GET /history} from {@code concurrency} client threads, and writes
+ * throughput, latency percentiles and error rates per request kind as JSON.
+ * <p>
+ * Every upload gets a unique last row, so deduplication does not turn repeated files into cheap
+ * lookups. Each client thread sends its next request as soon as the previous one is answered
+ * (closed model), so throughput is what the application sustains at that concurrency.
+ */
+public final class LoadTest {
+
+    private static final String BOUNDARY = "csv-analyzer-load-test";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(1);
+    private static final int HISTORY_PAGES = 2;
+
+    private final LoadTestConfig config;
+    private final URI baseUri;
+    private final HttpClient client;
+    private final List<byte[]> files = new ArrayList<>();
+    private final AtomicLong uploadSequence = new AtomicLong();
+
+    private LoadTest(LoadTestConfig config, int port) {
+        this.config = config;
+        this.baseUri = URI.create("http://localhost:" + port);
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        for (int i = 0; i < config.files(); i++) {
+            files.add(CsvGenerator.generate(config.rows(), 0.5, 0.01, i));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        Path tempDir = Files.createTempDirectory("csv-analyzer-load-test");
+
+        ConfigurableApplicationContext application = new SpringApplicationBuilder(CsvAnalyzerApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(
+                        "server.port=0",
+                        "storage.tmp-dir=" + tempDir,
+                        // Отладочный журнал запросов из application.yml исказил бы задержки
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.web=WARN",
+                        "logging.level.org.springdoc=WARN")
+                .run();
+        try {
+            int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+            Map<String, Object> report = new LoadTest(config, port).run();
+
+            Path reportFile = Path.of(config.report());
+            Files.createDirectories(reportFile.toAbsolutePath().getParent());
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+            System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(report));
+            System.out.println("Report: " + reportFile.toAbsolutePath());
+        } finally {
+            application.close();
+            FileSystemUtils.deleteRecursively(tempDir);
+        }
+    }
+
+    private Map<String, Object> run() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+
+        List<Client> clients = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < config.concurrency(); i++) {
+            Client worker = new Client(i, measureFrom, end);
+            clients.add(worker);
+            Thread thread = new Thread(worker, "load-client-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Запросы, начатые до конца измерения, дожидаются ответа; делить на фактическое время
+        double seconds = (Math.max(end, System.nanoTime()) - measureFrom) / 1e9;
+        LatencyRecorder analyze = new LatencyRecorder();
+        LatencyRecorder history = new LatencyRecorder();
+        LatencyRecorder total = new LatencyRecorder();
+        for (Client worker : clients) {
+            analyze.merge(worker.analyze);
+            history.merge(worker.history);
+            total.merge(worker.analyze);
+            total.merge(worker.history);
+        }
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("concurrency", config.concurrency());
+        settings.put("duration", config.duration().toString());
+        settings.put("warmup", config.warmup().toString());
+        settings.put("analyzeRatio", config.analyzeRatio());
+        settings.put("rows", config.rows());
+        settings.put("files", config.files());
+        settings.put("uploadBytes", files.get(0).length);
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        operations.put("analyze", analyze.summary(seconds));
+        operations.put("history", history.summary(seconds));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("version", System.getProperty("loadtest.version", "unknown"));
+        report.put("finishedAt", Instant.now().toString());
+        report.put("settings", settings);
+        report.put("measuredSeconds", seconds);
+        report.put("total", total.summary(seconds));
+        report.put("operations", operations);
+        return report;
+    }
+
+    private final class Client implements Runnable {
+
+        private final SplittableRandom random;
+        private final long measureFrom;
+        private final long end;
+        private final LatencyRecorder analyze = new LatencyRecorder();
+        private final LatencyRecorder history = new LatencyRecorder();
+
+        Client(int index, long measureFrom, long end) {
+            this.random = new SplittableRandom(index);
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            long started;
+            while ((started = System.nanoTime()) < end) {
+                boolean upload = random.nextDouble() < config.analyzeRatio();
+                int status = upload ? postAnalyze() : getHistory();
+                if (started >= measureFrom) {
+                    (upload ? analyze : history).record(System.nanoTime() - started, status);
+                }
+            }
+        }
+
+        private int postAnalyze() {
+            byte[] csv = files.get(random.nextInt(files.size()));
+            String unique = "2025-03-02T00:00:00," + uploadSequence.incrementAndGet() + "\n";
+            ByteArrayOutputStream body = new ByteArrayOutputStream(csv.length + 256);
+            body.writeBytes(("--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"file\"; filename=\"load.csv\"\r\n"
+                    + "Content-Type: text/csv\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            body.writeBytes(csv);
+            body.writeBytes(unique.getBytes(StandardCharsets.US_ASCII));
+            body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+            return send(HttpRequest.newBuilder(baseUri.resolve("/analyze"))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                    .build());
+        }
+
+        private int getHistory() {
+            return send(HttpRequest.newBuilder(baseUri.resolve("/history?page=" + random.nextInt(HISTORY_PAGES)))
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET()
+                    .build());
+        }
+
+        private int send(HttpRequest request) {
+            try {
+                return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                return LatencyRecorder.NO_RESPONSE;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return LatencyRecorder.NO_RESPONSE;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.csvanalyzer.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, given as {@code key=value} arguments
+ * ({@code gradle loadTest -PloadTest="concurrency=32 analyzeRatio=0.5"}).
+ *
+ * @param concurrency  number of client threads, each sending one request at a time
+ * @param duration     measured part of the run
+ * @param warmup       run before the measured part, its requests are not recorded
+ * @param analyzeRatio share of {@code POST /analyze} requests, the rest are {@code GET /history}
+ * @param rows         data rows per uploaded file
+ * @param files        number of distinct generated files the uploads are based on
+ * @param report       path of the JSON report
+ */
+public record LoadTestConfig(int concurrency, Duration duration, Duration warmup, double analyzeRatio, int rows,
+                             int files, String report) {
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            values.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        LoadTestConfig config = new LoadTestConfig(
+                Integer.parseInt(values.getOrDefault("concurrency", "16")),
+                duration(values.getOrDefault("duration", "60s")),
+                duration(values.getOrDefault("warmup", "10s")),
+                Double.parseDouble(values.getOrDefault("analyzeRatio", "0.2")),
+                Integer.parseInt(values.getOrDefault("rows", "10000")),
+                Integer.parseInt(values.getOrDefault("files", "16")),
+                values.getOrDefault("report", "build/reports/loadtest/results.json"));
+        if (config.concurrency < 1 || config.rows < 1 || config.files < 1
+                || config.analyzeRatio < 0 || config.analyzeRatio > 1) {
+            throw new IllegalArgumentException("Invalid load test settings: " + config);
+        }
+        return config;
+    }
+
+    // 90s, 2m, 500ms или ISO-8601 (PT1M)
+    private static Duration duration(String value) {
+        if (value.startsWith("P") || value.startsWith("p")) {
+            return Duration.parse(value);
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unknown duration: " + value);
+        };
+    }
+}
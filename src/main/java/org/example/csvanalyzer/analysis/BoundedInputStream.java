@@ -0,0 +1,68 @@
+package org.example.csvanalyzer.analysis;
+
+import org.example.csvanalyzer.exception.FileTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails with {@link FileTooLargeException} once more than {@code maxBytes} have been read.
+ * Used for request bodies that are not covered by the multipart size limit and for the inflated
+ * content of compressed uploads.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private final String message;
+    private long bytesRead;
+
+    public BoundedInputStream(InputStream in, long maxBytes) {
+        this(in, maxBytes, "Uploaded file exceeds the maximum allowed size (" + maxBytes + " bytes)");
+    }
+
+    public BoundedInputStream(InputStream in, long maxBytes, String message) {
+        super(in);
+        this.maxBytes = maxBytes;
+        this.message = message;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            count(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long n) {
+        bytesRead += n;
+        if (bytesRead > maxBytes) {
+            throw new FileTooLargeException(message);
+        }
+    }
+}
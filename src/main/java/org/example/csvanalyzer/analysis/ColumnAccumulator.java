@@ -0,0 +1,102 @@
+package org.example.csvanalyzer.analysis;
+
+import org.example.csvanalyzer.entity.ColumnStatistics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Lightweight running statistics of one column: count, missing, min/max and Welford mean/M2.
+ * Sketches are kept only for the value column, so wide files stay cheap per column.
+ */
+public class ColumnAccumulator {
+
+    static final int BYTES = 48;
+
+    private long recordsCount;
+    private long missingCount;
+    private double minValue = Double.POSITIVE_INFINITY;
+    private double maxValue = Double.NEGATIVE_INFINITY;
+    private double mean;
+    private double m2;
+
+    public ColumnAccumulator() {
+    }
+
+    ColumnAccumulator(long recordsCount, long missingCount, double minValue, double maxValue, double mean, double m2) {
+        this.recordsCount = recordsCount;
+        this.missingCount = missingCount;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.mean = mean;
+        this.m2 = m2;
+    }
+
+    public void accept(double value) {
+        recordsCount++;
+        minValue = Math.min(minValue, value);
+        maxValue = Math.max(maxValue, value);
+
+        double delta = value - mean;
+        mean += delta / recordsCount;
+        m2 += delta * (value - mean);
+    }
+
+    public void reject() {
+        missingCount++;
+    }
+
+    public void merge(ColumnAccumulator other) {
+        missingCount += other.missingCount;
+        if (other.recordsCount == 0) {
+            return;
+        }
+        if (recordsCount == 0) {
+            mean = other.mean;
+            m2 = other.m2;
+            recordsCount = other.recordsCount;
+        } else {
+            long n = recordsCount + other.recordsCount;
+            double delta = other.mean - mean;
+            mean += delta * other.recordsCount / n;
+            m2 += other.m2 + delta * delta * ((double) recordsCount * other.recordsCount / n);
+            recordsCount = n;
+        }
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    void writeTo(ByteBuffer out) {
+        out.putLong(recordsCount)
+                .putLong(missingCount)
+                .putDouble(minValue)
+                .putDouble(maxValue)
+                .putDouble(mean)
+                .putDouble(m2);
+    }
+
+    static ColumnAccumulator readFrom(ByteBuffer in) {
+        return new ColumnAccumulator(in.getLong(), in.getLong(), in.getDouble(), in.getDouble(), in.getDouble(),
+                in.getDouble());
+    }
+
+    public ColumnStatistics toStatistics(int columnIndex, String name) {
+        ColumnStatistics statistics = new ColumnStatistics();
+        statistics.setColumnIndex(columnIndex);
+        statistics.setName(name);
+        statistics.setRecordsCount(recordsCount);
+        statistics.setMissingCount(missingCount);
+        statistics.setMinValue(recordsCount > 0 ? minValue : 0.0);
+        statistics.setMaxValue(recordsCount > 0 ? maxValue : 0.0);
+        statistics.setMean(recordsCount > 0 ? mean : 0.0);
+        statistics.setStdDev(recordsCount > 1 ? Math.sqrt(m2 / (recordsCount - 1)) : 0.0);
+        return statistics;
+    }
+
+    public long getRecordsCount() {
+        return recordsCount;
+    }
+
+    public long getMissingCount() {
+        return missingCount;
+    }
+}
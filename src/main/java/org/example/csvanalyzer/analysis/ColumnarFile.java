@@ -0,0 +1,183 @@
+package org.example.csvanalyzer.analysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped view of the parsed timestamps and values of an analysed file, as
+ * written by {@link ColumnarWriter}.
+ * <p>
+ * Layout (little-endian): a {@value #HEADER_SIZE}-byte file header (magic, format version, rows
+ * per block, block count, row count), then the blocks. Each block starts with a
+ * {@value #BLOCK_HEADER_SIZE}-byte header (row count, min/max value, min/max timestamp of the rows
+ * that have one), followed by {@code blockRows} timestamps and {@code blockRows} values; only the
+ * first {@code count} of each are used. The last block may hold room for fewer rows: its capacity
+ * follows from the file size. Equal sizes of the other blocks make block {@code i} addressable
+ * directly, and the block headers let a reader skip blocks whose range cannot match.
+ */
+public final class ColumnarFile implements AutoCloseable {
+
+    static final int MAGIC = 0x43535643;
+    static final byte FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int BLOCK_HEADER_SIZE = 40;
+
+    /**
+     * Timestamp of a row whose first column is not a timestamp.
+     */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final long MAX_MAPPED_SEGMENT = 1L << 30;
+
+    private final int blockRows;
+    private final int blockCount;
+    private final long rowCount;
+    private final int lastBlockRows;
+    private final long blockSize;
+    private final int blocksPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    private ColumnarFile(int blockRows, int blockCount, long rowCount, int lastBlockRows, MappedByteBuffer[] segments) {
+        this.blockRows = blockRows;
+        this.blockCount = blockCount;
+        this.rowCount = rowCount;
+        this.lastBlockRows = lastBlockRows;
+        this.blockSize = blockSize(blockRows);
+        this.blocksPerSegment = blocksPerSegment(blockRows);
+        this.segments = segments;
+    }
+
+    public static ColumnarFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // читаем заголовок целиком
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.get() != FORMAT_VERSION) {
+                throw new IOException("Not a columnar file: " + file);
+            }
+            header.position(8);
+            int blockRows = header.getInt();
+            int blockCount = header.getInt();
+            long rowCount = header.getLong();
+
+            long blockSize = blockSize(blockRows);
+            long lastBlockStart = HEADER_SIZE + (blockCount - 1L) * blockSize;
+            if (blockRows <= 0 || blockCount < 0
+                    || blockCount > 0 && channel.size() < lastBlockStart + BLOCK_HEADER_SIZE) {
+                throw new IOException("Truncated columnar file: " + file);
+            }
+            int lastBlockRows = blockCount > 0
+                    ? (int) Math.min(blockRows, (channel.size() - lastBlockStart - BLOCK_HEADER_SIZE)
+                            / (Long.BYTES + Double.BYTES))
+                    : 0;
+
+            // Сегмент отображения — целое число блоков, чтобы блок не попадал на границу
+            int perSegment = blocksPerSegment(blockRows);
+            MappedByteBuffer[] segments = new MappedByteBuffer[(blockCount + perSegment - 1) / perSegment];
+            for (int i = 0; i < segments.length; i++) {
+                int blocks = Math.min(perSegment, blockCount - i * perSegment);
+                long length = (blocks - 1) * blockSize
+                        + (i == segments.length - 1 ? blockSize(lastBlockRows) : blockSize);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_SIZE + (long) i * perSegment * blockSize, length);
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            ColumnarFile columnar = new ColumnarFile(blockRows, blockCount, rowCount, lastBlockRows, segments);
+            if (blockCount > 0 && columnar.blockRowCount(blockCount - 1) > lastBlockRows) {
+                throw new IOException("Truncated columnar file: " + file);
+            }
+            return columnar;
+        }
+    }
+
+    public int getBlockRows() {
+        return blockRows;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int blockRowCount(int block) {
+        return block(block).getInt(0);
+    }
+
+    public double blockMinValue(int block) {
+        return block(block).getDouble(8);
+    }
+
+    public double blockMaxValue(int block) {
+        return block(block).getDouble(16);
+    }
+
+    /**
+     * {@link Long#MAX_VALUE} if no row of the block has a timestamp.
+     */
+    public long blockMinTimestamp(int block) {
+        return block(block).getLong(24);
+    }
+
+    /**
+     * {@link Long#MIN_VALUE} if no row of the block has a timestamp.
+     */
+    public long blockMaxTimestamp(int block) {
+        return block(block).getLong(32);
+    }
+
+    /**
+     * Epoch seconds of the rows of the block, {@link #NO_TIMESTAMP} where there is none.
+     */
+    public LongBuffer timestamps(int block) {
+        ByteBuffer buffer = block(block);
+        return buffer.slice(BLOCK_HEADER_SIZE, buffer.getInt(0) * Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asLongBuffer();
+    }
+
+    public DoubleBuffer values(int block) {
+        ByteBuffer buffer = block(block);
+        return buffer.slice(BLOCK_HEADER_SIZE + capacity(block) * Long.BYTES, buffer.getInt(0) * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asDoubleBuffer();
+    }
+
+    private ByteBuffer block(int block) {
+        if (block < 0 || block >= blockCount) {
+            throw new IndexOutOfBoundsException("Block " + block + " of " + blockCount);
+        }
+        int offset = (int) ((block % blocksPerSegment) * blockSize);
+        return segments[block / blocksPerSegment]
+                .slice(offset, (int) blockSize(capacity(block)))
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private int capacity(int block) {
+        return block == blockCount - 1 ? lastBlockRows : blockRows;
+    }
+
+    static long blockSize(int blockRows) {
+        return BLOCK_HEADER_SIZE + (long) blockRows * (Long.BYTES + Double.BYTES);
+    }
+
+    private static int blocksPerSegment(int blockRows) {
+        return (int) Math.max(1, MAX_MAPPED_SEGMENT / blockSize(blockRows));
+    }
+
+    // Отображение освобождается сборщиком мусора, закрывать канал не требуется
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.csvanalyzer.analysis;
+
+/**
+ * Rows selected from a {@link ColumnarFile}: timestamps in {@code [from, to)} (epoch seconds) and
+ * values in {@code [minValue, maxValue]}. A {@code null} bound is open; with a time bound set, rows
+ * without a timestamp never match.
+ */
+public record ColumnarFilter(Long from, Long to, Double minValue, Double maxValue) {
+
+    public boolean filtersTime() {
+        return from != null || to != null;
+    }
+
+    /**
+     * Whether no row of the block can match, judging by its header alone.
+     */
+    boolean excludesBlock(ColumnarFile file, int block) {
+        if (minValue != null && file.blockMaxValue(block) < minValue) {
+            return true;
+        }
+        if (maxValue != null && file.blockMinValue(block) > maxValue) {
+            return true;
+        }
+        if (!filtersTime()) {
+            return false;
+        }
+        // В блоке без меток времени максимум равен Long.MIN_VALUE, такой блок отсекается любой границей
+        long maxTimestamp = file.blockMaxTimestamp(block);
+        if (maxTimestamp == Long.MIN_VALUE) {
+            return true;
+        }
+        return from != null && maxTimestamp < from
+                || to != null && file.blockMinTimestamp(block) >= to;
+    }
+
+    /**
+     * Whether every row of the block matches, so rows need not be checked one by one.
+     */
+    boolean includesBlock(ColumnarFile file, int block) {
+        if (minValue != null && file.blockMinValue(block) < minValue) {
+            return false;
+        }
+        if (maxValue != null && file.blockMaxValue(block) > maxValue) {
+            return false;
+        }
+        return !filtersTime();
+    }
+
+    boolean matches(long timestamp, double value) {
+        if (minValue != null && value < minValue || maxValue != null && value > maxValue) {
+            return false;
+        }
+        if (!filtersTime()) {
+            return true;
+        }
+        return timestamp != ColumnarFile.NO_TIMESTAMP
+                && (from == null || timestamp >= from)
+                && (to == null || timestamp < to);
+    }
+}
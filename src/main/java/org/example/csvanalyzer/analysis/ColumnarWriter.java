@@ -0,0 +1,172 @@
+package org.example.csvanalyzer.analysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the parsed timestamp and value of every valid row into a {@link ColumnarFile}, one block
+ * of {@code blockRows} rows at a time, as the scanner produces them.
+ * <p>
+ * Rows are written in the order they are accepted. Parts written concurrently (one per chunk of a
+ * parallel scan) are joined with {@link #concat}.
+ */
+public class ColumnarWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final int blockRows;
+    private final long[] timestamps;
+    private final double[] values;
+    private final ByteBuffer block;
+    private int count;
+    private int blockCount;
+    private long rowCount;
+
+    public ColumnarWriter(Path file, int blockRows) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.blockRows = blockRows;
+        this.timestamps = new long[blockRows];
+        this.values = new double[blockRows];
+        this.block = ByteBuffer.allocate((int) ColumnarFile.blockSize(blockRows)).order(ByteOrder.LITTLE_ENDIAN);
+        channel.position(ColumnarFile.HEADER_SIZE);
+    }
+
+    /**
+     * @param epochSecond timestamp of the row, {@link ColumnarFile#NO_TIMESTAMP} if it has none
+     */
+    public void accept(long epochSecond, double value) {
+        timestamps[count] = epochSecond;
+        values[count] = value;
+        if (++count == blockRows) {
+            flushBlock();
+        }
+    }
+
+    private void flushBlock() {
+        try {
+            // Неполным бывает только последний блок, он пишется без пустого хвоста
+            writeBlock(channel, block, timestamps, values, count, count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        blockCount++;
+        rowCount += count;
+        count = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (count > 0) {
+                flushBlock();
+            }
+            writeHeader(channel, blockRows, blockCount, rowCount);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Joins part files, in order, into {@code target}; the parts are left in place. The short last
+     * block of a part is padded to full size unless it ends the joined file.
+     */
+    public static void concat(List<Path> parts, Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            int blockRows = 0;
+            int blockCount = 0;
+            long rowCount = 0;
+            out.position(ColumnarFile.HEADER_SIZE);
+            for (int p = 0; p < parts.size(); p++) {
+                ColumnarFile file = ColumnarFile.open(parts.get(p));
+                if (blockRows != 0 && file.getBlockRows() != blockRows) {
+                    throw new IOException("Parts with different block sizes");
+                }
+                blockRows = file.getBlockRows();
+                if (file.getBlockCount() == 0) {
+                    continue;
+                }
+                blockCount += file.getBlockCount();
+                rowCount += file.getRowCount();
+
+                int last = file.getBlockCount() - 1;
+                try (FileChannel in = FileChannel.open(parts.get(p), StandardOpenOption.READ)) {
+                    long position = ColumnarFile.HEADER_SIZE;
+                    long end = position + last * ColumnarFile.blockSize(blockRows);
+                    while (position < end) {
+                        position += in.transferTo(position, end - position, out);
+                    }
+                }
+
+                int count = file.blockRowCount(last);
+                long[] timestamps = new long[count];
+                double[] values = new double[count];
+                file.timestamps(last).get(timestamps);
+                file.values(last).get(values);
+                ByteBuffer block = ByteBuffer.allocate((int) ColumnarFile.blockSize(blockRows))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                boolean endsFile = p == parts.size() - 1;
+                writeBlock(out, block, timestamps, values, count, endsFile ? count : blockRows);
+            }
+            writeHeader(out, blockRows, blockCount, rowCount);
+        }
+    }
+
+    /**
+     * Writes one block with room for {@code capacity} rows at the channel position; the unused
+     * room is zero-filled.
+     */
+    private static void writeBlock(FileChannel channel, ByteBuffer block, long[] timestamps, double[] values,
+                                   int count, int capacity) throws IOException {
+        double minValue = Double.POSITIVE_INFINITY;
+        double maxValue = Double.NEGATIVE_INFINITY;
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            minValue = Math.min(minValue, values[i]);
+            maxValue = Math.max(maxValue, values[i]);
+            if (timestamps[i] != ColumnarFile.NO_TIMESTAMP) {
+                minTimestamp = Math.min(minTimestamp, timestamps[i]);
+                maxTimestamp = Math.max(maxTimestamp, timestamps[i]);
+            }
+        }
+
+        int size = (int) ColumnarFile.blockSize(capacity);
+        if (count < capacity) {
+            Arrays.fill(block.array(), 0, size, (byte) 0);
+        }
+        block.clear();
+        block.putInt(count).putInt(0)
+                .putDouble(minValue).putDouble(maxValue)
+                .putLong(minTimestamp).putLong(maxTimestamp);
+        block.asLongBuffer().put(timestamps, 0, count);
+        block.position(ColumnarFile.BLOCK_HEADER_SIZE + capacity * Long.BYTES);
+        block.asDoubleBuffer().put(values, 0, count);
+        block.position(0).limit(size);
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, int blockRows, int blockCount, long rowCount)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(ColumnarFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(ColumnarFile.MAGIC).put(ColumnarFile.FORMAT_VERSION).put((byte) 0).putShort((short) 0)
+                .putInt(blockRows).putInt(blockCount).putLong(rowCount);
+        header.clear();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.csvanalyzer.analysis;
+
+import org.example.csvanalyzer.exception.FileTypeNotSupportedException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Compression of an upload, recognised by its leading magic bytes rather than by the declared
+ * content type. Decompression is streaming: nothing is inflated to disk.
+ */
+public enum Compression {
+    NONE(".csv"),
+    GZIP(".csv.gz"),
+    ZIP(".zip");
+
+    public static final int MAGIC_LENGTH = 4;
+
+    private static final int INFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private final String fileSuffix;
+
+    Compression(String fileSuffix) {
+        this.fileSuffix = fileSuffix;
+    }
+
+    /**
+     * Suffix for a retained copy of an upload compressed this way.
+     */
+    public String getFileSuffix() {
+        return fileSuffix;
+    }
+
+    /**
+     * Peeks at the first bytes and pushes them back, so the stream is left untouched.
+     */
+    public static Compression detect(PushbackInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC_LENGTH];
+        int length = in.readNBytes(magic, 0, MAGIC_LENGTH);
+        if (length > 0) {
+            in.unread(magic, 0, length);
+        }
+        return detect(magic, length);
+    }
+
+    public static Compression detect(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(MAGIC_LENGTH);
+            return detect(magic, magic.length);
+        }
+    }
+
+    public static Compression detect(byte[] magic, int length) {
+        if (length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return GZIP;
+        }
+        if (length >= 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+            return ZIP;
+        }
+        return NONE;
+    }
+
+    /**
+     * Wraps {@code in} so that reads return the CSV content; at most {@code maxInflatedBytes}
+     * are inflated, which guards against decompression bombs.
+     */
+    public InputStream decompress(InputStream in, long maxInflatedBytes) throws IOException {
+        return switch (this) {
+            case NONE -> in;
+            case GZIP -> bounded(new GZIPInputStream(in, INFLATE_BUFFER_SIZE), maxInflatedBytes);
+            case ZIP -> bounded(new SingleEntryZipInputStream(in), maxInflatedBytes);
+        };
+    }
+
+    private static InputStream bounded(InputStream in, long maxInflatedBytes) {
+        return new BoundedInputStream(in, maxInflatedBytes,
+                "Decompressed file exceeds the maximum allowed size (" + maxInflatedBytes + " bytes)");
+    }
+
+    /**
+     * Content of the only file in a zip archive; directories are skipped, a second file is an error.
+     */
+    private static final class SingleEntryZipInputStream extends FilterInputStream {
+
+        SingleEntryZipInputStream(InputStream in) throws IOException {
+            super(new ZipInputStream(in));
+            if (nextFile() == null) {
+                throw new FileTypeNotSupportedException("Zip archive does not contain a file");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                ensureNoMoreFiles();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                ensureNoMoreFiles();
+            }
+            return n;
+        }
+
+        private void ensureNoMoreFiles() throws IOException {
+            if (nextFile() != null) {
+                throw new FileTypeNotSupportedException("Zip archive must contain exactly one file");
+            }
+        }
+
+        private ZipEntry nextFile() throws IOException {
+            ZipInputStream zip = (ZipInputStream) in;
+            ZipEntry entry;
+            do {
+                entry = zip.getNextEntry();
+            } while (entry != null && entry.isDirectory());
+            return entry;
+        }
+    }
+}
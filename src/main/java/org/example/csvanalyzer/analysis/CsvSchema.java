@@ -0,0 +1,235 @@
+package org.example.csvanalyzer.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Column layout of a CSV file and the columns that per-column statistics are computed for.
+ * <p>
+ * Column 0 holds the timestamp and column 1 the value that the record-level statistics describe.
+ * The first line is taken as a header unless every non-empty field in it is a number or a
+ * timestamp that {@link TimestampParser} accepts, or it is longer than {@link #MAX_HEADER_LENGTH} bytes, in which case the columns are named
+ * {@code column1..columnN} and the line is counted as data.
+ */
+public final class CsvSchema {
+
+    public static final int TIMESTAMP_COLUMN = 0;
+    public static final int VALUE_COLUMN = 1;
+
+    public static final int MAX_HEADER_LENGTH = 16 * 1024;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final List<String> names;
+    private final int[] selected;
+    private final boolean explicitSelection;
+    private final boolean header;
+
+    private CsvSchema(List<String> names, int[] selected, boolean explicitSelection, boolean header) {
+        this.names = names;
+        this.selected = selected;
+        this.explicitSelection = explicitSelection;
+        this.header = header;
+    }
+
+    /**
+     * Builds the schema from the first line of the file.
+     *
+     * @param requested column names to compute per-column statistics for; {@code null} or empty
+     *                  means every column that turns out to be numeric
+     * @throws UnknownColumnException if a requested column is not in the header
+     */
+    public static CsvSchema detect(byte[] buf, int from, int to, List<String> requested) {
+        while (to > from && buf[to - 1] == ',') {
+            to--;
+        }
+
+        if (to - from > MAX_HEADER_LENGTH) {
+            return withoutHeader(countFields(buf, from, to), requested);
+        }
+
+        List<String> fields = new ArrayList<>();
+        boolean data = true;
+        boolean anyValue = false;
+        NumberParser parser = new NumberParser();
+        TimestampParser timestamps = new TimestampParser();
+        int start = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || buf[i] == ',') {
+                fields.add(new String(buf, start, i - start, StandardCharsets.UTF_8).trim());
+                if (!fields.get(fields.size() - 1).isEmpty()) {
+                    anyValue = true;
+                    // Метка времени в колонке 0 — тоже данные, а не имя колонки
+                    data &= parser.parse(buf, start, i) || timestamps.parse(buf, start, i);
+                }
+                start = i + 1;
+            }
+        }
+
+        if (data && anyValue) {
+            return withoutHeader(fields.size(), requested);
+        }
+        List<String> names = new ArrayList<>(fields.size());
+        for (int i = 0; i < fields.size(); i++) {
+            String name = unquote(fields.get(i));
+            names.add(name.isEmpty() ? "column" + (i + 1) : name);
+        }
+        return select(names, true, requested);
+    }
+
+    /**
+     * Schema of a file whose first line is data with {@code columns} fields (trailing empty
+     * fields not counted); the columns are named {@code column1..columnN}.
+     *
+     * @throws UnknownColumnException if a column other than {@code column1..columnN} is requested
+     */
+    public static CsvSchema withoutHeader(int columns, List<String> requested) {
+        List<String> names = new ArrayList<>(columns);
+        for (int i = 0; i < columns; i++) {
+            names.add("column" + (i + 1));
+        }
+        return select(names, false, requested);
+    }
+
+    private static CsvSchema select(List<String> names, boolean header, List<String> requested) {
+        boolean explicit = requested != null && !requested.isEmpty();
+        TreeSet<Integer> indexes = new TreeSet<>();
+        if (explicit) {
+            for (String column : requested) {
+                int index = names.indexOf(column.trim());
+                if (index < 0) {
+                    throw new UnknownColumnException(column.trim(), names);
+                }
+                indexes.add(index);
+            }
+        } else {
+            for (int i = 0; i < names.size(); i++) {
+                indexes.add(i);
+            }
+        }
+
+        int[] selected = indexes.stream().mapToInt(Integer::intValue).toArray();
+        return new CsvSchema(Collections.unmodifiableList(names), selected, explicit, header);
+    }
+
+    private static int countFields(byte[] buf, int from, int to) {
+        int fields = 1;
+        for (int i = from; i < to; i++) {
+            if (buf[i] == ',') {
+                fields++;
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Consumes the first line of {@code in} if it is a header, so that rows appended to an analysed
+     * file may be sent with or without one. A line longer than 16 KB is never taken for a header.
+     */
+    public static void skipHeader(BufferedInputStream in) throws IOException {
+        // Запас в два байта: за \r в пределах лимита всегда виден следующий символ
+        byte[] line = new byte[MAX_HEADER_LENGTH + 2];
+        in.mark(line.length);
+        int n = in.readNBytes(line, 0, line.length);
+        in.reset();
+
+        int end = 0;
+        while (end < n && line[end] != '\n' && line[end] != '\r') {
+            end++;
+        }
+        if (n == 0 || end > MAX_HEADER_LENGTH || !detect(line, 0, end, null).hasHeader()) {
+            return;
+        }
+        int skip = end;
+        if (end < n) {
+            skip++;
+            if (line[end] == '\r' && skip < n && line[skip] == '\n') {
+                skip++;
+            }
+        }
+        in.skipNBytes(skip);
+    }
+
+    public byte[] toBytes() {
+        byte[][] encoded = new byte[names.size()][];
+        int size = 1 + 1 + 1 + 4 + 4 + selected.length * Integer.BYTES;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+            size += 4 + encoded[i].length;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(FORMAT_VERSION)
+                .put((byte) (explicitSelection ? 1 : 0))
+                .put((byte) (header ? 1 : 0))
+                .putInt(encoded.length);
+        for (byte[] name : encoded) {
+            out.putInt(name.length).put(name);
+        }
+        out.putInt(selected.length);
+        for (int index : selected) {
+            out.putInt(index);
+        }
+        return out.array();
+    }
+
+    public static CsvSchema fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported schema format");
+        }
+        boolean explicit = in.get() == 1;
+        boolean header = in.get() == 1;
+        List<String> names = new ArrayList<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            byte[] name = new byte[in.getInt()];
+            in.get(name);
+            names.add(new String(name, StandardCharsets.UTF_8));
+        }
+        int[] selected = new int[in.getInt()];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = in.getInt();
+        }
+        return new CsvSchema(Collections.unmodifiableList(names), selected, explicit, header);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Indexes of the columns to compute statistics for, in ascending order.
+     */
+    public int[] getSelected() {
+        return selected;
+    }
+
+    /**
+     * Whether the columns were picked by the caller; otherwise columns without a single
+     * numeric value are left out of the result.
+     */
+    public boolean isExplicitSelection() {
+        return explicitSelection;
+    }
+
+    public boolean hasHeader() {
+        return header;
+    }
+
+    private static String unquote(String name) {
+        if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+            return name.substring(1, name.length() - 1).trim();
+        }
+        return name;
+    }
+}
@@ -0,0 +1,263 @@
+package org.example.csvanalyzer.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Push-style scanner that splits raw CSV bytes into lines and feeds the second column
+ * (and, when the accumulator keeps a rollup, the timestamp in the first one) into a
+ * {@link StatisticsAccumulator}, along with every column selected by the {@link CsvSchema}.
+ * <p>
+ * Lines are recognised like {@link java.io.BufferedReader#readLine()} does ({@code \n},
+ * {@code \r} or {@code \r\n}); unless a schema is given, it is detected from the first line.
+ * Fields are counted the way {@code line.split(",")} would, i.e. trailing empty fields are
+ * ignored; a row with more fields than the schema is missing for every column, and columns past
+ * the end of a shorter row are missing. Columns that are not selected are skipped without being
+ * parsed. Complete lines are parsed in place in the caller's buffer, only a line that straddles
+ * two {@link #feed} calls is copied, so no per-row objects are created.
+ */
+public class CsvValueScanner {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final StatisticsAccumulator accumulator;
+    private final NumberParser parser = new NumberParser();
+    private final TimestampParser timestampParser = new TimestampParser();
+
+    private ColumnarWriter columnarWriter;
+    private ScanProgress progress;
+    private long reportedRows;
+    private long reportedInvalidRows;
+
+    private byte[] carry = new byte[256];
+    private int carryLength;
+    private boolean pendingCr;
+
+    private final List<String> requestedColumns;
+    private CsvSchema schema;
+    private int[] selected;
+    private ColumnAccumulator[] columns;
+    private int[] fieldEnds;
+
+    public CsvValueScanner(StatisticsAccumulator accumulator) {
+        this(accumulator, (List<String>) null);
+    }
+
+    /**
+     * Scanner for a whole file; the schema is detected from its first line.
+     *
+     * @param requestedColumns columns to compute per-column statistics for, {@code null} for all
+     */
+    public CsvValueScanner(StatisticsAccumulator accumulator, List<String> requestedColumns) {
+        this.accumulator = accumulator;
+        this.requestedColumns = requestedColumns;
+    }
+
+    /**
+     * Scanner for a part of a file whose schema is already known; the input holds data rows only.
+     */
+    public CsvValueScanner(StatisticsAccumulator accumulator, CsvSchema schema) {
+        this.accumulator = accumulator;
+        this.requestedColumns = null;
+        useSchema(schema);
+    }
+
+    public CsvSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Reports bytes and rows to {@code progress} after every {@link #feed} call.
+     */
+    public void setProgress(ScanProgress progress) {
+        this.progress = progress;
+        this.reportedRows = accumulator.getRecordsCount();
+        this.reportedInvalidRows = accumulator.getMissingCount();
+    }
+
+    /**
+     * Writes the timestamp and value of every valid row to {@code writer}; a write failure is
+     * thrown from {@link #feed} as an {@link UncheckedIOException}.
+     */
+    public void setColumnarWriter(ColumnarWriter writer) {
+        this.columnarWriter = writer;
+    }
+
+    public void scan(InputStream in) throws IOException {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int n;
+        try {
+            while ((n = in.read(buffer)) != -1) {
+                feed(buffer, 0, n);
+            }
+            finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public void feed(byte[] buf, int off, int len) {
+        int end = off + len;
+        int i = off;
+
+        if (pendingCr && i < end) {
+            pendingCr = false;
+            if (buf[i] == '\n') {
+                i++;
+            }
+        }
+
+        int lineStart = i;
+        while (i < end) {
+            byte b = buf[i];
+            if (b != '\n' && b != '\r') {
+                i++;
+                continue;
+            }
+
+            if (carryLength > 0) {
+                appendToCarry(buf, lineStart, i);
+                onLine(carry, 0, carryLength);
+                carryLength = 0;
+            } else {
+                onLine(buf, lineStart, i);
+            }
+
+            i++;
+            if (b == '\r') {
+                if (i < end) {
+                    if (buf[i] == '\n') {
+                        i++;
+                    }
+                } else {
+                    pendingCr = true;
+                }
+            }
+            lineStart = i;
+        }
+
+        if (lineStart < end) {
+            appendToCarry(buf, lineStart, end);
+        }
+        if (progress != null) {
+            report(len);
+        }
+    }
+
+    public void finish() {
+        if (carryLength > 0) {
+            onLine(carry, 0, carryLength);
+            carryLength = 0;
+        }
+        pendingCr = false;
+        if (progress != null) {
+            report(0);
+        }
+    }
+
+    private void report(long bytes) {
+        long rows = accumulator.getRecordsCount();
+        long invalidRows = accumulator.getMissingCount();
+        progress.add(bytes, rows - reportedRows, invalidRows - reportedInvalidRows);
+        reportedRows = rows;
+        reportedInvalidRows = invalidRows;
+    }
+
+    private void onLine(byte[] buf, int from, int to) {
+        if (schema == null) {
+            useSchema(CsvSchema.detect(buf, from, to, requestedColumns));
+            if (schema.hasHeader()) {
+                return;
+            }
+        }
+
+        // Как line.split(","): пустые поля в конце строки отбрасываются
+        while (to > from && buf[to - 1] == ',') {
+            to--;
+        }
+
+        int maxCommas = fieldEnds.length - 1;
+        int fieldCount = 0;
+        for (int i = from; i < to; i++) {
+            if (buf[i] == ',') {
+                if (fieldCount == maxCommas) {
+                    rejectRow();
+                    return;
+                }
+                fieldEnds[fieldCount++] = i;
+            }
+        }
+        fieldEnds[fieldCount++] = to;
+
+        boolean valid = fieldCount > CsvSchema.VALUE_COLUMN
+                && parser.parse(buf, fieldEnds[CsvSchema.VALUE_COLUMN - 1] + 1, fieldEnds[CsvSchema.VALUE_COLUMN]);
+        if (!valid) {
+            accumulator.reject();
+        } else if (!accumulator.tracksTimestamps() && columnarWriter == null) {
+            accumulator.accept(parser.value());
+        } else if (timestampParser.parse(buf, from, fieldEnds[CsvSchema.TIMESTAMP_COLUMN])) {
+            long epochSecond = timestampParser.epochSecond();
+            if (accumulator.tracksTimestamps()) {
+                accumulator.accept(parser.value(), epochSecond);
+            } else {
+                accumulator.accept(parser.value());
+            }
+            if (columnarWriter != null) {
+                columnarWriter.accept(epochSecond, parser.value());
+            }
+        } else {
+            if (accumulator.tracksTimestamps()) {
+                accumulator.acceptWithoutTimestamp(parser.value());
+            } else {
+                accumulator.accept(parser.value());
+            }
+            if (columnarWriter != null) {
+                columnarWriter.accept(ColumnarFile.NO_TIMESTAMP, parser.value());
+            }
+        }
+
+        // Колонка значения уже учтена основным аккумулятором
+        for (int i = 0; i < selected.length; i++) {
+            int column = selected[i];
+            if (column == CsvSchema.VALUE_COLUMN) {
+                continue;
+            }
+            if (column < fieldCount
+                    && parser.parse(buf, column == 0 ? from : fieldEnds[column - 1] + 1, fieldEnds[column])) {
+                columns[i].accept(parser.value());
+            } else {
+                columns[i].reject();
+            }
+        }
+    }
+
+    private void rejectRow() {
+        accumulator.reject();
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i] != CsvSchema.VALUE_COLUMN) {
+                columns[i].reject();
+            }
+        }
+    }
+
+    private void useSchema(CsvSchema schema) {
+        this.schema = schema;
+        this.selected = schema.getSelected();
+        // Для значения нужны минимум две колонки, даже если в заголовке одна
+        this.fieldEnds = new int[Math.max(schema.size(), CsvSchema.VALUE_COLUMN + 1)];
+        accumulator.useSchema(schema);
+        this.columns = accumulator.columns();
+    }
+
+    private void appendToCarry(byte[] buf, int from, int to) {
+        int len = to - from;
+        if (carryLength + len > carry.length) {
+            carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carryLength + len));
+        }
+        System.arraycopy(buf, from, carry, carryLength, len);
+        carryLength += len;
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.csvanalyzer.analysis;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Counts distinct values exactly with a {@link DoubleHashSet} until the set grows past the
+ * configured number of values or bytes, then folds it into a {@link HyperLogLog} sketch so the
+ * memory per analysis stays bounded.
+ */
+public class DistinctCounter {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final long maxExactCount;
+    private final long maxExactMemoryBytes;
+    private final int precision;
+
+    private DoubleHashSet exact = new DoubleHashSet();
+    private HyperLogLog sketch;
+
+    public DistinctCounter(long maxExactCount, long maxExactMemoryBytes, int precision) {
+        this.maxExactCount = maxExactCount;
+        this.maxExactMemoryBytes = maxExactMemoryBytes;
+        this.precision = precision;
+    }
+
+    public void add(double value) {
+        if (sketch != null) {
+            sketch.add(value);
+            return;
+        }
+        if (exact.add(value) && exceedsExactBudget()) {
+            switchToSketch();
+        }
+    }
+
+    public void merge(DistinctCounter other) {
+        if (other.sketch != null) {
+            if (sketch == null) {
+                switchToSketch();
+            }
+            // Счетчики с разной точностью (например, после смены настройки) сводятся к меньшей
+            if (sketch.getPrecision() > other.sketch.getPrecision()) {
+                sketch = sketch.fold(other.sketch.getPrecision());
+            }
+            sketch.merge(other.sketch);
+        } else if (sketch != null) {
+            other.exact.forEach(sketch::add);
+        } else {
+            exact.addAll(other.exact);
+            if (exceedsExactBudget()) {
+                switchToSketch();
+            }
+        }
+    }
+
+    public long count() {
+        return sketch != null ? sketch.estimate() : exact.size();
+    }
+
+    public boolean isExact() {
+        return sketch == null;
+    }
+
+    public double relativeError() {
+        return sketch != null ? sketch.relativeError() : 0.0;
+    }
+
+    /**
+     * Either the exact values (as raw double bits) or the sketch registers, whichever is in use.
+     */
+    public byte[] toBytes() {
+        if (sketch != null) {
+            byte[] registers = sketch.getRegisters();
+            return ByteBuffer.allocate(3 + registers.length)
+                    .put(FORMAT_VERSION)
+                    .put((byte) 1)
+                    .put((byte) sketch.getPrecision())
+                    .put(registers)
+                    .array();
+        }
+        ByteBuffer out = ByteBuffer.allocate(6 + exact.size() * Long.BYTES);
+        out.put(FORMAT_VERSION).put((byte) 0).putInt(exact.size());
+        exact.forEach(value -> out.putLong(Double.doubleToLongBits(value)));
+        return out.array();
+    }
+
+    /**
+     * Restores a counter under the current limits; a restored sketch keeps its own precision.
+     */
+    public static DistinctCounter fromBytes(byte[] bytes, long maxExactCount, long maxExactMemoryBytes,
+                                            int precision) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported distinct counter format");
+        }
+        DistinctCounter counter = new DistinctCounter(maxExactCount, maxExactMemoryBytes, precision);
+        if (in.get() == 1) {
+            counter.sketch = new HyperLogLog(in.get());
+            in.get(counter.sketch.getRegisters());
+            counter.exact = null;
+            return counter;
+        }
+        int size = in.getInt();
+        counter.exact = new DoubleHashSet(size);
+        for (int i = 0; i < size; i++) {
+            counter.exact.add(Double.longBitsToDouble(in.getLong()));
+        }
+        if (counter.exceedsExactBudget()) {
+            counter.switchToSketch();
+        }
+        return counter;
+    }
+
+    private boolean exceedsExactBudget() {
+        return exact.size() > maxExactCount || exact.memoryBytes() > maxExactMemoryBytes;
+    }
+
+    private void switchToSketch() {
+        sketch = new HyperLogLog(precision);
+        exact.forEach(sketch::add);
+        exact = null;
+    }
+}
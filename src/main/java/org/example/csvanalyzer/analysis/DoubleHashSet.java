@@ -0,0 +1,137 @@
+package org.example.csvanalyzer.analysis;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Open-addressing hash set of primitive doubles with the same equality as {@code HashSet<Double>}:
+ * values are compared by {@link Double#doubleToLongBits(double)}, so every NaN is one element
+ * while {@code -0.0} and {@code +0.0} are two different ones.
+ * <p>
+ * Keys are stored as raw long bits with linear probing; the table doubles once it is half full,
+ * which keeps an entry at 16–32 bytes instead of the ~50 bytes of a boxed {@code HashSet} node.
+ * The bit pattern of {@code +0.0} marks free slots, so that value is tracked by a flag.
+ */
+public class DoubleHashSet {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsEmptyKey;
+
+    public DoubleHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DoubleHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, expectedSize * 2) - 1) << 1;
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public boolean add(double value) {
+        long bits = Double.doubleToLongBits(value);
+        if (bits == EMPTY) {
+            if (containsEmptyKey) {
+                return false;
+            }
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+
+        int slot = slot(bits);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == bits) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = bits;
+        if (++size > table.length >> 1) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(double value) {
+        long bits = Double.doubleToLongBits(value);
+        if (bits == EMPTY) {
+            return containsEmptyKey;
+        }
+        int slot = slot(bits);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == bits) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void addAll(DoubleHashSet other) {
+        other.forEach(this::add);
+    }
+
+    public void forEach(DoubleConsumer action) {
+        if (containsEmptyKey) {
+            action.accept(Double.longBitsToDouble(EMPTY));
+        }
+        for (long bits : table) {
+            if (bits != EMPTY) {
+                action.accept(Double.longBitsToDouble(bits));
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Approximate heap taken by the set, dominated by the slot table.
+     */
+    public long memoryBytes() {
+        return 16L + (long) table.length * Long.BYTES;
+    }
+
+    // Число слотов таблицы, для проверки роста в тестах
+    int capacity() {
+        return table.length;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        containsEmptyKey = false;
+    }
+
+    private int slot(long bits) {
+        // Финальное перемешивание из MurmurHash3: младшие биты double почти всегда нулевые
+        long h = bits;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] old = table;
+        table = new long[newCapacity];
+        mask = newCapacity - 1;
+        for (long bits : old) {
+            if (bits != EMPTY) {
+                int slot = slot(bits);
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = bits;
+            }
+        }
+    }
+}
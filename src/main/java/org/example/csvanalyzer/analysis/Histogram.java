@@ -0,0 +1,223 @@
+package org.example.csvanalyzer.analysis;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size histogram built in a single pass without knowing the value range up front.
+ * <p>
+ * Bin widths are powers of two and bin edges are multiples of the width. When a value falls
+ * outside the covered range, the width doubles and neighbouring bins are summed, so counts stay
+ * exact and memory is {@code binCount} longs. Because every histogram uses the same power-of-two
+ * grid, partial histograms can always be merged. In log scale the bins are built over
+ * {@code log10(value)} and non-positive values are counted separately.
+ */
+public class Histogram {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final double MAX_POSITION = 0x1p62;
+
+    private final int binCount;
+    private final boolean logScale;
+
+    private long[] counts;
+    private int widthExponent;
+    private long originIndex;
+    private boolean empty = true;
+    private long nonPositiveCount;
+
+    public Histogram(int binCount, boolean logScale) {
+        if (binCount < 4) {
+            throw new IllegalArgumentException("Histogram needs at least 4 bins: " + binCount);
+        }
+        this.binCount = binCount;
+        this.logScale = logScale;
+        this.counts = new long[binCount];
+    }
+
+    public record Bin(double lower, double upper, long count) {
+    }
+
+    public void add(double value) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+        if (logScale) {
+            if (value <= 0) {
+                nonPositiveCount++;
+                return;
+            }
+            value = Math.log10(value);
+        }
+        addScaled(value, 1);
+    }
+
+    public void merge(Histogram other) {
+        if (other.binCount != binCount || other.logScale != logScale) {
+            throw new IllegalArgumentException("Cannot merge histograms with different layouts");
+        }
+        nonPositiveCount += other.nonPositiveCount;
+        if (other.empty) {
+            return;
+        }
+        if (empty) {
+            counts = other.counts.clone();
+            widthExponent = other.widthExponent;
+            originIndex = other.originIndex;
+            empty = false;
+            return;
+        }
+
+        while (widthExponent < other.widthExponent) {
+            widen(true);
+        }
+        double otherWidth = Math.scalb(1.0, other.widthExponent);
+        for (int i = 0; i < binCount; i++) {
+            if (other.counts[i] != 0) {
+                // Середина бина: на общей сетке она всегда попадает внутрь одного бина этой гистограммы
+                addScaled((other.originIndex + i + 0.5) * otherWidth, other.counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Non-empty span of bins from the first to the last occupied one, with edges in value units.
+     */
+    public List<Bin> bins() {
+        List<Bin> bins = new ArrayList<>();
+        if (empty) {
+            return bins;
+        }
+        int first = 0;
+        while (counts[first] == 0) {
+            first++;
+        }
+        int last = binCount - 1;
+        while (counts[last] == 0) {
+            last--;
+        }
+        double width = Math.scalb(1.0, widthExponent);
+        for (int i = first; i <= last; i++) {
+            double lower = (originIndex + i) * width;
+            double upper = lower + width;
+            if (logScale) {
+                lower = Math.pow(10, lower);
+                upper = Math.pow(10, upper);
+            }
+            bins.add(new Bin(lower, upper, counts[i]));
+        }
+        return bins;
+    }
+
+    public int getBinCount() {
+        return binCount;
+    }
+
+    public boolean isLogScale() {
+        return logScale;
+    }
+
+    public long getNonPositiveCount() {
+        return nonPositiveCount;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + binCount * 2);
+        ByteBuffer header = ByteBuffer.allocate(31);
+        header.put(FORMAT_VERSION)
+                .put((byte) (logScale ? 1 : 0))
+                .put((byte) (empty ? 1 : 0))
+                .putInt(binCount)
+                .putInt(widthExponent)
+                .putLong(originIndex)
+                .putLong(nonPositiveCount);
+        out.write(header.array(), 0, header.position());
+        for (long count : counts) {
+            writeVarLong(out, count);
+        }
+        return out.toByteArray();
+    }
+
+    public static Histogram fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported histogram format");
+        }
+        boolean logScale = in.get() == 1;
+        boolean empty = in.get() == 1;
+        Histogram histogram = new Histogram(in.getInt(), logScale);
+        histogram.empty = empty;
+        histogram.widthExponent = in.getInt();
+        histogram.originIndex = in.getLong();
+        histogram.nonPositiveCount = in.getLong();
+        for (int i = 0; i < histogram.binCount; i++) {
+            histogram.counts[i] = readVarLong(in);
+        }
+        return histogram;
+    }
+
+    private void addScaled(double value, long count) {
+        if (empty) {
+            widthExponent = value == 0 ? -40 : Math.max(-1000, Math.getExponent(value) - 20);
+            originIndex = (long) Math.floor(value / Math.scalb(1.0, widthExponent)) - binCount / 2;
+            empty = false;
+        }
+
+        while (true) {
+            double position = Math.floor(value / Math.scalb(1.0, widthExponent));
+            if (Math.abs(position) >= MAX_POSITION) {
+                widen(value < 0);
+                continue;
+            }
+            long index = (long) position - originIndex;
+            if (index < 0) {
+                widen(true);
+            } else if (index >= binCount) {
+                widen(false);
+            } else {
+                counts[(int) index] += count;
+                return;
+            }
+        }
+    }
+
+    // Удвоение ширины бина; новое начало выбирается так, чтобы освободить место с нужной стороны
+    private void widen(boolean towardsLower) {
+        long end = originIndex + binCount;
+        long newOrigin = towardsLower
+                ? Math.floorDiv(end + 1, 2) - binCount
+                : Math.floorDiv(originIndex, 2);
+
+        long[] widened = new long[binCount];
+        for (int i = 0; i < binCount; i++) {
+            if (counts[i] != 0) {
+                widened[(int) (Math.floorDiv(originIndex + i, 2) - newOrigin)] += counts[i];
+            }
+        }
+        counts = widened;
+        originIndex = newOrigin;
+        widthExponent++;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
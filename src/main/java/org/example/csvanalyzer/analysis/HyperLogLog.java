@@ -0,0 +1,128 @@
+package org.example.csvanalyzer.analysis;
+
+/**
+ * HyperLogLog cardinality sketch over double values with {@code 2^precision} one-byte registers.
+ * Two sketches of the same precision merge by taking the register-wise maximum; a sketch of
+ * higher precision is first {@linkplain #fold folded} down to the lower one.
+ */
+public class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(double value) {
+        long hash = hash(Double.doubleToLongBits(value));
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision < precision) {
+            throw new IllegalArgumentException("Cannot merge a HyperLogLog sketch of lower precision");
+        }
+        if (other.precision > precision) {
+            other = other.fold(precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the sketch that adding the same values at {@code lower} precision would have built.
+     * The index bits dropped from a register move into the rank: if any of them is set, it decides
+     * the rank alone; if all are zero, the rank grows by their number.
+     */
+    public HyperLogLog fold(int lower) {
+        if (lower > precision) {
+            throw new IllegalArgumentException("Cannot fold HyperLogLog precision " + precision + " up to " + lower);
+        }
+        HyperLogLog folded = new HyperLogLog(lower);
+        int dropped = precision - lower;
+        int droppedMask = (1 << dropped) - 1;
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] == 0) {
+                continue;
+            }
+            int low = i & droppedMask;
+            int rank = low != 0
+                    ? Integer.numberOfLeadingZeros(low) - (Integer.SIZE - dropped) + 1
+                    : dropped + registers[i];
+            int index = i >>> dropped;
+            if (rank > folded.registers[index]) {
+                folded.registers[index] = (byte) rank;
+            }
+        }
+        return folded;
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0.0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        // Поправка для малых мощностей: линейный подсчет по пустым регистрам
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Relative standard error of {@link #estimate()}, {@code 1.04 / sqrt(m)}.
+     */
+    public double relativeError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public byte[] getRegisters() {
+        return registers;
+    }
+
+    public long memoryBytes() {
+        return 16L + registers.length;
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    private static long hash(long bits) {
+        long h = bits;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
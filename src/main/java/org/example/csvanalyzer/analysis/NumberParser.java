@@ -0,0 +1,159 @@
+package org.example.csvanalyzer.analysis;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers straight from a byte range without creating intermediate objects.
+ * <p>
+ * Plain decimals whose significant digits form an integer of at most 2<sup>53</sup> (at most 18
+ * digits are accumulated) and whose decimal exponent is within &plusmn;22 are converted with
+ * Clinger's fast path: the digits and the power of ten are both exact doubles, so one IEEE
+ * multiplication or division yields the correctly rounded result. Everything else (larger
+ * mantissas, larger exponents, {@code NaN}, hex literals, type suffixes) falls back to
+ * {@link Double#parseDouble(String)}, so the result is always bit-identical to it.
+ */
+public final class NumberParser {
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_FAST_EXPONENT = 22;
+    private static final double[] POWERS_OF_TEN = new double[MAX_FAST_EXPONENT + 1];
+    private static final boolean[] FLOAT_LITERAL_CHARS = new boolean[128];
+
+    static {
+        // Все символы, которые допускает Double.parseDouble: цифры, знак, экспонента,
+        // шестнадцатеричная запись, NaN, Infinity и суффиксы f/d
+        for (char c : "0123456789+-.eEpPxXabcdefABCDEFNIntiy".toCharArray()) {
+            FLOAT_LITERAL_CHARS[c] = true;
+        }
+
+        double p = 1.0;
+        for (int i = 0; i <= MAX_FAST_EXPONENT; i++) {
+            POWERS_OF_TEN[i] = p;
+            p *= 10.0;
+        }
+    }
+
+    private double value;
+
+    /**
+     * Parses {@code buf[from, to)} after trimming ASCII whitespace and control characters,
+     * as {@link String#trim()} would.
+     *
+     * @return {@code true} if the range holds a number, which is then available via {@link #value()}
+     */
+    public boolean parse(byte[] buf, int from, int to) {
+        while (from < to && (buf[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (buf[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+        if (from == to) {
+            return false;
+        }
+        return parseFast(buf, from, to) || parseSlow(buf, from, to);
+    }
+
+    public double value() {
+        return value;
+    }
+
+    private boolean parseFast(byte[] buf, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = buf[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int exponent = 0;
+
+        while (i < to && isDigit(buf[i])) {
+            if (mantissa != 0 || buf[i] != '0') {
+                if (++significantDigits > 18) {
+                    return false;
+                }
+                mantissa = mantissa * 10 + (buf[i] - '0');
+            }
+            digits++;
+            i++;
+        }
+        if (i < to && buf[i] == '.') {
+            i++;
+            while (i < to && isDigit(buf[i])) {
+                if (mantissa != 0 || buf[i] != '0') {
+                    if (++significantDigits > 18) {
+                        return false;
+                    }
+                    mantissa = mantissa * 10 + (buf[i] - '0');
+                }
+                exponent--;
+                digits++;
+                i++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+
+        if (i < to && (buf[i] == 'e' || buf[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (buf[i] == '-' || buf[i] == '+')) {
+                negativeExponent = buf[i] == '-';
+                i++;
+            }
+            int exponentDigits = 0;
+            int explicitExponent = 0;
+            while (i < to && isDigit(buf[i])) {
+                if (++exponentDigits > 5) {
+                    return false;
+                }
+                explicitExponent = explicitExponent * 10 + (buf[i] - '0');
+                i++;
+            }
+            if (exponentDigits == 0) {
+                return false;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i != to) {
+            return false;
+        }
+
+        double result;
+        if (mantissa == 0) {
+            result = 0.0;
+        } else if (mantissa <= MAX_EXACT_MANTISSA && exponent >= -MAX_FAST_EXPONENT && exponent <= MAX_FAST_EXPONENT) {
+            result = exponent >= 0
+                    ? mantissa * POWERS_OF_TEN[exponent]
+                    : mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return false;
+        }
+        value = negative ? -result : result;
+        return true;
+    }
+
+    private boolean parseSlow(byte[] buf, int from, int to) {
+        // Заведомо нечисловое поле (например, дата) отсекается без исключения
+        for (int i = from; i < to; i++) {
+            if (buf[i] < 0 || !FLOAT_LITERAL_CHARS[buf[i]]) {
+                return false;
+            }
+        }
+        try {
+            value = Double.parseDouble(new String(buf, from, to - from, StandardCharsets.UTF_8));
+            return true;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,361 @@
+package org.example.csvanalyzer.analysis;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Scans a file on disk with several threads: the schema is detected from the first line, the
+ * rest of the file is split into newline-aligned ranges, each range is memory-mapped and scanned
+ * into its own {@link StatisticsAccumulator}, and the partial results are merged pairwise on the
+ * way back up the fork/join tree.
+ * <p>
+ * When a columnar file is requested, every range writes its rows into a part file of its own;
+ * the parts are joined in file order once all ranges are done. A content digest, if requested, is
+ * computed on the calling thread while the pool scans, so hashing adds no pass of its own to the
+ * wall time.
+ * <p>
+ * Interrupting the calling thread cancels the scan: the ranges stop at their next buffer and
+ * {@link InterruptedIOException} is thrown once they have, so no pool thread keeps working for it.
+ */
+public class ParallelCsvAnalyzer implements AutoCloseable {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int ALIGN_PROBE_SIZE = 4096;
+    private static final long MAX_MAPPED_CHUNK = 1L << 30;
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final long minChunkSize;
+    private final long threshold;
+
+    public ParallelCsvAnalyzer(int parallelism, long minChunkSize, long threshold) {
+        this.parallelism = Math.max(1, parallelism);
+        this.minChunkSize = Math.max(ALIGN_PROBE_SIZE, minChunkSize);
+        this.threshold = threshold;
+        this.pool = new ForkJoinPool(this.parallelism);
+    }
+
+    /**
+     * Small files are cheaper to scan on the calling thread than to split and map.
+     */
+    public boolean accepts(long fileSize) {
+        return parallelism > 1 && fileSize >= threshold && fileSize >= 2 * minChunkSize;
+    }
+
+    /**
+     * @param columns columns to compute per-column statistics for, {@code null} for all
+     */
+    public StatisticsAccumulator analyze(Path file, List<String> columns,
+                                        Supplier<StatisticsAccumulator> accumulators) throws IOException {
+        return analyze(file, columns, accumulators, null);
+    }
+
+    /**
+     * @param progress receives the bytes and rows of every chunk as it is scanned, may be {@code null}
+     */
+    public StatisticsAccumulator analyze(Path file, List<String> columns, Supplier<StatisticsAccumulator> accumulators,
+                                        ScanProgress progress) throws IOException {
+        return analyze(file, columns, accumulators, progress, null, 0);
+    }
+
+    /**
+     * @param columnarFile where to write the parsed timestamps and values, {@code null} to skip it
+     * @param blockRows    rows per block of the columnar file
+     */
+    public StatisticsAccumulator analyze(Path file, List<String> columns, Supplier<StatisticsAccumulator> accumulators,
+                                        ScanProgress progress, Path columnarFile, int blockRows) throws IOException {
+        return analyze(file, columns, accumulators, progress, columnarFile, blockRows, null);
+    }
+
+    /**
+     * @param digest receives every byte of the file, {@code null} to skip hashing
+     */
+    public StatisticsAccumulator analyze(Path file, List<String> columns, Supplier<StatisticsAccumulator> accumulators,
+                                        ScanProgress progress, Path columnarFile, int blockRows,
+                                        MessageDigest digest) throws IOException {
+        ColumnarParts parts = columnarFile != null ? new ColumnarParts(columnarFile, blockRows) : null;
+        try {
+            StatisticsAccumulator result = scan(file, columns, accumulators, progress, parts, digest);
+            if (parts != null) {
+                ColumnarWriter.concat(new ArrayList<>(parts.files.values()), columnarFile);
+            }
+            return result;
+        } finally {
+            if (parts != null) {
+                for (Path part : parts.files.values()) {
+                    Files.deleteIfExists(part);
+                }
+            }
+        }
+    }
+
+    private StatisticsAccumulator scan(Path file, List<String> columns, Supplier<StatisticsAccumulator> accumulators,
+                                       ScanProgress progress, ColumnarParts parts,
+                                       MessageDigest digest) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = nextLineStart(channel, 0, size);
+            CsvSchema schema = detectSchema(channel, dataStart, columns);
+            if (!schema.hasHeader()) {
+                dataStart = 0;
+            }
+
+            long chunkSize = Math.min(MAX_MAPPED_CHUNK,
+                    Math.max(minChunkSize, size / (parallelism * 4L) + 1));
+            if (progress != null) {
+                // Строка заголовка не попадает ни в одну часть
+                progress.add(dataStart, 0, 0);
+            }
+            AtomicBoolean cancelled = new AtomicBoolean();
+            ForkJoinTask<StatisticsAccumulator> task = pool.submit(new ChunkTask(channel, schema, dataStart, size,
+                    chunkSize, accumulators, progress, parts, cancelled));
+            try {
+                if (digest != null) {
+                    // Хеш считается вызывающим потоком, пока части разбираются в пуле
+                    ContentHash.update(digest, file);
+                }
+                return task.get();
+            } catch (InterruptedException e) {
+                stop(task, cancelled);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Parallel scan was interrupted");
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            } catch (IOException | RuntimeException e) {
+                stop(task, cancelled);
+                throw e;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Части дорабатывают до ближайшей проверки флага; файл канала нельзя закрыть, пока они его читают
+    private static void stop(ForkJoinTask<?> task, AtomicBoolean cancelled) {
+        cancelled.set(true);
+        task.quietlyJoin();
+    }
+
+    private static IOException rethrow(Throwable cause) throws IOException {
+        if (cause instanceof UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (cause instanceof RuntimeException e) {
+            throw e;
+        }
+        if (cause instanceof Error e) {
+            throw e;
+        }
+        return new IOException(cause);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static final class ChunkTask extends RecursiveTask<StatisticsAccumulator> {
+
+        private final FileChannel channel;
+        private final CsvSchema schema;
+        private final long start;
+        private final long end;
+        private final long chunkSize;
+        private final Supplier<StatisticsAccumulator> accumulators;
+        private final ScanProgress progress;
+        private final ColumnarParts parts;
+        private final AtomicBoolean cancelled;
+
+        ChunkTask(FileChannel channel, CsvSchema schema, long start, long end, long chunkSize,
+                  Supplier<StatisticsAccumulator> accumulators, ScanProgress progress, ColumnarParts parts,
+                  AtomicBoolean cancelled) {
+            this.channel = channel;
+            this.schema = schema;
+            this.start = start;
+            this.end = end;
+            this.chunkSize = chunkSize;
+            this.accumulators = accumulators;
+            this.progress = progress;
+            this.parts = parts;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected StatisticsAccumulator compute() {
+            try {
+                if (end - start > chunkSize) {
+                    long middle = nextLineStart(channel, start + (end - start) / 2, end);
+                    if (middle < end) {
+                        ChunkTask left = new ChunkTask(channel, schema, start, middle, chunkSize, accumulators,
+                                progress, parts, cancelled);
+                        left.fork();
+                        StatisticsAccumulator right;
+                        try {
+                            right = new ChunkTask(channel, schema, middle, end, chunkSize, accumulators, progress,
+                                    parts, cancelled).compute();
+                        } catch (RuntimeException e) {
+                            // Задача завершается только вместе с левой частью: та еще читает канал
+                            left.quietlyJoin();
+                            throw e;
+                        }
+                        StatisticsAccumulator result = left.join();
+                        result.merge(right);
+                        return result;
+                    }
+                }
+                return scan();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private StatisticsAccumulator scan() throws IOException {
+            StatisticsAccumulator accumulator = accumulators.get();
+            CsvValueScanner scanner = new CsvValueScanner(accumulator, schema);
+            if (progress != null) {
+                scanner.setProgress(progress);
+            }
+            ColumnarWriter writer = parts != null ? parts.open(start) : null;
+            try {
+                scanner.setColumnarWriter(writer);
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                for (long position = start; position < end; position += MAX_MAPPED_CHUNK) {
+                    long length = Math.min(MAX_MAPPED_CHUNK, end - position);
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    while (mapped.hasRemaining()) {
+                        if (cancelled.get()) {
+                            throw new CancellationException("Parallel scan was cancelled");
+                        }
+                        int n = Math.min(buffer.length, mapped.remaining());
+                        mapped.get(buffer, 0, n);
+                        scanner.feed(buffer, 0, n);
+                    }
+                }
+                scanner.finish();
+            } finally {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+            return accumulator;
+        }
+    }
+
+    /**
+     * Part files of a columnar file, keyed by the offset of the range that wrote them.
+     */
+    private static final class ColumnarParts {
+
+        private final Path target;
+        private final int blockRows;
+        private final ConcurrentSkipListMap<Long, Path> files = new ConcurrentSkipListMap<>();
+
+        ColumnarParts(Path target, int blockRows) {
+            this.target = target;
+            this.blockRows = blockRows;
+        }
+
+        ColumnarWriter open(long start) throws IOException {
+            Path part = target.resolveSibling(target.getFileName() + ".part" + start);
+            files.put(start, part);
+            return new ColumnarWriter(part, blockRows);
+        }
+    }
+
+    private static CsvSchema detectSchema(FileChannel channel, long lineEnd, List<String> columns) throws IOException {
+        long length = lineEnd;
+        ByteBuffer tail = ByteBuffer.allocate((int) Math.min(2, lineEnd));
+        channel.read(tail, lineEnd - tail.capacity());
+        for (int i = tail.position() - 1; i >= 0 && (tail.get(i) == '\n' || tail.get(i) == '\r'); i--) {
+            length--;
+        }
+        if (length > CsvSchema.MAX_HEADER_LENGTH) {
+            // Слишком длинная первая строка — данные, как и в CsvSchema; в память она не читается
+            return CsvSchema.withoutHeader(countFields(channel, length), columns);
+        }
+
+        ByteBuffer line = ByteBuffer.allocate((int) length);
+        while (line.hasRemaining() && channel.read(line, line.position()) > 0) {
+            // читаем первую строку целиком
+        }
+        return CsvSchema.detect(line.array(), 0, line.position(), columns);
+    }
+
+    // Число полей строки без завершающих пустых полей, как их считает CsvSchema.detect
+    private static int countFields(FileChannel channel, long length) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(ALIGN_PROBE_SIZE);
+        int commas = 0;
+        int fields = 1;
+        long position = 0;
+        while (position < length) {
+            probe.clear();
+            probe.limit((int) Math.min(ALIGN_PROBE_SIZE, length - position));
+            int n = channel.read(probe, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == ',') {
+                    commas++;
+                } else {
+                    fields = commas + 1;
+                }
+            }
+            position += n;
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the offset right after the first line break at or after {@code from},
+     * treating {@code \r\n} as a single break, or {@code end} if there is none.
+     */
+    static long nextLineStart(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(ALIGN_PROBE_SIZE);
+        long position = from;
+        while (position < end) {
+            probe.clear();
+            probe.limit((int) Math.min(ALIGN_PROBE_SIZE, end - position));
+            int n = channel.read(probe, position);
+            if (n <= 0) {
+                return end;
+            }
+            for (int i = 0; i < n; i++) {
+                byte b = probe.get(i);
+                if (b == '\n') {
+                    return position + i + 1;
+                }
+                if (b == '\r') {
+                    long next = position + i + 1;
+                    if (next < end) {
+                        ByteBuffer one = ByteBuffer.allocate(1);
+                        if (channel.read(one, next) == 1 && one.get(0) == '\n') {
+                            return next + 1;
+                        }
+                    }
+                    return next;
+                }
+            }
+            position += n;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.csvanalyzer.analysis;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Count, min, max, mean and standard deviation of the rows of a {@link ColumnarFile} that match a
+ * {@link ColumnarFilter}.
+ * <p>
+ * Blocks whose header rules out every row are skipped without touching their data, so a narrow
+ * filter reads only a small part of the file. Timestamps are only read when the filter has a time
+ * bound, and a block that lies entirely within the value bounds is summed without per-row checks.
+ */
+public class RangeStatistics {
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double mean;
+    private double m2;
+    private int blocksScanned;
+    private int blocksSkipped;
+
+    public static RangeStatistics of(ColumnarFile file, ColumnarFilter filter) {
+        RangeStatistics statistics = new RangeStatistics();
+        for (int block = 0; block < file.getBlockCount(); block++) {
+            if (filter.excludesBlock(file, block)) {
+                statistics.blocksSkipped++;
+                continue;
+            }
+            statistics.blocksScanned++;
+
+            DoubleBuffer values = file.values(block);
+            if (filter.includesBlock(file, block)) {
+                while (values.hasRemaining()) {
+                    statistics.accept(values.get());
+                }
+                continue;
+            }
+
+            LongBuffer timestamps = filter.filtersTime() ? file.timestamps(block) : null;
+            while (values.hasRemaining()) {
+                double value = values.get();
+                long timestamp = timestamps != null ? timestamps.get() : ColumnarFile.NO_TIMESTAMP;
+                if (filter.matches(timestamp, value)) {
+                    statistics.accept(value);
+                }
+            }
+        }
+        return statistics;
+    }
+
+    private void accept(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Sample standard deviation, as for the whole file.
+     */
+    public double getStdDev() {
+        return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0;
+    }
+
+    public int getBlocksScanned() {
+        return blocksScanned;
+    }
+
+    public int getBlocksSkipped() {
+        return blocksSkipped;
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.csvanalyzer.analysis;
+
+public enum RollupGranularity {
+    MINUTE(60),
+    HOUR(3_600),
+    DAY(86_400);
+
+    private final long seconds;
+
+    RollupGranularity(long seconds) {
+        this.seconds = seconds;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.csvanalyzer.analysis;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals of a scan, read by observers on other threads while it is in progress.
+ * <p>
+ * Scanners report once per buffer they are fed rather than per row, so the cost is a few atomic
+ * additions per 64KB; with a parallel scan every chunk adds its own share.
+ */
+public class ScanProgress {
+
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong invalidRows = new AtomicLong();
+    private volatile long totalBytes = -1;
+
+    public void add(long bytes, long rows, long invalidRows) {
+        this.bytes.addAndGet(bytes);
+        if (rows != 0) {
+            this.rows.addAndGet(rows);
+        }
+        if (invalidRows != 0) {
+            this.invalidRows.addAndGet(invalidRows);
+        }
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public long getInvalidRows() {
+        return invalidRows.get();
+    }
+
+    /**
+     * Size of the content to scan, {@code -1} if unknown (e.g. compressed input).
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+}
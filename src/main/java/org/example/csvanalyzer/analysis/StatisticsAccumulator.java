@@ -0,0 +1,333 @@
+package org.example.csvanalyzer.analysis;
+
+import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.entity.ColumnStatistics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running statistics of the value column: Welford mean/M2, min/max, distinct values
+ * (exact or estimated, see {@link DistinctCounter}), a {@link TDigest} for percentiles,
+ * a {@link Histogram}, an optional {@link TimeRollup} over the timestamp column and the number
+ * of rows that could not be parsed, plus a {@link ColumnAccumulator} for every column selected
+ * by the {@link CsvSchema}.
+ */
+public class StatisticsAccumulator {
+
+    private static final byte STATE_FORMAT_VERSION = 1;
+
+    private long recordsCount;
+    private long missingCount;
+    private double minValue = Double.MAX_VALUE;
+    private double maxValue = Double.MIN_VALUE;
+    private double mean;
+    private double m2;
+    private final DistinctCounter uniqueValues;
+    private final TDigest quantiles;
+    private final double[] percentiles;
+    private final Histogram histogram;
+    private final TimeRollup rollup;
+    private CsvSchema schema;
+    private ColumnAccumulator[] columns = new ColumnAccumulator[0];
+
+    public StatisticsAccumulator() {
+        this(StatisticsSettings.defaults());
+    }
+
+    public StatisticsAccumulator(StatisticsSettings settings) {
+        this(new DistinctCounter(
+                        settings.maxExactDistinctCount(),
+                        settings.maxExactDistinctMemoryBytes(),
+                        settings.hllPrecision()),
+                new TDigest(settings.quantileCompression()),
+                settings.percentiles(),
+                new Histogram(settings.histogramBins(), settings.histogramLogScale()),
+                settings.rollupEnabled()
+                        ? new TimeRollup(settings.rollupGranularity(), settings.rollupMaxBuckets())
+                        : null);
+    }
+
+    private StatisticsAccumulator(DistinctCounter uniqueValues, TDigest quantiles, double[] percentiles,
+                                  Histogram histogram, TimeRollup rollup) {
+        this.uniqueValues = uniqueValues;
+        this.quantiles = quantiles;
+        this.percentiles = percentiles;
+        this.histogram = histogram;
+        this.rollup = rollup;
+    }
+
+    /**
+     * Continues an earlier analysis from its {@link #stateToBytes() state} and the serialized
+     * histogram and rollup of its record; the sketches keep the configuration they were built with.
+     *
+     * @param histogram serialized histogram, {@code null} to start an empty one
+     * @param rollup    serialized rollup, {@code null} if the analysis kept none
+     */
+    public static StatisticsAccumulator restore(StatisticsSettings settings, byte[] state, byte[] histogram,
+                                                byte[] rollup) {
+        ByteBuffer in = ByteBuffer.wrap(state);
+        if (in.get() != STATE_FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported accumulator state format");
+        }
+        long recordsCount = in.getLong();
+        long missingCount = in.getLong();
+        double minValue = in.getDouble();
+        double maxValue = in.getDouble();
+        double mean = in.getDouble();
+        double m2 = in.getDouble();
+        DistinctCounter uniqueValues = DistinctCounter.fromBytes(section(in), settings.maxExactDistinctCount(),
+                settings.maxExactDistinctMemoryBytes(), settings.hllPrecision());
+        TDigest quantiles = TDigest.fromBytes(section(in));
+        byte[] schema = section(in);
+
+        TimeRollup restoredRollup = null;
+        if (rollup != null) {
+            TimeRollup stored = TimeRollup.fromBytes(rollup);
+            restoredRollup = new TimeRollup(stored.getGranularity(), settings.rollupMaxBuckets());
+            restoredRollup.merge(stored);
+        }
+
+        StatisticsAccumulator accumulator = new StatisticsAccumulator(uniqueValues, quantiles, settings.percentiles(),
+                histogram != null
+                        ? Histogram.fromBytes(histogram)
+                        : new Histogram(settings.histogramBins(), settings.histogramLogScale()),
+                restoredRollup);
+        accumulator.recordsCount = recordsCount;
+        accumulator.missingCount = missingCount;
+        accumulator.minValue = minValue;
+        accumulator.maxValue = maxValue;
+        accumulator.mean = mean;
+        accumulator.m2 = m2;
+        if (schema.length > 0) {
+            accumulator.schema = CsvSchema.fromBytes(schema);
+        }
+        accumulator.columns = new ColumnAccumulator[in.getInt()];
+        for (int i = 0; i < accumulator.columns.length; i++) {
+            accumulator.columns[i] = ColumnAccumulator.readFrom(in);
+        }
+        return accumulator;
+    }
+
+    private static byte[] section(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Whether the scanner should parse the timestamp column for this accumulator.
+     */
+    public boolean tracksTimestamps() {
+        return rollup != null;
+    }
+
+    /**
+     * Sets up the per-column accumulators; partial results of one analysis share the schema.
+     */
+    public void useSchema(CsvSchema schema) {
+        if (this.schema != null) {
+            return;
+        }
+        this.schema = schema;
+        this.columns = new ColumnAccumulator[schema.getSelected().length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnAccumulator();
+        }
+    }
+
+    /**
+     * Accumulators of the selected columns, in the order of {@link CsvSchema#getSelected()}.
+     */
+    public ColumnAccumulator[] columns() {
+        return columns;
+    }
+
+    public void accept(double value, long epochSecond) {
+        accept(value);
+        rollup.add(epochSecond, value);
+    }
+
+    public void acceptWithoutTimestamp(double value) {
+        accept(value);
+        rollup.addUnparsed();
+    }
+
+    public void accept(double value) {
+        recordsCount++;
+        minValue = Math.min(minValue, value);
+        maxValue = Math.max(maxValue, value);
+        uniqueValues.add(value);
+        quantiles.add(value);
+        histogram.add(value);
+
+        // Welford алгоритм
+        double delta = value - mean;
+        mean += delta / recordsCount;
+        m2 += delta * (value - mean);
+    }
+
+    public void reject() {
+        missingCount++;
+    }
+
+    /**
+     * Folds another partial result into this one using Chan's parallel variance formula.
+     */
+    public void merge(StatisticsAccumulator other) {
+        if (other.schema != null) {
+            useSchema(other.schema);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].merge(other.columns[i]);
+            }
+        }
+        missingCount += other.missingCount;
+        if (other.recordsCount == 0) {
+            return;
+        }
+        if (recordsCount == 0) {
+            recordsCount = other.recordsCount;
+            mean = other.mean;
+            m2 = other.m2;
+        } else {
+            long n = recordsCount + other.recordsCount;
+            double delta = other.mean - mean;
+            mean += delta * other.recordsCount / n;
+            m2 += other.m2 + delta * delta * ((double) recordsCount * other.recordsCount / n);
+            recordsCount = n;
+        }
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+        uniqueValues.merge(other.uniqueValues);
+        quantiles.merge(other.quantiles);
+        histogram.merge(other.histogram);
+        if (rollup != null && other.rollup != null) {
+            rollup.merge(other.rollup);
+        }
+    }
+
+    /**
+     * Everything needed to continue the analysis with more rows: moments, distinct values or their
+     * sketch, t-digest centroids, the schema and the per-column moments. The histogram and the
+     * rollup are not included, the record already keeps them in full.
+     */
+    public byte[] stateToBytes() {
+        byte[] distinct = uniqueValues.toBytes();
+        byte[] digest = quantiles.toBytes();
+        byte[] schemaBytes = schema != null ? schema.toBytes() : new byte[0];
+
+        ByteBuffer out = ByteBuffer.allocate(49 + 12 + distinct.length + digest.length + schemaBytes.length
+                + 4 + columns.length * ColumnAccumulator.BYTES);
+        out.put(STATE_FORMAT_VERSION)
+                .putLong(recordsCount)
+                .putLong(missingCount)
+                .putDouble(minValue)
+                .putDouble(maxValue)
+                .putDouble(mean)
+                .putDouble(m2);
+        out.putInt(distinct.length).put(distinct);
+        out.putInt(digest.length).put(digest);
+        out.putInt(schemaBytes.length).put(schemaBytes);
+        out.putInt(columns.length);
+        for (ColumnAccumulator column : columns) {
+            column.writeTo(out);
+        }
+        return out.array();
+    }
+
+    public void applyTo(AnalysisRecord record) {
+        double stdDev = recordsCount > 1 ? Math.sqrt(m2 / (recordsCount - 1)) : 0.0;
+
+        record.setMinValue(recordsCount > 0 ? minValue : 0.0);
+        record.setMaxValue(recordsCount > 0 ? maxValue : 0.0);
+        record.setMean(recordsCount > 0 ? mean : 0.0);
+        record.setStdDev(recordsCount > 0 ? stdDev : 0.0);
+        record.setRecordsCount(recordsCount);
+        record.setMissingCount(missingCount);
+        record.setUniqueCount(uniqueValues.count());
+        record.setUniqueCountExact(uniqueValues.isExact());
+        record.setUniqueCountError(uniqueValues.relativeError());
+        record.setQuantiles(quantiles());
+        record.setHistogram(histogram.toBytes());
+        record.setRollup(rollup != null ? rollup.toBytes() : null);
+        record.setColumns(columnStatistics());
+    }
+
+    /**
+     * Statistics of the selected columns; without an explicit selection non-numeric columns
+     * (such as the timestamp) are left out.
+     */
+    public List<ColumnStatistics> columnStatistics() {
+        List<ColumnStatistics> result = new ArrayList<>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            int index = schema.getSelected()[i];
+            // Колонка значения разбирается один раз, ее статистика берется из основных полей
+            ColumnAccumulator column = index == CsvSchema.VALUE_COLUMN ? valueColumn() : columns[i];
+            if (column.getRecordsCount() > 0 || schema.isExplicitSelection()) {
+                result.add(column.toStatistics(index, schema.getNames().get(index)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estimated value for each configured percentile, keyed by the percentile (e.g. 99.0).
+     */
+    public Map<Double, Double> quantiles() {
+        Map<Double, Double> result = new TreeMap<>();
+        if (quantiles.size() == 0) {
+            return result;
+        }
+        for (double percentile : percentiles) {
+            result.put(percentile, quantiles.quantile(percentile / 100.0));
+        }
+        return result;
+    }
+
+    private ColumnAccumulator valueColumn() {
+        return new ColumnAccumulator(recordsCount, missingCount, minValue, maxValue, mean, m2);
+    }
+
+    DistinctCounter getUniqueValues() {
+        return uniqueValues;
+    }
+
+    TDigest getQuantileDigest() {
+        return quantiles;
+    }
+
+    public CsvSchema getSchema() {
+        return schema;
+    }
+
+    public TimeRollup getRollup() {
+        return rollup;
+    }
+
+    public long getRecordsCount() {
+        return recordsCount;
+    }
+
+    public long getMissingCount() {
+        return missingCount;
+    }
+
+    public double getMinValue() {
+        return minValue;
+    }
+
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getM2() {
+        return m2;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.csvanalyzer.analysis;
+
+/**
+ * Tuning of the per-analysis sketches, shared by every accumulator of one analysis so that
+ * partial results stay mergeable.
+ */
+public record StatisticsSettings(
+        long maxExactDistinctCount,
+        long maxExactDistinctMemoryBytes,
+        int hllPrecision,
+        double quantileCompression,
+        double[] percentiles,
+        int histogramBins,
+        boolean histogramLogScale,
+        RollupGranularity rollupGranularity,
+        int rollupMaxBuckets
+) {
+
+    public boolean rollupEnabled() {
+        return rollupGranularity != null;
+    }
+
+    public static StatisticsSettings defaults() {
+        return new StatisticsSettings(Long.MAX_VALUE, Long.MAX_VALUE, 14, 100, new double[]{50, 90, 95, 99}, 50, false,
+                RollupGranularity.MINUTE, 100_000);
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.csvanalyzer.analysis;
+
+import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.entity.ColumnStatistics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Combines the stored summaries of several analyses without reading their files. Count, mean,
+ * standard deviation, min and max are merged exactly with Chan's parallel variance formula; the
+ * distinct count and percentiles are merged from the stored sketches, and only while every
+ * summary carries its accumulator state. The cost depends on the number of summaries and the
+ * size of their sketches, not on the number of rows behind them.
+ */
+public class SummaryMerger {
+
+    private final StatisticsSettings settings;
+    private final ColumnAccumulator moments = new ColumnAccumulator();
+    private DistinctCounter uniqueValues;
+    private TDigest quantiles;
+    private boolean sketchesComplete = true;
+
+    public SummaryMerger(StatisticsSettings settings) {
+        this.settings = settings;
+    }
+
+    public void add(AnalysisRecord record) {
+        if (record.getAccumulatorState() == null) {
+            // Без состояния M2 восстанавливается из стандартного отклонения, уникальные и перцентили недоступны
+            sketchesComplete = false;
+            long n = valueOf(record.getRecordsCount());
+            double stdDev = record.getStdDev() != null ? record.getStdDev() : 0.0;
+            moments.merge(new ColumnAccumulator(n, valueOf(record.getMissingCount()),
+                    valueOf(record.getMinValue()), valueOf(record.getMaxValue()), valueOf(record.getMean()),
+                    n > 1 ? stdDev * stdDev * (n - 1) : 0.0));
+            return;
+        }
+
+        StatisticsAccumulator state = StatisticsAccumulator.restore(settings, record.getAccumulatorState(), null, null);
+        moments.merge(new ColumnAccumulator(state.getRecordsCount(), state.getMissingCount(), state.getMinValue(),
+                state.getMaxValue(), state.getMean(), state.getM2()));
+        if (!sketchesComplete) {
+            return;
+        }
+        if (uniqueValues == null) {
+            uniqueValues = state.getUniqueValues();
+            quantiles = state.getQuantileDigest();
+        } else {
+            uniqueValues.merge(state.getUniqueValues());
+            quantiles.merge(state.getQuantileDigest());
+        }
+    }
+
+    /**
+     * Combined count, missing, min, max, mean and standard deviation of the value column.
+     */
+    public ColumnStatistics toStatistics() {
+        return moments.toStatistics(CsvSchema.VALUE_COLUMN, "value");
+    }
+
+    /**
+     * Whether every summary carried its sketches, i.e. the distinct count and percentiles are available.
+     */
+    public boolean hasSketches() {
+        return sketchesComplete && uniqueValues != null;
+    }
+
+    public long uniqueCount() {
+        return uniqueValues.count();
+    }
+
+    public boolean isUniqueCountExact() {
+        return uniqueValues.isExact();
+    }
+
+    public double uniqueCountError() {
+        return uniqueValues.relativeError();
+    }
+
+    /**
+     * Estimated value for each configured percentile, empty without sketches.
+     */
+    public Map<Double, Double> quantiles() {
+        Map<Double, Double> result = new TreeMap<>();
+        if (!hasSketches() || quantiles.size() == 0) {
+            return result;
+        }
+        for (double percentile : settings.percentiles()) {
+            result.put(percentile, quantiles.quantile(percentile / 100.0));
+        }
+        return result;
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0.0;
+    }
+}
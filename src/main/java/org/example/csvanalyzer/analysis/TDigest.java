@@ -0,0 +1,262 @@
+package org.example.csvanalyzer.analysis;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Merging t-digest (Dunning) for streaming quantile estimation in bounded memory.
+ * <p>
+ * Values are collected in a buffer; when it fills up, buffer and centroids are sorted together
+ * and re-clustered under the k1 scale function, which keeps centroids small near the tails so
+ * extreme percentiles stay accurate. Digests merge by re-clustering each other's centroids,
+ * which is what parallel chunk scans and stored summaries rely on. The number of centroids is
+ * bounded by about {@code 2 * compression}, independent of the number of values.
+ * Non-finite values are ignored.
+ */
+public class TDigest {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final double compression;
+
+    private double[] means;
+    private double[] weights;
+    private int centroidCount;
+
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int bufferCount;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("t-digest compression must be at least 10: " + compression);
+        }
+        this.compression = compression;
+        int capacity = (int) Math.ceil(2 * compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        int bufferSize = (int) Math.ceil(20 * compression);
+        this.bufferMeans = new double[bufferSize + capacity];
+        this.bufferWeights = new double[bufferSize + capacity];
+    }
+
+    public void add(double value) {
+        add(value, 1.0);
+    }
+
+    public void add(double value, double weight) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+        if (bufferCount == bufferMeans.length - centroidCount) {
+            compress();
+        }
+        bufferMeans[bufferCount] = value;
+        bufferWeights[bufferCount] = weight;
+        bufferCount++;
+        totalWeight += weight;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroidCount; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        if (other.totalWeight > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        compress();
+    }
+
+    /**
+     * Estimated value at quantile {@code q} in [0, 1], or NaN when no values were added.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be within [0, 1]: " + q);
+        }
+        compress();
+        if (centroidCount == 0) {
+            return Double.NaN;
+        }
+        if (centroidCount == 1) {
+            return means[0];
+        }
+
+        double index = q * totalWeight;
+        if (index < weights[0] / 2) {
+            return min + (means[0] - min) * (index / (weights[0] / 2));
+        }
+
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < centroidCount - 1; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + gap > index) {
+                double left = index - weightSoFar;
+                double right = weightSoFar + gap - index;
+                return (means[i] * right + means[i + 1] * left) / gap;
+            }
+            weightSoFar += gap;
+        }
+
+        int last = centroidCount - 1;
+        double tail = weights[last] / 2;
+        double z = Math.min(1.0, (index - weightSoFar) / tail);
+        return means[last] + (max - means[last]) * z;
+    }
+
+    public long size() {
+        return Math.round(totalWeight);
+    }
+
+    public int centroidCount() {
+        compress();
+        return centroidCount;
+    }
+
+    public double getCompression() {
+        return compression;
+    }
+
+    public byte[] toBytes() {
+        compress();
+        ByteBuffer out = ByteBuffer.allocate(29 + centroidCount * 16);
+        out.put(FORMAT_VERSION)
+                .putDouble(compression)
+                .putDouble(min)
+                .putDouble(max)
+                .putInt(centroidCount);
+        for (int i = 0; i < centroidCount; i++) {
+            out.putDouble(means[i]).putDouble(weights[i]);
+        }
+        return out.array();
+    }
+
+    public static TDigest fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported t-digest format");
+        }
+        TDigest digest = new TDigest(in.getDouble());
+        digest.min = in.getDouble();
+        digest.max = in.getDouble();
+        int count = in.getInt();
+        if (count > digest.means.length) {
+            digest.means = new double[count];
+            digest.weights = new double[count];
+        }
+        for (int i = 0; i < count; i++) {
+            digest.means[i] = in.getDouble();
+            digest.weights[i] = in.getDouble();
+            digest.totalWeight += digest.weights[i];
+        }
+        digest.centroidCount = count;
+        return digest;
+    }
+
+    private void compress() {
+        if (bufferCount == 0) {
+            return;
+        }
+
+        System.arraycopy(means, 0, bufferMeans, bufferCount, centroidCount);
+        System.arraycopy(weights, 0, bufferWeights, bufferCount, centroidCount);
+        int n = bufferCount + centroidCount;
+        sort(bufferMeans, bufferWeights, 0, n - 1);
+
+        int last = 0;
+        means[0] = bufferMeans[0];
+        weights[0] = bufferWeights[0];
+        double weightSoFar = 0;
+        double wLimit = totalWeight * integratedQ(integratedLocation(0) + 1);
+
+        for (int i = 1; i < n; i++) {
+            double proposed = weights[last] + bufferWeights[i];
+            if (weightSoFar + proposed <= wLimit) {
+                weights[last] = proposed;
+                means[last] += (bufferMeans[i] - means[last]) * bufferWeights[i] / proposed;
+            } else {
+                weightSoFar += weights[last];
+                wLimit = totalWeight * integratedQ(integratedLocation(weightSoFar / totalWeight) + 1);
+                last++;
+                if (last == means.length) {
+                    means = Arrays.copyOf(means, means.length * 2);
+                    weights = Arrays.copyOf(weights, weights.length * 2);
+                }
+                means[last] = bufferMeans[i];
+                weights[last] = bufferWeights[i];
+            }
+        }
+
+        centroidCount = last + 1;
+        bufferCount = 0;
+    }
+
+    // Шкала k1: k(q) = δ/π · (asin(2q - 1) + π/2)
+    private double integratedLocation(double q) {
+        return compression * (Math.asin(2 * Math.min(1.0, q) - 1) + Math.PI / 2) / Math.PI;
+    }
+
+    private double integratedQ(double k) {
+        return (Math.sin(Math.min(k, compression) * Math.PI / compression - Math.PI / 2) + 1) / 2;
+    }
+
+    // Сортировка двух параллельных массивов по первому без упаковки в объекты
+    private static void sort(double[] keys, double[] values, int lo, int hi) {
+        while (hi - lo > 16) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, values, i++, j--);
+                }
+            }
+            if (j - lo < hi - i) {
+                sort(keys, values, lo, j);
+                lo = i;
+            } else {
+                sort(keys, values, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            double key = keys[i];
+            double value = values[i];
+            int j = i - 1;
+            while (j >= lo && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+    }
+
+    private static void swap(double[] keys, double[] values, int i, int j) {
+        double k = keys[i];
+        keys[i] = keys[j];
+        keys[j] = k;
+        double v = values[i];
+        values[i] = values[j];
+        values[j] = v;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.csvanalyzer.analysis;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+
+/**
+ * Copies every byte read from the source into an optional branch stream and digest and counts them,
+ * so an upload can be retained on disk and hashed in the same pass that parses it.
+ */
+public class TeeInputStream extends FilterInputStream {
+
+    private final OutputStream branch;
+    private final MessageDigest digest;
+    private long bytesRead;
+
+    public TeeInputStream(InputStream in, OutputStream branch) {
+        this(in, branch, null);
+    }
+
+    public TeeInputStream(InputStream in, OutputStream branch, MessageDigest digest) {
+        super(in);
+        this.branch = branch;
+        this.digest = digest;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            bytesRead++;
+            if (branch != null) {
+                branch.write(b);
+            }
+            if (digest != null) {
+                digest.update((byte) b);
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            bytesRead += n;
+            if (branch != null) {
+                branch.write(b, off, n);
+            }
+            if (digest != null) {
+                digest.update(b, off, n);
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (r == -1) {
+                break;
+            }
+            skipped += r;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+}
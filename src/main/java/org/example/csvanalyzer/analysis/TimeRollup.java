@@ -0,0 +1,245 @@
+package org.example.csvanalyzer.analysis;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-bucket count/min/max/mean of the value column keyed by the row timestamp.
+ * <p>
+ * Buckets live in an open-addressing table of primitive arrays, so memory grows with the number
+ * of occupied buckets and not with the number of rows. When more than {@code maxBuckets} are
+ * occupied the rollup switches to the next coarser {@link RollupGranularity}; rows whose
+ * timestamp could not be parsed are only counted.
+ */
+public class TimeRollup {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxBuckets;
+    private RollupGranularity granularity;
+    private long unparsedCount;
+
+    private int size;
+    private long[] keys;
+    private long[] counts;
+    private double[] mins;
+    private double[] maxs;
+    private double[] means;
+
+    public TimeRollup(RollupGranularity granularity, int maxBuckets) {
+        this.granularity = granularity;
+        this.maxBuckets = maxBuckets;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public record Bucket(long startEpochSecond, long count, double min, double max, double mean) {
+    }
+
+    public void add(long epochSecond, double value) {
+        put(Math.floorDiv(epochSecond, granularity.getSeconds()), 1, value, value, value);
+    }
+
+    public void addUnparsed() {
+        unparsedCount++;
+    }
+
+    public void merge(TimeRollup other) {
+        unparsedCount += other.unparsedCount;
+        if (other.granularity.getSeconds() > granularity.getSeconds()) {
+            coarsen(other.granularity);
+        }
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.counts[i] != 0) {
+                // Гранулярность может укрупниться прямо во время слияния
+                long factor = granularity.getSeconds() / other.granularity.getSeconds();
+                put(Math.floorDiv(other.keys[i], factor), other.counts[i], other.mins[i], other.maxs[i], other.means[i]);
+            }
+        }
+    }
+
+    /**
+     * Occupied buckets in chronological order.
+     */
+    public List<Bucket> buckets() {
+        List<Bucket> result = new ArrayList<>(size);
+        long seconds = granularity.getSeconds();
+        for (int i = 0; i < keys.length; i++) {
+            if (counts[i] != 0) {
+                result.add(new Bucket(keys[i] * seconds, counts[i], mins[i], maxs[i], means[i]));
+            }
+        }
+        result.sort((a, b) -> Long.compare(a.startEpochSecond(), b.startEpochSecond()));
+        return result;
+    }
+
+    /**
+     * Buckets re-aggregated to a coarser (or the same) granularity.
+     */
+    public List<Bucket> buckets(RollupGranularity target) {
+        if (target.getSeconds() < granularity.getSeconds()) {
+            throw new IllegalArgumentException("Rollup is stored per " + granularity.name().toLowerCase()
+                    + " and cannot be split into " + target.name().toLowerCase() + " buckets");
+        }
+        if (target == granularity) {
+            return buckets();
+        }
+        TimeRollup coarse = new TimeRollup(target, Integer.MAX_VALUE);
+        coarse.merge(this);
+        return coarse.buckets();
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getUnparsedCount() {
+        return unparsedCount;
+    }
+
+    public byte[] toBytes() {
+        List<Bucket> buckets = buckets();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + buckets.size() * 28);
+        ByteBuffer header = ByteBuffer.allocate(14);
+        header.put(FORMAT_VERSION)
+                .put((byte) granularity.ordinal())
+                .putLong(unparsedCount)
+                .putInt(buckets.size());
+        out.write(header.array(), 0, header.position());
+
+        // Ключи идут по возрастанию, поэтому пишутся разностями
+        long seconds = granularity.getSeconds();
+        long previous = 0;
+        ByteBuffer values = ByteBuffer.allocate(24);
+        for (Bucket bucket : buckets) {
+            long key = bucket.startEpochSecond() / seconds;
+            writeVarLong(out, key - previous);
+            writeVarLong(out, bucket.count());
+            values.clear();
+            values.putDouble(bucket.min()).putDouble(bucket.max()).putDouble(bucket.mean());
+            out.write(values.array(), 0, 24);
+            previous = key;
+        }
+        return out.toByteArray();
+    }
+
+    public static TimeRollup fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported rollup format");
+        }
+        RollupGranularity granularity = RollupGranularity.values()[in.get()];
+        long unparsedCount = in.getLong();
+        int bucketCount = in.getInt();
+
+        TimeRollup rollup = new TimeRollup(granularity, Integer.MAX_VALUE);
+        rollup.unparsedCount = unparsedCount;
+        long key = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            key += readVarLong(in);
+            long count = readVarLong(in);
+            rollup.put(key, count, in.getDouble(), in.getDouble(), in.getDouble());
+        }
+        return rollup;
+    }
+
+    private void put(long key, long count, double min, double max, double mean) {
+        if (!insert(key, count, min, max, mean)) {
+            return;
+        }
+        while (size > maxBuckets && granularity.ordinal() < RollupGranularity.values().length - 1) {
+            coarsen(RollupGranularity.values()[granularity.ordinal() + 1]);
+        }
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2, 1);
+        }
+    }
+
+    // Возвращает true, если занят новый бакет
+    private boolean insert(long key, long count, double min, double max, double mean) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (counts[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        if (counts[slot] == 0) {
+            keys[slot] = key;
+            counts[slot] = count;
+            mins[slot] = min;
+            maxs[slot] = max;
+            means[slot] = mean;
+            size++;
+            return true;
+        }
+
+        long n = counts[slot] + count;
+        means[slot] += (mean - means[slot]) * count / n;
+        counts[slot] = n;
+        mins[slot] = Math.min(mins[slot], min);
+        maxs[slot] = Math.max(maxs[slot], max);
+        return false;
+    }
+
+    private void coarsen(RollupGranularity target) {
+        long factor = target.getSeconds() / granularity.getSeconds();
+        granularity = target;
+        rehash(keys.length, factor);
+    }
+
+    // Перекладывает занятые бакеты в новую таблицу, при укрупнении ключи делятся на factor
+    private void rehash(int capacity, long factor) {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        double[] oldMins = mins;
+        double[] oldMaxs = maxs;
+        double[] oldMeans = means;
+
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                insert(Math.floorDiv(oldKeys[i], factor), oldCounts[i], oldMins[i], oldMaxs[i], oldMeans[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        size = 0;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        mins = new double[capacity];
+        maxs = new double[capacity];
+        means = new double[capacity];
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.csvanalyzer.analysis;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses the timestamp column into epoch seconds straight from the row bytes.
+ * <p>
+ * The common fixed layout {@code yyyy-MM-ddTHH:mm:ss[.fraction][Z|±HH:mm]} (a space is accepted
+ * instead of {@code T}) is decoded by hand without allocation; timestamps without an offset
+ * are taken as UTC. Anything else that still looks like a date goes through {@code java.time}.
+ */
+public final class TimestampParser {
+
+    private long epochSecond;
+
+    public boolean parse(byte[] buf, int from, int to) {
+        while (from < to && (buf[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (buf[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+        // Не похоже на дату — не тратим время на разбор через java.time
+        if (to - from < 10 || !isDigits(buf, from, 4) || buf[from + 4] != '-') {
+            return false;
+        }
+        return parseFast(buf, from, to) || parseSlow(buf, from, to);
+    }
+
+    public long epochSecond() {
+        return epochSecond;
+    }
+
+    private boolean parseFast(byte[] buf, int from, int to) {
+        if (to - from < 19
+                || buf[from + 7] != '-'
+                || (buf[from + 10] != 'T' && buf[from + 10] != ' ')
+                || buf[from + 13] != ':'
+                || buf[from + 16] != ':'
+                || !isDigits(buf, from + 5, 2)
+                || !isDigits(buf, from + 8, 2)
+                || !isDigits(buf, from + 11, 2)
+                || !isDigits(buf, from + 14, 2)
+                || !isDigits(buf, from + 17, 2)) {
+            return false;
+        }
+
+        int year = number(buf, from, 4);
+        int month = number(buf, from + 5, 2);
+        int day = number(buf, from + 8, 2);
+        int hour = number(buf, from + 11, 2);
+        int minute = number(buf, from + 14, 2);
+        int second = number(buf, from + 17, 2);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return false;
+        }
+
+        int i = from + 19;
+        if (i < to && buf[i] == '.') {
+            int digits = 0;
+            i++;
+            while (i < to && buf[i] >= '0' && buf[i] <= '9') {
+                i++;
+                digits++;
+            }
+            if (digits == 0) {
+                return false;
+            }
+        }
+
+        int offsetSeconds = 0;
+        if (i < to) {
+            if (buf[i] == 'Z' && i + 1 == to) {
+                i++;
+            } else if ((buf[i] == '+' || buf[i] == '-') && to - i == 6 && buf[i + 3] == ':'
+                    && isDigits(buf, i + 1, 2) && isDigits(buf, i + 4, 2)) {
+                int offsetHours = number(buf, i + 1, 2);
+                int offsetMinutes = number(buf, i + 4, 2);
+                if (offsetHours > 18 || offsetMinutes > 59) {
+                    return false;
+                }
+                offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (buf[i] == '-' ? -1 : 1);
+                i = to;
+            } else {
+                return false;
+            }
+        }
+
+        epochSecond = epochDay(year, month, day) * 86_400L + hour * 3600L + minute * 60L + second - offsetSeconds;
+        return true;
+    }
+
+    private boolean parseSlow(byte[] buf, int from, int to) {
+        String text = new String(buf, from, to - from, StandardCharsets.UTF_8);
+        try {
+            epochSecond = LocalDateTime.parse(text).toEpochSecond(ZoneOffset.UTC);
+            return true;
+        } catch (DateTimeParseException ignored) {
+            // пробуем следующий формат
+        }
+        try {
+            epochSecond = OffsetDateTime.parse(text).toEpochSecond();
+            return true;
+        } catch (DateTimeParseException ignored) {
+            // пробуем следующий формат
+        }
+        try {
+            epochSecond = Instant.parse(text).getEpochSecond();
+            return true;
+        } catch (DateTimeParseException ignored) {
+            // пробуем следующий формат
+        }
+        try {
+            epochSecond = LocalDate.parse(text).toEpochDay() * 86_400L;
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // Число дней от 1970-01-01 по пролептическому григорианскому календарю (алгоритм Hinnant)
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isDigits(byte[] buf, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            if (buf[i] < '0' || buf[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int number(byte[] buf, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            value = value * 10 + (buf[i] - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.csvanalyzer.analysis;
+
+import java.util.List;
+
+public class UnknownColumnException extends IllegalArgumentException {
+
+    public UnknownColumnException(String column, List<String> available) {
+        super("Column '" + column + "' not found, available columns: " + String.join(", ", available));
+    }
+}
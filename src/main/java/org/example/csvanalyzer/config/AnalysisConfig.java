@@ -0,0 +1,79 @@
+package org.example.csvanalyzer.config;
+
+import org.example.csvanalyzer.analysis.ParallelCsvAnalyzer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class AnalysisConfig {
+
+    @Bean(destroyMethod = "close")
+    public ParallelCsvAnalyzer parallelCsvAnalyzer(AnalysisProperties properties) {
+        AnalysisProperties.Parallel parallel = properties.getParallel();
+        return new ParallelCsvAnalyzer(
+                parallel.isEnabled() ? parallel.getParallelism() : 1,
+                parallel.getMinChunkSize().toBytes(),
+                parallel.getThreshold().toBytes());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService analysisJobExecutor(AnalysisProperties properties) {
+        AnalysisProperties.Jobs jobs = properties.getJobs();
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                jobs.getThreads(),
+                jobs.getThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobs.getQueueCapacity()),
+                task -> {
+                    Thread thread = new Thread(task, "analysis-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchAnalysisExecutor(AnalysisProperties properties) {
+        AnalysisProperties.Batch batch = properties.getBatch();
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                batch.getThreads(),
+                batch.getThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batch.getQueueCapacity()),
+                task -> {
+                    Thread thread = new Thread(task, "batch-analysis-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Один поток: очистка по расписанию и удаление файлов пачками не пересекаются друг с другом
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService retentionExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "retention-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService jobEventExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "job-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,228 @@
+package org.example.csvanalyzer.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.example.csvanalyzer.analysis.RollupGranularity;
+import org.example.csvanalyzer.analysis.StatisticsSettings;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "analysis")
+@Getter
+@Setter
+public class AnalysisProperties {
+
+    private final Parallel parallel = new Parallel();
+
+    private final Distinct distinct = new Distinct();
+
+    private final Jobs jobs = new Jobs();
+
+    private final Dedup dedup = new Dedup();
+
+    private final Quantiles quantiles = new Quantiles();
+
+    private final HistogramSettings histogram = new HistogramSettings();
+
+    private final Rollup rollup = new Rollup();
+
+    private final Decompression decompression = new Decompression();
+
+    private final Uploads uploads = new Uploads();
+
+    private final Append append = new Append();
+
+    private final Retention retention = new Retention();
+
+    private final History history = new History();
+
+    private final Admission admission = new Admission();
+
+    private final Columnar columnar = new Columnar();
+
+    private final Batch batch = new Batch();
+
+    public StatisticsSettings toStatisticsSettings() {
+        return new StatisticsSettings(
+                distinct.getMaxExactCount(),
+                distinct.getMaxExactMemory().toBytes(),
+                distinct.getHllPrecision(),
+                quantiles.getCompression(),
+                quantiles.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray(),
+                histogram.getBins(),
+                histogram.isLogScale(),
+                rollup.isEnabled() ? rollup.getGranularity() : null,
+                rollup.getMaxBuckets());
+    }
+
+    @Getter
+    @Setter
+    public static class Parallel {
+
+        private boolean enabled = true;
+
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        private DataSize minChunkSize = DataSize.ofMegabytes(4);
+
+        private DataSize threshold = DataSize.ofMegabytes(16);
+    }
+
+    @Getter
+    @Setter
+    public static class Distinct {
+
+        private long maxExactCount = 1_000_000;
+
+        private DataSize maxExactMemory = DataSize.ofMegabytes(32);
+
+        private int hllPrecision = 14;
+    }
+
+    @Getter
+    @Setter
+    public static class Jobs {
+
+        private int threads = 2;
+
+        private int queueCapacity = 16;
+
+        private int historySize = 100;
+
+        private Duration progressInterval = Duration.ofSeconds(1);
+
+        private Duration eventsTimeout = Duration.ofMinutes(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Dedup {
+
+        private boolean enabled = true;
+
+        private int cacheSize = 1000;
+
+        private boolean hashFirst = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Quantiles {
+
+        private double compression = 100;
+
+        private List<Double> percentiles = new ArrayList<>(List.of(50.0, 90.0, 95.0, 99.0));
+    }
+
+    @Getter
+    @Setter
+    public static class HistogramSettings {
+
+        private int bins = 50;
+
+        private boolean logScale = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Rollup {
+
+        private boolean enabled = true;
+
+        private RollupGranularity granularity = RollupGranularity.MINUTE;
+
+        private int maxBuckets = 100_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Decompression {
+
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Uploads {
+
+        private DataSize maxChunkSize = DataSize.ofMegabytes(16);
+
+        private DataSize maxSessionSize = DataSize.ofGigabytes(10);
+
+        private Duration sessionTimeout = Duration.ofHours(1);
+
+        private int maxSessions = 16;
+    }
+
+    @Getter
+    @Setter
+    public static class Append {
+
+        private boolean enabled = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Retention {
+
+        private boolean enabled = true;
+
+        private Duration interval = Duration.ofMinutes(1);
+
+        private Integer maxRecords = 10;
+
+        private Duration maxAge;
+
+        private DataSize maxDiskSize;
+
+        private int deleteBatchSize = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class History {
+
+        private int cacheSize = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Admission {
+
+        private int maxConcurrent = 4;
+
+        private DataSize maxBytesInFlight = DataSize.ofMegabytes(200);
+
+        private int queueCapacity = 16;
+
+        private Duration maxWait = Duration.ofSeconds(10);
+
+        private Duration retryAfter = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Columnar {
+
+        private boolean enabled = true;
+
+        private int blockRows = 8192;
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        private int threads = 4;
+
+        private int queueCapacity = 1000;
+
+        private int maxFiles = 500;
+    }
+}
@@ -13,4 +13,6 @@ public class StorageProperties {
 
     private String tmpDir;
 
+    private boolean retainUploads = true;
+
 }
\ No newline at end of file
@@ -1,15 +1,24 @@
 package org.example.csvanalyzer.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.csvanalyzer.analysis.BoundedInputStream;
 import org.example.csvanalyzer.dto.AnalyzeResponseDto;
+import org.example.csvanalyzer.dto.BatchAnalysisDto;
 import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.exception.FileTooLargeException;
 import org.example.csvanalyzer.exception.FileTypeNotSupportedException;
+import org.example.csvanalyzer.exception.InvalidRequestException;
 import org.example.csvanalyzer.service.AnalysisService;
+import org.example.csvanalyzer.service.BatchAnalysisService;
+import org.example.csvanalyzer.service.CsvUploads;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -17,29 +26,42 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 
 @RestController
 @Tag(name = "File Analysis", description = "APIs for uploading and analyzing CSV files")
 public class AnalyzeController {
 
     private final AnalysisService analysisService;
+    private final BatchAnalysisService batchAnalysisService;
+    private final MultipartProperties multipartProperties;
 
-    public AnalyzeController(AnalysisService analysisService) {
+    public AnalyzeController(AnalysisService analysisService, BatchAnalysisService batchAnalysisService,
+                             MultipartProperties multipartProperties) {
         this.analysisService = analysisService;
+        this.batchAnalysisService = batchAnalysisService;
+        this.multipartProperties = multipartProperties;
     }
 
     @PostMapping(path = "/analyze", consumes = "multipart/form-data")
     @Operation(
             summary = "Upload and analyze CSV file",
             description = """
-            Upload a CSV file for statistical analysis. The file should contain two columns:
-            timestamp and value. Example format:
+            Upload a CSV file for statistical analysis. The first column holds the timestamp
+            and the second the value; further columns are allowed. Example format:
             
-            2025-03-01T10:00:30,105.4
-            2025-03-01T10:00:31,95.56
+            timestamp,value,cpu
+            2025-03-01T10:00:30,105.4,0.5
+            2025-03-01T10:00:31,95.56,0.7
+            
+            Per-column statistics are computed for every numeric column, or only for the
+            columns listed in the columns parameter.
+            
+            The file may be gzip compressed or a zip archive with a single CSV file; it is
+            decompressed on the fly and the size limit applies to the compressed upload.
             
             Maximum file size: 50MB
-            Supported format: text/csv
+            Supported formats: text/csv, application/gzip, application/zip
             """
     )
     @ApiResponses({
@@ -50,28 +72,157 @@ public class AnalyzeController {
             ),
             @ApiResponse(
                     responseCode = "400",
-                    description = "Invalid file type or empty file"
+                    description = "Invalid file type, empty file, zip archive with more than one file or unknown column"
             ),
             @ApiResponse(
                     responseCode = "413",
-                    description = "File size exceeds 50MB limit"
+                    description = "File size exceeds 50MB limit or decompressed size exceeds the configured limit"
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Too many analyses in progress, retry after the Retry-After delay"
             ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error during file processing"
             )
     })
-    public ResponseEntity<AnalyzeResponseDto> analyze(@RequestParam("file") MultipartFile file) throws IOException {
-        if (file == null || file.isEmpty()) {
+    public ResponseEntity<AnalyzeResponseDto> analyze(
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Columns to compute per-column statistics for, all numeric columns by default",
+                    example = "cpu,memory")
+            @RequestParam(required = false) List<String> columns) throws IOException {
+        CsvUploads.validate(file);
+        CsvUploads.validateColumns(columns);
+
+        AnalysisRecord saved = analysisService.analyze(file, columns);
+
+        return ResponseEntity.ok(new AnalyzeResponseDto(saved.getId()));
+    }
+
+    @PostMapping(path = "/analyze", consumes = {"text/csv", CsvUploads.GZIP, CsvUploads.ZIP})
+    @Operation(
+            summary = "Stream and analyze CSV request body",
+            description = """
+            Send the CSV file itself as the request body (Content-Type: text/csv), or
+            gzip/zip compressed (application/gzip, application/zip). The statistics are
+            computed while the body is being received and decompressed, without spooling
+            the upload to disk first.
+
+            Maximum file size: 50MB
+            """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "File analyzed successfully",
+                    content = @Content(schema = @Schema(implementation = AnalyzeResponseDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Empty request body, zip archive with more than one file or unknown column"
+            ),
+            @ApiResponse(
+                    responseCode = "413",
+                    description = "File size exceeds 50MB limit or decompressed size exceeds the configured limit"
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Too many analyses in progress, retry after the Retry-After delay"
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error during file processing"
+            )
+    })
+    public ResponseEntity<AnalyzeResponseDto> analyzeStream(
+            @Parameter(description = "Original file name", example = "data.csv")
+            @RequestParam(defaultValue = "upload.csv") String fileName,
+            @Parameter(description = "Columns to compute per-column statistics for, all numeric columns by default",
+                    example = "cpu,memory")
+            @RequestParam(required = false) List<String> columns,
+            HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() == 0) {
             throw new FileTypeNotSupportedException("Uploaded file is empty");
         }
+        CsvUploads.validateColumns(columns);
 
-        if (!"text/csv".equalsIgnoreCase(file.getContentType())) {
-            throw new FileTypeNotSupportedException("Only CSV files are allowed");
+        long maxBytes = multipartProperties.getMaxFileSize().toBytes();
+        if (request.getContentLengthLong() > maxBytes) {
+            throw new FileTooLargeException("Uploaded file exceeds the maximum allowed size (50MB)");
         }
 
-        AnalysisRecord saved = analysisService.analyze(file);
+        // Тело еще не прочитано: без известной длины резервируется максимальный размер
+        long estimatedBytes = request.getContentLengthLong() > 0 ? request.getContentLengthLong() : maxBytes;
+        AnalysisRecord saved = analysisService.analyze(fileName,
+                new BoundedInputStream(request.getInputStream(), maxBytes), estimatedBytes, columns);
 
         return ResponseEntity.ok(new AnalyzeResponseDto(saved.getId()));
     }
-}
\ No newline at end of file
+
+    @PostMapping(path = "/analyze/batch", consumes = "multipart/form-data")
+    @Operation(
+            summary = "Upload and analyze a batch of CSV files",
+            description = """
+            Upload several CSV files as repeated "files" parts, or one zip archive with any
+            number of CSV files as the "archive" part. The files are analyzed in parallel and
+            the new records are saved together in one transaction. Each file is accepted as by
+            POST /analyze (gzip compressed files included); a file that is empty, has an
+            unsupported type or cannot be analyzed is reported in its item and does not fail the
+            rest of the batch. Each file waits for its own admission like a single analysis; a
+            file that is not admitted in time is reported as failed.
+
+            The extracted files of an archive may not exceed the decompression limit together.
+
+            The response lists the record ID or the error of every file and the combined
+            statistics of the analyzed files, as returned by GET /history/merge.
+
+            Maximum request size: 50MB
+            """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch analyzed, see the items for per-file results",
+                    content = @Content(schema = @Schema(implementation = BatchAnalysisDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "No files, both files and archive, too many files, or an invalid or empty archive"
+            ),
+            @ApiResponse(
+                    responseCode = "413",
+                    description = "Request size exceeds 50MB limit or the archive decompresses beyond the limit"
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error while reading the archive or saving the records"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Batch analysis queue is full, try again later"
+            )
+    })
+    public ResponseEntity<BatchAnalysisDto> analyzeBatch(
+            @Parameter(description = "CSV files to analyze")
+            @RequestParam(required = false) List<MultipartFile> files,
+            @Parameter(description = "Zip archive with the CSV files to analyze, instead of files")
+            @RequestParam(required = false) MultipartFile archive,
+            @Parameter(description = "Columns to compute per-column statistics for, all numeric columns by default",
+                    example = "cpu,memory")
+            @RequestParam(required = false) List<String> columns) {
+        boolean hasFiles = files != null && !files.isEmpty();
+        if (hasFiles == (archive != null)) {
+            throw new InvalidRequestException("Send either files or one archive");
+        }
+        CsvUploads.validateColumns(columns);
+
+        // Бюджет допуска занимает каждый файл пакета на время своего разбора
+        if (archive != null) {
+            CsvUploads.validate(archive);
+            return ResponseEntity.ok(batchAnalysisService.analyzeArchive(archive, columns));
+        }
+
+        return ResponseEntity.ok(batchAnalysisService.analyze(files, columns));
+    }
+}
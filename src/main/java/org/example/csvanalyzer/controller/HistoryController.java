@@ -7,25 +7,38 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.csvanalyzer.analysis.BoundedInputStream;
+import org.example.csvanalyzer.analysis.ColumnarFilter;
+import org.example.csvanalyzer.analysis.RollupGranularity;
 import org.example.csvanalyzer.dto.DetailDto;
+import org.example.csvanalyzer.dto.HistogramDto;
+import org.example.csvanalyzer.dto.HistoryCursorDto;
 import org.example.csvanalyzer.dto.HistoryDto;
+import org.example.csvanalyzer.dto.MergeDto;
+import org.example.csvanalyzer.dto.RangeStatsDto;
+import org.example.csvanalyzer.dto.RollupDto;
 import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.exception.FileTooLargeException;
+import org.example.csvanalyzer.exception.FileTypeNotSupportedException;
+import org.example.csvanalyzer.exception.InvalidRequestException;
 import org.example.csvanalyzer.exception.RecordNotFoundException;
 import org.example.csvanalyzer.mapper.AnalysisRecordMapper;
 import org.example.csvanalyzer.service.AnalysisService;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.example.csvanalyzer.service.HistoryService;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -33,18 +46,30 @@ import java.util.List;
 @Tag(name = "Analysis History", description = "APIs for retrieving and managing analysis history")
 public class HistoryController {
 
+    private static final int PAGE_SIZE = 5;
+    private static final int MAX_CURSOR_SIZE = 100;
+
     private final AnalysisService analysisService;
+    private final HistoryService historyService;
     private final AnalysisRecordMapper mapper;
+    private final MultipartProperties multipartProperties;
 
-    public HistoryController(AnalysisService analysisService, AnalysisRecordMapper mapper) {
+    public HistoryController(AnalysisService analysisService, HistoryService historyService,
+                             AnalysisRecordMapper mapper, MultipartProperties multipartProperties) {
         this.analysisService = analysisService;
+        this.historyService = historyService;
         this.mapper = mapper;
+        this.multipartProperties = multipartProperties;
     }
 
     @GetMapping
     @Operation(
             summary = "Get analysis history",
-            description = "Retrieve paginated history of last 10 analyses (5 records per page)"
+            description = """
+            Retrieve paginated history, newest first (5 records per page). The page tells whether
+            there is a next one ("last"); the total number of records is counted only when
+            includeTotal=true, since that takes a count query on every page.
+            """
     )
     @ApiResponses({
             @ApiResponse(
@@ -52,16 +77,75 @@ public class HistoryController {
                     description = "History retrieved successfully"
             )
     })
-    public ResponseEntity<Page<HistoryDto>> getHistory(
+    public ResponseEntity<Slice<HistoryDto>> getHistory(
             @Parameter(description = "Page number (0-based), default: 0", example = "0")
-            @RequestParam(defaultValue = "0") int page) {
-        Pageable pageable = PageRequest.of(page, 5, Sort.by(Sort.Direction.DESC, "id"));
-        Page<AnalysisRecord> pageResult = analysisService.getHistory(pageable);
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Add totalElements and totalPages, default: false", example = "false")
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(historyService.getHistory(page, PAGE_SIZE, includeTotal));
+    }
 
-        Page<HistoryDto> list = pageResult
-                .map(mapper::toHistoryDto);
+    @GetMapping("/cursor")
+    @Operation(
+            summary = "Get analysis history by cursor",
+            description = """
+            Newest first, like the paginated history, but each slice starts after the last record
+            of the previous one (pass its nextCursor), so no total count is computed and records
+            added meanwhile do not shift the slices.
+            """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "History slice retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = HistoryCursorDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Slice size out of range"
+            )
+    })
+    public ResponseEntity<HistoryCursorDto> getHistoryByCursor(
+            @Parameter(description = "nextCursor of the previous slice, omit for the newest records", example = "42")
+            @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Number of records, 1-" + MAX_CURSOR_SIZE + ", default: 5", example = "5")
+            @RequestParam(defaultValue = "5") int size) {
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new InvalidRequestException("size must be between 1 and " + MAX_CURSOR_SIZE);
+        }
+        return ResponseEntity.ok(historyService.getHistoryBefore(cursor, size));
+    }
 
-        return ResponseEntity.ok(list);
+    @GetMapping("/merge")
+    @Operation(
+            summary = "Merge analyses",
+            description = """
+            Combined statistics of several analyses, e.g. a week of daily files, computed from
+            their stored summaries without reading the files. Count, mean, standard deviation,
+            min and max are exact; the distinct count and percentiles are merged from the stored
+            sketches and are only returned when every analysis has them.
+            """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Analyses merged successfully",
+                    content = @Content(schema = @Schema(implementation = MergeDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "No record IDs given"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Analysis record not found"
+            )
+    })
+    public ResponseEntity<MergeDto> merge(
+            @Parameter(description = "IDs of the analysis records to merge", required = true, example = "1,2,3")
+            @RequestParam List<Long> ids) {
+        List<Long> recordIds = ids.stream().distinct().toList();
+        return ResponseEntity.ok(mapper.toMergeDto(recordIds, analysisService.merge(recordIds)));
     }
 
     @GetMapping("/{id}")
@@ -83,8 +167,162 @@ public class HistoryController {
     public ResponseEntity<DetailDto> getDetail(
             @Parameter(description = "Analysis record ID", required = true, example = "1")
             @PathVariable Long id) {
+        return ResponseEntity.ok(historyService.getDetail(id));
+    }
+
+    @GetMapping("/{id}/histogram")
+    @Operation(
+            summary = "Get value histogram",
+            description = "Histogram of the values computed during the analysis pass"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Histogram retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = HistogramDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Analysis record not found"
+            )
+    })
+    public ResponseEntity<HistogramDto> getHistogram(
+            @Parameter(description = "Analysis record ID", required = true, example = "1")
+            @PathVariable Long id) {
+        AnalysisRecord record = analysisService.findById(id)
+                .orElseThrow(() -> new RecordNotFoundException(id));
+        return ResponseEntity.ok(mapper.toHistogramDto(record));
+    }
+
+    @GetMapping("/{id}/rollup")
+    @Operation(
+            summary = "Get time rollup",
+            description = "Per-minute, per-hour or per-day count/min/max/mean keyed by the timestamp column"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Rollup retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = RollupDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Requested granularity is finer than the stored one"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Analysis record not found"
+            )
+    })
+    public ResponseEntity<RollupDto> getRollup(
+            @Parameter(description = "Analysis record ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Bucket width, defaults to the stored one", example = "HOUR")
+            @RequestParam(required = false) RollupGranularity granularity) {
         AnalysisRecord record = analysisService.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException(id));
+        return ResponseEntity.ok(mapper.toRollupDto(record, granularity));
+    }
+
+    @GetMapping("/{id}/stats")
+    @Operation(
+            summary = "Get statistics of a range",
+            description = """
+            Count, min, max, mean and standard deviation of the rows whose timestamp is in
+            [from, to) and whose value is in [minValue, maxValue]; every bound is optional.
+            Computed from the columnar copy written during the analysis, without re-uploading
+            the file: blocks of rows whose stored time or value range cannot match are skipped.
+            With a time bound, rows without a timestamp are left out.
+            """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Statistics computed successfully",
+                    content = @Content(schema = @Schema(implementation = RangeStatsDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Empty time or value range"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Analysis record not found"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "The record has no columnar copy (uploads not retained, or rows were appended)"
+            )
+    })
+    public ResponseEntity<RangeStatsDto> getRangeStats(
+            @Parameter(description = "Analysis record ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Inclusive start of the time range (ISO-8601 instant)",
+                    example = "2025-03-01T10:00:00Z")
+            @RequestParam(required = false) Instant from,
+            @Parameter(description = "Exclusive end of the time range (ISO-8601 instant)",
+                    example = "2025-03-01T11:00:00Z")
+            @RequestParam(required = false) Instant to,
+            @Parameter(description = "Inclusive lower bound of the value", example = "50")
+            @RequestParam(required = false) Double minValue,
+            @Parameter(description = "Inclusive upper bound of the value", example = "100")
+            @RequestParam(required = false) Double maxValue) {
+        ColumnarFilter filter = new ColumnarFilter(
+                from != null ? from.getEpochSecond() : null,
+                to != null ? to.getEpochSecond() : null,
+                minValue, maxValue);
+        return ResponseEntity.ok(mapper.toRangeStatsDto(id, filter, analysisService.rangeStatistics(id, filter)));
+    }
+
+    @PostMapping(path = "/{id}/append", consumes = "text/csv")
+    @Operation(
+            summary = "Append rows to analysis",
+            description = """
+            Send new rows of the analysed series as the request body (Content-Type: text/csv);
+            a leading header line is skipped. Only the new rows are parsed: the stored state of
+            the analysis is restored and the record is updated in place, as if the rows had been
+            part of the original file.
+
+            Maximum size of the appended rows: 50MB
+            """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Rows appended, updated details returned",
+                    content = @Content(schema = @Schema(implementation = DetailDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Empty request body"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Analysis record not found"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "The record was stored without the state needed to append rows"
+            ),
+            @ApiResponse(
+                    responseCode = "413",
+                    description = "Appended rows exceed 50MB limit"
+            )
+    })
+    public ResponseEntity<DetailDto> append(
+            @Parameter(description = "Analysis record ID", required = true, example = "1")
+            @PathVariable Long id,
+            HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() == 0) {
+            throw new FileTypeNotSupportedException("Uploaded file is empty");
+        }
+
+        long maxBytes = multipartProperties.getMaxFileSize().toBytes();
+        if (request.getContentLengthLong() > maxBytes) {
+            throw new FileTooLargeException("Uploaded file exceeds the maximum allowed size (50MB)");
+        }
+
+        AnalysisRecord record = analysisService.append(id, new BoundedInputStream(request.getInputStream(), maxBytes));
         return ResponseEntity.ok(mapper.toDetailDto(record));
     }
 
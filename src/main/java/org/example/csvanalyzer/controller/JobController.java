@@ -0,0 +1,157 @@
+package org.example.csvanalyzer.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.csvanalyzer.dto.JobDto;
+import org.example.csvanalyzer.dto.JobProgressDto;
+import org.example.csvanalyzer.exception.JobNotFoundException;
+import org.example.csvanalyzer.mapper.JobMapper;
+import org.example.csvanalyzer.model.AnalysisJob;
+import org.example.csvanalyzer.service.AnalysisJobService;
+import org.example.csvanalyzer.service.CsvUploads;
+import org.example.csvanalyzer.service.JobEventService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.util.List;
+
+@RestController
+@RequestMapping("/jobs")
+@Tag(name = "Analysis Jobs", description = "APIs for asynchronous CSV analysis")
+public class JobController {
+
+    private final AnalysisJobService jobService;
+    private final JobEventService jobEventService;
+    private final JobMapper mapper;
+
+    public JobController(AnalysisJobService jobService, JobEventService jobEventService, JobMapper mapper) {
+        this.jobService = jobService;
+        this.jobEventService = jobEventService;
+        this.mapper = mapper;
+    }
+
+    @PostMapping(consumes = "multipart/form-data")
+    @Operation(
+            summary = "Submit CSV file for asynchronous analysis",
+            description = "Accepts the upload, queues the analysis and returns the job immediately"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Job accepted",
+                    content = @Content(schema = @Schema(implementation = JobDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid file type or empty file"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Analysis queue is full"
+            )
+    })
+    public ResponseEntity<JobDto> submit(
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Columns to compute per-column statistics for, all numeric columns by default",
+                    example = "cpu,memory")
+            @RequestParam(required = false) List<String> columns) {
+        CsvUploads.validate(file);
+        CsvUploads.validateColumns(columns);
+
+        AnalysisJob job = jobService.submit(file, columns);
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/jobs/" + job.getId()))
+                .body(mapper.toJobDto(job));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(
+            summary = "Get job status",
+            description = "Returns the job state and, once done, the ID of the resulting analysis record"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Job found",
+                    content = @Content(schema = @Schema(implementation = JobDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Job not found"
+            )
+    })
+    public ResponseEntity<JobDto> getJob(
+            @Parameter(description = "Job ID", required = true)
+            @PathVariable String id) {
+        AnalysisJob job = jobService.findById(id)
+                .orElseThrow(() -> new JobNotFoundException(id));
+        return ResponseEntity.ok(mapper.toJobDto(job));
+    }
+
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Stream job progress",
+            description = """
+            Server-sent events with the progress of the job: a "progress" event every second
+            (bytes and rows processed, invalid rows, current throughput and, when the size of
+            the content is known, an ETA), then one "done", "failed" or "cancelled" event with
+            the final job state, including the ID of the resulting analysis record.
+            """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Event stream",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = JobProgressDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Job not found"
+            )
+    })
+    public SseEmitter streamEvents(
+            @Parameter(description = "Job ID", required = true)
+            @PathVariable String id) {
+        return jobEventService.subscribe(id);
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(
+            summary = "Cancel job",
+            description = "Cancels a queued or running job; finished jobs are returned unchanged. "
+                    + "A running job that completes before the interruption takes effect ends up DONE"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Job cancelled",
+                    content = @Content(schema = @Schema(implementation = JobDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Job not found"
+            )
+    })
+    public ResponseEntity<JobDto> cancel(
+            @Parameter(description = "Job ID", required = true)
+            @PathVariable String id) {
+        return ResponseEntity.ok(mapper.toJobDto(jobService.cancel(id)));
+    }
+}
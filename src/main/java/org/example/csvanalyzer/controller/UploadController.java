@@ -0,0 +1,206 @@
+package org.example.csvanalyzer.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.csvanalyzer.dto.AnalyzeResponseDto;
+import org.example.csvanalyzer.dto.UploadSessionDto;
+import org.example.csvanalyzer.exception.UploadSessionNotFoundException;
+import org.example.csvanalyzer.mapper.UploadSessionMapper;
+import org.example.csvanalyzer.model.UploadSession;
+import org.example.csvanalyzer.service.CsvUploads;
+import org.example.csvanalyzer.service.UploadSessionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+@RestController
+@RequestMapping("/uploads")
+@Tag(name = "Chunked Uploads", description = "APIs for resumable uploads of files beyond the single-request limit")
+public class UploadController {
+
+    private final UploadSessionService uploadService;
+    private final UploadSessionMapper mapper;
+
+    public UploadController(UploadSessionService uploadService, UploadSessionMapper mapper) {
+        this.uploadService = uploadService;
+        this.mapper = mapper;
+    }
+
+    @PostMapping
+    @Operation(
+            summary = "Open upload session",
+            description = """
+            Opens a session for a CSV file sent in numbered chunks. Chunks are cut at arbitrary
+            byte offsets; a row split between two chunks is joined before it is parsed. The
+            statistics are updated as each chunk arrives, so completing the session only stores
+            the result. It equals a sequential one-shot analysis of the whole file; a file large
+            enough to be analysed in parallel in one shot may differ from it in the last digits
+            of the mean and standard deviation and in the percentile estimates.
+            """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "201",
+                    description = "Session opened",
+                    content = @Content(schema = @Schema(implementation = UploadSessionDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Too many or too long column names"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Too many open upload sessions"
+            )
+    })
+    public ResponseEntity<UploadSessionDto> create(
+            @Parameter(description = "Original file name", example = "data.csv")
+            @RequestParam(defaultValue = "upload.csv") String fileName,
+            @Parameter(description = "Columns to compute per-column statistics for, all numeric columns by default",
+                    example = "cpu,memory")
+            @RequestParam(required = false) List<String> columns) {
+        CsvUploads.validateColumns(columns);
+
+        UploadSession session = uploadService.create(fileName, columns);
+
+        return ResponseEntity.created(URI.create("/uploads/" + session.getId()))
+                .body(mapper.toUploadSessionDto(session));
+    }
+
+    @PutMapping(path = "/{id}/chunks/{index}", consumes = {"text/csv", "application/octet-stream"})
+    @Operation(
+            summary = "Upload chunk",
+            description = """
+            Sends the chunk with the given index (starting from 0) as the request body. Chunks are
+            applied in order; resending an already acknowledged chunk is a no-op, so after a dropped
+            connection the upload resumes from nextChunk of the session.
+            """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Chunk acknowledged",
+                    content = @Content(schema = @Schema(implementation = UploadSessionDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Empty or compressed chunk, or unknown column"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Upload session not found or expired"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Chunk out of order or session already completed"
+            ),
+            @ApiResponse(
+                    responseCode = "413",
+                    description = "Chunk or the whole upload exceeds the configured limit"
+            )
+    })
+    public ResponseEntity<UploadSessionDto> uploadChunk(
+            @Parameter(description = "Session ID", required = true)
+            @PathVariable String id,
+            @Parameter(description = "Chunk index, starting from 0", required = true)
+            @PathVariable int index,
+            HttpServletRequest request) throws IOException {
+        UploadSession session = uploadService.appendChunk(id, index, request.getInputStream());
+        return ResponseEntity.ok(mapper.toUploadSessionDto(session));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(
+            summary = "Get upload session",
+            description = "Returns the progress of the session, including the index of the next chunk to send"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Session found",
+                    content = @Content(schema = @Schema(implementation = UploadSessionDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Upload session not found or expired"
+            )
+    })
+    public ResponseEntity<UploadSessionDto> getSession(
+            @Parameter(description = "Session ID", required = true)
+            @PathVariable String id) {
+        UploadSession session = uploadService.findById(id)
+                .orElseThrow(() -> new UploadSessionNotFoundException(id));
+        return ResponseEntity.ok(mapper.toUploadSessionDto(session));
+    }
+
+    @PostMapping("/{id}/complete")
+    @Operation(
+            summary = "Complete upload session",
+            description = "Parses the trailing row and stores the analysis record; completing twice returns the same record"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "File analyzed successfully",
+                    content = @Content(schema = @Schema(implementation = AnalyzeResponseDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Nothing was uploaded or unknown column"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Upload session not found or expired"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Fewer chunks acknowledged than expected"
+            )
+    })
+    public ResponseEntity<AnalyzeResponseDto> complete(
+            @Parameter(description = "Session ID", required = true)
+            @PathVariable String id,
+            @Parameter(description = "Total number of chunks sent, checked against the acknowledged ones", example = "3")
+            @RequestParam(required = false) Integer chunks) {
+        UploadSession session = uploadService.complete(id, chunks);
+        return ResponseEntity.ok(new AnalyzeResponseDto(session.getRecordId()));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(
+            summary = "Abort upload session",
+            description = "Discards the session and its partial upload; the record of a completed session is kept"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Session discarded"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Upload session not found or expired"
+            )
+    })
+    public ResponseEntity<Void> abort(
+            @Parameter(description = "Session ID", required = true)
+            @PathVariable String id) {
+        uploadService.abort(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.csvanalyzer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Results of a batch analysis")
+public record BatchAnalysisDto(
+        @Schema(description = "Number of files in the batch", example = "3")
+        int filesCount,
+
+        @Schema(description = "Files analyzed successfully, duplicates included", example = "2")
+        int succeeded,
+
+        @Schema(description = "Files that could not be analyzed", example = "1")
+        int failed,
+
+        @Schema(description = "Per-file results in request (or archive) order")
+        List<Item> items,
+
+        @Schema(description = "Combined statistics of the analyzed files, absent if none succeeded")
+        MergeDto summary
+) {
+
+    @Schema(description = "Result for one file of the batch")
+    public record Item(
+            @Schema(description = "File name, or entry name in the archive", example = "2025-03-01.csv")
+            String fileName,
+
+            @Schema(description = "Analysis record ID, absent if the file failed", example = "1")
+            Long id,
+
+            @Schema(description = "Whether the content had been analyzed before and the existing record is returned",
+                    example = "false")
+            boolean duplicate,
+
+            @Schema(description = "Why the file could not be analyzed", example = "Failed to read CSV file")
+            String error
+    ) {
+    }
+}
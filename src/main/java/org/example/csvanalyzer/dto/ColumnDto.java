@@ -0,0 +1,31 @@
+package org.example.csvanalyzer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Statistics of one CSV column")
+public record ColumnDto(
+        @Schema(description = "Zero-based column position", example = "2")
+        int columnIndex,
+
+        @Schema(description = "Column name from the header", example = "cpu")
+        String name,
+
+        @Schema(description = "Number of numeric values", example = "1000")
+        long recordsCount,
+
+        @Schema(description = "Number of rows without a numeric value in this column", example = "5")
+        long missingCount,
+
+        @Schema(description = "Minimum value", example = "0.1")
+        double minValue,
+
+        @Schema(description = "Maximum value", example = "0.98")
+        double maxValue,
+
+        @Schema(description = "Arithmetic mean", example = "0.45")
+        double mean,
+
+        @Schema(description = "Standard deviation", example = "0.12")
+        double stdDev
+) {
+}
@@ -2,6 +2,9 @@ package org.example.csvanalyzer.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.util.List;
+import java.util.Map;
+
 @Schema(description = "Detailed analysis statistics")
 public record DetailDto(
         @Schema(description = "Analysis record ID", example = "1")
@@ -37,6 +40,19 @@ public record DetailDto(
         @Schema(description = "Number of unique values", example = "950")
         long uniqueCount,
 
+        @Schema(description = "Whether uniqueCount is exact or a HyperLogLog estimate", example = "true")
+        boolean uniqueCountExact,
+
+        @Schema(description = "Relative standard error of uniqueCount, 0 when exact", example = "0.0081")
+        double uniqueCountError,
+
+        @Schema(description = "Estimated percentiles of the values (t-digest), keyed by percentile",
+                example = "{\"p50\": 45.1, \"p90\": 66.2, \"p95\": 71.9, \"p99\": 82.4}")
+        Map<String, Double> quantiles,
+
+        @Schema(description = "Per-column statistics of the numeric (or requested) columns")
+        List<ColumnDto> columns,
+
         @Schema(description = "Temporary file path for storage", example = "/app/tmp/tmp_12345.csv")
         String tempFilePath
 ) {
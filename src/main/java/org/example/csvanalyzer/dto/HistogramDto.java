@@ -0,0 +1,34 @@
+package org.example.csvanalyzer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Value distribution of an analyzed file")
+public record HistogramDto(
+        @Schema(description = "Analysis record ID", example = "1")
+        Long id,
+
+        @Schema(description = "Whether bins are spaced on a log10 scale", example = "false")
+        boolean logScale,
+
+        @Schema(description = "Values <= 0 left out of a log-scaled histogram", example = "0")
+        long nonPositiveCount,
+
+        @Schema(description = "Occupied bins in ascending order")
+        List<Bin> bins
+) {
+
+    @Schema(description = "Histogram bin [lower, upper)")
+    public record Bin(
+            @Schema(description = "Inclusive lower edge", example = "96.0")
+            double lower,
+
+            @Schema(description = "Exclusive upper edge", example = "100.0")
+            double upper,
+
+            @Schema(description = "Number of values in the bin", example = "42")
+            long count
+    ) {
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.csvanalyzer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Slice of the analysis history, newest first, for cursor-based pagination")
+public record HistoryCursorDto(
+        @Schema(description = "History items")
+        List<HistoryDto> items,
+
+        @Schema(description = "Cursor for the next slice, absent on the last one", example = "42")
+        Long nextCursor
+) {
+}
@@ -0,0 +1,37 @@
+package org.example.csvanalyzer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.example.csvanalyzer.model.JobStatus;
+
+import java.time.Instant;
+
+@Schema(description = "Asynchronous analysis job")
+public record JobDto(
+        @Schema(description = "Job ID", example = "3f2b6c1e-5d0a-4e8b-9a51-0c1f3d2e7b44")
+        String id,
+
+        @Schema(description = "Original file name", example = "data.csv")
+        String fileName,
+
+        @Schema(description = "Job state", example = "RUNNING")
+        JobStatus status,
+
+        @Schema(description = "ID of the resulting analysis record, set once the job is done", example = "1")
+        Long recordId,
+
+        @Schema(description = "Link to the resulting analysis record", example = "/history/1")
+        String recordUrl,
+
+        @Schema(description = "Failure reason for failed jobs")
+        String error,
+
+        @Schema(description = "Submission time")
+        Instant submittedAt,
+
+        @Schema(description = "Start time of the analysis")
+        Instant startedAt,
+
+        @Schema(description = "Completion time")
+        Instant finishedAt
+) {
+}
@@ -0,0 +1,35 @@
+package org.example.csvanalyzer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.example.csvanalyzer.model.JobStatus;
+
+@Schema(description = "Progress of an analysis job, sent as a server-sent event")
+public record JobProgressDto(
+        @Schema(description = "Job ID", example = "3f2b6c1e-5d0a-4e8b-9a51-0c1f3d2e7b44")
+        String jobId,
+
+        @Schema(description = "Job state", example = "RUNNING")
+        JobStatus status,
+
+        @Schema(description = "Bytes of CSV content processed so far", example = "104857600")
+        long bytesProcessed,
+
+        @Schema(description = "Size of the content, absent if unknown (compressed upload)", example = "524288000")
+        Long totalBytes,
+
+        @Schema(description = "Valid rows processed so far", example = "2500000")
+        long rowsProcessed,
+
+        @Schema(description = "Invalid rows found so far", example = "12")
+        long invalidRows,
+
+        @Schema(description = "Current throughput in bytes per second", example = "52428800")
+        double bytesPerSecond,
+
+        @Schema(description = "Current throughput in rows per second", example = "1250000")
+        double rowsPerSecond,
+
+        @Schema(description = "Estimated seconds until the file is processed, absent if unknown", example = "8")
+        Long etaSeconds
+) {
+}
@@ -0,0 +1,45 @@
+package org.example.csvanalyzer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Map;
+
+@Schema(description = "Combined statistics of several analyses")
+public record MergeDto(
+        @Schema(description = "IDs of the merged analysis records", example = "[1, 2, 3]")
+        List<Long> recordIds,
+
+        @Schema(description = "Total number of valid records", example = "3000")
+        long recordsCount,
+
+        @Schema(description = "Total number of invalid/missing records", example = "12")
+        long missingCount,
+
+        @Schema(description = "Minimum value across all analyses", example = "10.5")
+        double minValue,
+
+        @Schema(description = "Maximum value across all analyses", example = "99.9")
+        double maxValue,
+
+        @Schema(description = "Arithmetic mean of all values", example = "45.67")
+        double mean,
+
+        @Schema(description = "Standard deviation of all values", example = "15.23")
+        double stdDev,
+
+        @Schema(description = "Number of unique values, absent if an analysis has no stored sketches", example = "2850")
+        Long uniqueCount,
+
+        @Schema(description = "Whether uniqueCount is exact or a HyperLogLog estimate", example = "true")
+        Boolean uniqueCountExact,
+
+        @Schema(description = "Relative standard error of uniqueCount, 0 when exact", example = "0.0081")
+        Double uniqueCountError,
+
+        @Schema(description = "Estimated percentiles of all values (merged t-digests), empty if an analysis "
+                + "has no stored sketches",
+                example = "{\"p50\": 45.1, \"p90\": 66.2, \"p95\": 71.9, \"p99\": 82.4}")
+        Map<String, Double> quantiles
+) {
+}
@@ -0,0 +1,40 @@
+package org.example.csvanalyzer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+@Schema(description = "Statistics of the rows of an analyzed file within a time and value range")
+public record RangeStatsDto(
+        @Schema(description = "Analysis record ID", example = "1")
+        Long id,
+
+        @Schema(description = "Inclusive start of the time range, absent if open", example = "2025-03-01T10:00:00Z")
+        Instant from,
+
+        @Schema(description = "Exclusive end of the time range, absent if open", example = "2025-03-01T11:00:00Z")
+        Instant to,
+
+        @Schema(description = "Number of matching records", example = "420")
+        long recordsCount,
+
+        @Schema(description = "Minimum matching value, absent if nothing matched", example = "10.5")
+        Double minValue,
+
+        @Schema(description = "Maximum matching value, absent if nothing matched", example = "99.9")
+        Double maxValue,
+
+        @Schema(description = "Arithmetic mean of the matching values, absent if nothing matched", example = "45.67")
+        Double mean,
+
+        @Schema(description = "Standard deviation of the matching values, absent if nothing matched",
+                example = "15.23")
+        Double stdDev,
+
+        @Schema(description = "Blocks of stored rows that were read", example = "3")
+        int blocksScanned,
+
+        @Schema(description = "Blocks skipped because their value or time range could not match", example = "117")
+        int blocksSkipped
+) {
+}
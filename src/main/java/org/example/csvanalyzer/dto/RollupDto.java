@@ -0,0 +1,41 @@
+package org.example.csvanalyzer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+
+@Schema(description = "Time-bucketed statistics of an analyzed file")
+public record RollupDto(
+        @Schema(description = "Analysis record ID", example = "1")
+        Long id,
+
+        @Schema(description = "Bucket width", example = "HOUR")
+        String granularity,
+
+        @Schema(description = "Valid rows whose timestamp could not be parsed", example = "0")
+        long unparsedTimestamps,
+
+        @Schema(description = "Occupied buckets in chronological order")
+        List<Bucket> buckets
+) {
+
+    @Schema(description = "Statistics of one time bucket")
+    public record Bucket(
+            @Schema(description = "Bucket start (UTC)", example = "2024-01-01T10:00:00Z")
+            Instant start,
+
+            @Schema(description = "Number of values in the bucket", example = "3600")
+            long count,
+
+            @Schema(description = "Minimum value", example = "1.5")
+            double min,
+
+            @Schema(description = "Maximum value", example = "99.9")
+            double max,
+
+            @Schema(description = "Mean value", example = "50.2")
+            double mean
+    ) {
+    }
+}
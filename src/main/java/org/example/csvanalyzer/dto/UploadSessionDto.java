@@ -0,0 +1,43 @@
+package org.example.csvanalyzer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.example.csvanalyzer.model.UploadStatus;
+
+import java.time.Instant;
+
+@Schema(description = "Chunked upload session")
+public record UploadSessionDto(
+        @Schema(description = "Session ID", example = "8d1c2b7a-4f3e-4a60-9b2d-6e5f1a0c3d99")
+        String id,
+
+        @Schema(description = "Original file name", example = "data.csv")
+        String fileName,
+
+        @Schema(description = "Session state", example = "OPEN")
+        UploadStatus status,
+
+        @Schema(description = "Index of the next chunk to send; all chunks before it are acknowledged", example = "3")
+        int nextChunk,
+
+        @Schema(description = "Bytes acknowledged so far", example = "50331648")
+        long bytesReceived,
+
+        @Schema(description = "Valid rows parsed so far", example = "2000000")
+        long recordsCount,
+
+        @Schema(description = "Invalid rows skipped so far", example = "12")
+        long missingCount,
+
+        @Schema(description = "ID of the resulting analysis record, set once the session is completed", example = "1")
+        Long recordId,
+
+        @Schema(description = "Link to the resulting analysis record", example = "/history/1")
+        String recordUrl,
+
+        @Schema(description = "Creation time")
+        Instant createdAt,
+
+        @Schema(description = "Time of the last accepted request; idle sessions expire")
+        Instant lastActivityAt
+) {
+}
@@ -0,0 +1,27 @@
+package org.example.csvanalyzer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Serialized accumulator of an {@link AnalysisRecord}: moments, distinct values or HyperLogLog,
+ * t-digest centroids and per-column state. Kept in a table of its own so that reading a record
+ * does not load it; only appending rows and merging records read it.
+ */
+@Entity
+@Table(name = "accumulator_state")
+@Getter
+@Setter
+public class AccumulatorState {
+
+    @Id
+    @Column(name = "record_id")
+    private Long recordId;
+
+    @Column(name = "state", length = 1 << 26)
+    private byte[] state;
+}
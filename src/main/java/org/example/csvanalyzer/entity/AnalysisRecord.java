@@ -1,16 +1,29 @@
 package org.example.csvanalyzer.entity;
 
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapKeyColumn;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 @Entity
-@Table(name = "analysis_record")
+@Table(name = "analysis_record", indexes = @Index(name = "idx_analysis_record_content_hash", columnList = "content_hash"))
 @Getter
 @Setter
 public class AnalysisRecord {
@@ -49,6 +62,48 @@ public class AnalysisRecord {
     @Column(name = "unique_count")
     private Long uniqueCount;
 
+    @Column(name = "unique_count_exact")
+    private Boolean uniqueCountExact;
+
+    @Column(name = "unique_count_error")
+    private Double uniqueCountError;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
     @Column(name = "temp_file_path")
     private String tempFilePath;
+
+    @Column(name = "columnar_file_path")
+    private String columnarFilePath;
+
+    @Column(name = "columnar_file_size")
+    private Long columnarFileSizeBytes;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "selected_columns", length = 1024)
+    private String selectedColumns;
+
+    @ElementCollection
+    @CollectionTable(name = "analysis_record_quantile", joinColumns = @JoinColumn(name = "record_id"))
+    @MapKeyColumn(name = "percentile")
+    @Column(name = "quantile_value")
+    private Map<Double, Double> quantiles = new TreeMap<>();
+
+    @ElementCollection
+    @CollectionTable(name = "analysis_record_column", joinColumns = @JoinColumn(name = "record_id"))
+    @OrderBy("columnIndex")
+    private List<ColumnStatistics> columns = new ArrayList<>();
+
+    @Column(name = "histogram", length = 1 << 20)
+    private byte[] histogram;
+
+    @Column(name = "rollup", length = 1 << 24)
+    private byte[] rollup;
+
+    // Хранится отдельно, в AccumulatorState: читается только при добавлении строк и объединении
+    @Transient
+    private byte[] accumulatorState;
 }
\ No newline at end of file
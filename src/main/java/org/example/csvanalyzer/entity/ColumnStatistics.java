@@ -0,0 +1,36 @@
+package org.example.csvanalyzer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.Setter;
+
+@Embeddable
+@Getter
+@Setter
+public class ColumnStatistics {
+
+    @Column(name = "column_index")
+    private Integer columnIndex;
+
+    @Column(name = "column_name")
+    private String name;
+
+    @Column(name = "records_count")
+    private Long recordsCount;
+
+    @Column(name = "missing_count")
+    private Long missingCount;
+
+    @Column(name = "min_value")
+    private Double minValue;
+
+    @Column(name = "max_value")
+    private Double maxValue;
+
+    @Column
+    private Double mean;
+
+    @Column(name = "std_dev")
+    private Double stdDev;
+}
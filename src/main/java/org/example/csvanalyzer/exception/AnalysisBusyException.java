@@ -0,0 +1,17 @@
+package org.example.csvanalyzer.exception;
+
+import java.time.Duration;
+
+public class AnalysisBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AnalysisBusyException(String msg, Duration retryAfter) {
+        super(msg);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
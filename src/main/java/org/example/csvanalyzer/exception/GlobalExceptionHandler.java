@@ -1,6 +1,7 @@
 package org.example.csvanalyzer.exception;
 
 import org.example.csvanalyzer.dto.ErrorResponseDto;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -27,6 +28,11 @@ public class GlobalExceptionHandler {
         return buildError(ex.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
     }
 
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidRequest(InvalidRequestException ex) {
+        return buildError(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(MaxUploadSizeExceededException.class)
     public ResponseEntity<ErrorResponseDto> handleMultipartLimit(MaxUploadSizeExceededException ex) {
         return buildError("Uploaded file exceeds the maximum allowed size (50MB)",
@@ -38,6 +44,49 @@ public class GlobalExceptionHandler {
         return buildError(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(JobNotFoundException.class)
+    public ResponseEntity<ErrorResponseDto> handleJobNotFound(JobNotFoundException ex) {
+        return buildError(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(JobQueueFullException.class)
+    public ResponseEntity<ErrorResponseDto> handleQueueFull(JobQueueFullException ex) {
+        return buildError(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(AnalysisBusyException.class)
+    public ResponseEntity<ErrorResponseDto> handleBusy(AnalysisBusyException ex) {
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(new ErrorResponseDto(ex.getMessage(), status.value(), Instant.now()));
+    }
+
+    @ExceptionHandler(RecordNotAppendableException.class)
+    public ResponseEntity<ErrorResponseDto> handleNotAppendable(RecordNotAppendableException ex) {
+        return buildError(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(RecordNotQueryableException.class)
+    public ResponseEntity<ErrorResponseDto> handleNotQueryable(RecordNotQueryableException ex) {
+        return buildError(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    public ResponseEntity<ErrorResponseDto> handleUploadSessionNotFound(UploadSessionNotFoundException ex) {
+        return buildError(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(UploadConflictException.class)
+    public ResponseEntity<ErrorResponseDto> handleUploadConflict(UploadConflictException ex) {
+        return buildError(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(UploadSessionLimitException.class)
+    public ResponseEntity<ErrorResponseDto> handleUploadSessionLimit(UploadSessionLimitException ex) {
+        return buildError(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponseDto> handleGeneric(Exception ex) {
         return buildError("Unexpected error: " + ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
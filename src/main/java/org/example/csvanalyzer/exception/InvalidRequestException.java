@@ -0,0 +1,8 @@
+package org.example.csvanalyzer.exception;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.csvanalyzer.exception;
+
+public class JobNotFoundException extends RuntimeException {
+
+    public JobNotFoundException(String id) {
+        super("Job with id: " + id + " not found");
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.csvanalyzer.exception;
+
+public class JobQueueFullException extends RuntimeException {
+
+    public JobQueueFullException(String msg) {
+        super(msg);
+    }
+}
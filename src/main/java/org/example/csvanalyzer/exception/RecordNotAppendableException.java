@@ -0,0 +1,8 @@
+package org.example.csvanalyzer.exception;
+
+public class RecordNotAppendableException extends RuntimeException {
+
+    public RecordNotAppendableException(Long id) {
+        super("Analysis record with id: " + id + " has no stored state to append rows to");
+    }
+}
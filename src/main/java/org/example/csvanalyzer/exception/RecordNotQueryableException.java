@@ -0,0 +1,8 @@
+package org.example.csvanalyzer.exception;
+
+public class RecordNotQueryableException extends RuntimeException {
+
+    public RecordNotQueryableException(Long id) {
+        super("Analysis record with id: " + id + " has no stored columnar data to filter");
+    }
+}
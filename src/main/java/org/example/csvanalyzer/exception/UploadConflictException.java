@@ -0,0 +1,8 @@
+package org.example.csvanalyzer.exception;
+
+public class UploadConflictException extends RuntimeException {
+
+    public UploadConflictException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.csvanalyzer.exception;
+
+public class UploadSessionLimitException extends RuntimeException {
+
+    public UploadSessionLimitException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.csvanalyzer.exception;
+
+public class UploadSessionNotFoundException extends RuntimeException {
+
+    public UploadSessionNotFoundException(String id) {
+        super("Upload session with id: " + id + " not found");
+    }
+}
@@ -1,15 +1,97 @@
 package org.example.csvanalyzer.mapper;
 
+import org.example.csvanalyzer.analysis.ColumnarFilter;
+import org.example.csvanalyzer.analysis.Histogram;
+import org.example.csvanalyzer.analysis.RangeStatistics;
+import org.example.csvanalyzer.analysis.RollupGranularity;
+import org.example.csvanalyzer.analysis.SummaryMerger;
+import org.example.csvanalyzer.analysis.TimeRollup;
 import org.example.csvanalyzer.dto.DetailDto;
+import org.example.csvanalyzer.dto.HistogramDto;
 import org.example.csvanalyzer.dto.HistoryDto;
+import org.example.csvanalyzer.dto.MergeDto;
+import org.example.csvanalyzer.dto.RangeStatsDto;
+import org.example.csvanalyzer.dto.RollupDto;
 import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.entity.ColumnStatistics;
+import org.example.csvanalyzer.exception.InvalidRequestException;
+import org.example.csvanalyzer.repository.HistoryView;
 import org.mapstruct.Mapper;
 import org.mapstruct.ReportingPolicy;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface AnalysisRecordMapper {
 
-    HistoryDto toHistoryDto(AnalysisRecord record);
+    HistoryDto toHistoryDto(HistoryView view);
 
     DetailDto toDetailDto(AnalysisRecord record);
+
+    default HistogramDto toHistogramDto(AnalysisRecord record) {
+        if (record.getHistogram() == null) {
+            return new HistogramDto(record.getId(), false, 0, List.of());
+        }
+        Histogram histogram = Histogram.fromBytes(record.getHistogram());
+        List<HistogramDto.Bin> bins = histogram.bins().stream()
+                .map(bin -> new HistogramDto.Bin(bin.lower(), bin.upper(), bin.count()))
+                .toList();
+        return new HistogramDto(record.getId(), histogram.isLogScale(), histogram.getNonPositiveCount(), bins);
+    }
+
+    default RollupDto toRollupDto(AnalysisRecord record, RollupGranularity granularity) {
+        if (record.getRollup() == null) {
+            String name = granularity != null ? granularity.name() : null;
+            return new RollupDto(record.getId(), name, 0, List.of());
+        }
+        TimeRollup rollup = TimeRollup.fromBytes(record.getRollup());
+        RollupGranularity target = granularity != null ? granularity : rollup.getGranularity();
+        if (target.getSeconds() < rollup.getGranularity().getSeconds()) {
+            throw new InvalidRequestException("Rollup of record " + record.getId() + " is stored per "
+                    + rollup.getGranularity().name().toLowerCase() + ", finer buckets are not available");
+        }
+        List<RollupDto.Bucket> buckets = rollup.buckets(target).stream()
+                .map(b -> new RollupDto.Bucket(Instant.ofEpochSecond(b.startEpochSecond()), b.count(),
+                        b.min(), b.max(), b.mean()))
+                .toList();
+        return new RollupDto(record.getId(), target.name(), rollup.getUnparsedCount(), buckets);
+    }
+
+    default MergeDto toMergeDto(List<Long> recordIds, SummaryMerger merger) {
+        ColumnStatistics statistics = merger.toStatistics();
+        boolean sketches = merger.hasSketches();
+        return new MergeDto(recordIds, statistics.getRecordsCount(), statistics.getMissingCount(),
+                statistics.getMinValue(), statistics.getMaxValue(), statistics.getMean(), statistics.getStdDev(),
+                sketches ? merger.uniqueCount() : null,
+                sketches ? merger.isUniqueCountExact() : null,
+                sketches ? merger.uniqueCountError() : null,
+                toQuantileMap(merger.quantiles()));
+    }
+
+    default RangeStatsDto toRangeStatsDto(Long id, ColumnarFilter filter, RangeStatistics statistics) {
+        boolean empty = statistics.getCount() == 0;
+        return new RangeStatsDto(id,
+                filter.from() != null ? Instant.ofEpochSecond(filter.from()) : null,
+                filter.to() != null ? Instant.ofEpochSecond(filter.to()) : null,
+                statistics.getCount(),
+                empty ? null : statistics.getMin(),
+                empty ? null : statistics.getMax(),
+                empty ? null : statistics.getMean(),
+                empty ? null : statistics.getStdDev(),
+                statistics.getBlocksScanned(), statistics.getBlocksSkipped());
+    }
+
+    default Map<String, Double> toQuantileMap(Map<Double, Double> quantiles) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        if (quantiles != null) {
+            new TreeMap<>(quantiles).forEach((percentile, value) ->
+                    result.put("p" + BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString(), value));
+        }
+        return result;
+    }
 }
\ No newline at end of file
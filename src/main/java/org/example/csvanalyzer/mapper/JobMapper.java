@@ -0,0 +1,26 @@
+package org.example.csvanalyzer.mapper;
+
+import org.example.csvanalyzer.analysis.ScanProgress;
+import org.example.csvanalyzer.dto.JobDto;
+import org.example.csvanalyzer.dto.JobProgressDto;
+import org.example.csvanalyzer.model.AnalysisJob;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface JobMapper {
+
+    @Mapping(target = "recordUrl",
+            expression = "java(job.getRecordId() != null ? \"/history/\" + job.getRecordId() : null)")
+    JobDto toJobDto(AnalysisJob job);
+
+    default JobProgressDto toJobProgressDto(AnalysisJob job, double bytesPerSecond, double rowsPerSecond,
+                                            Long etaSeconds) {
+        ScanProgress progress = job.getProgress();
+        long totalBytes = progress.getTotalBytes();
+        return new JobProgressDto(job.getId(), job.getStatus(), progress.getBytes(),
+                totalBytes >= 0 ? totalBytes : null, progress.getRows(), progress.getInvalidRows(),
+                bytesPerSecond, rowsPerSecond, etaSeconds);
+    }
+}
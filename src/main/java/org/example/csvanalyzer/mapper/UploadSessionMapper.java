@@ -0,0 +1,15 @@
+package org.example.csvanalyzer.mapper;
+
+import org.example.csvanalyzer.dto.UploadSessionDto;
+import org.example.csvanalyzer.model.UploadSession;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface UploadSessionMapper {
+
+    @Mapping(target = "recordUrl",
+            expression = "java(session.getRecordId() != null ? \"/history/\" + session.getRecordId() : null)")
+    UploadSessionDto toUploadSessionDto(UploadSession session);
+}
@@ -0,0 +1,117 @@
+package org.example.csvanalyzer.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.csvanalyzer.config.StorageProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Micrometer meters of the analysis pipeline: a timer per {@link AnalysisPhase} tagged with the
+ * outcome, counters of analyses, bytes and rows, and gauges of analyses in flight and the size
+ * of the temp directory.
+ */
+@Component
+public class AnalysisMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisMetrics.class);
+
+    private final MeterRegistry registry;
+    private final Path tempDir;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter bytes;
+    private final Counter rows;
+    private final Counter invalidRows;
+
+    public AnalysisMetrics(MeterRegistry registry, StorageProperties storageProperties) {
+        this.registry = registry;
+        this.tempDir = Paths.get(storageProperties.getTmpDir());
+        this.bytes = Counter.builder("csv.analysis.bytes")
+                .description("Bytes of CSV content analyzed")
+                .baseUnit("bytes")
+                .register(registry);
+        this.rows = Counter.builder("csv.analysis.rows")
+                .description("Valid rows analyzed")
+                .register(registry);
+        this.invalidRows = Counter.builder("csv.analysis.rows.invalid")
+                .description("Rows counted as missing")
+                .register(registry);
+        Gauge.builder("csv.analysis.in.flight", inFlight, AtomicInteger::get)
+                .description("Analyses currently running")
+                .register(registry);
+        Gauge.builder("csv.storage.temp.dir.size", this, AnalysisMetrics::tempDirSize)
+                .description("Total size of the files in the temp directory")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    public interface PhaseAction<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * Runs one phase and records its duration, tagged with the outcome.
+     */
+    public <T, E extends Exception> T time(AnalysisPhase phase, PhaseAction<T, E> action) throws E {
+        Timer.Sample sample = Timer.start(registry);
+        AnalysisOutcome outcome = AnalysisOutcome.FAILURE;
+        try {
+            T result = action.run();
+            outcome = AnalysisOutcome.SUCCESS;
+            return result;
+        } finally {
+            sample.stop(Timer.builder("csv.analysis.phase")
+                    .description("Duration of an analysis pipeline phase")
+                    .tag("phase", phase.getTag())
+                    .tag("outcome", outcome.getTag())
+                    .register(registry));
+        }
+    }
+
+    public void analysisStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void analysisFinished(AnalysisOutcome outcome) {
+        inFlight.decrementAndGet();
+        registry.counter("csv.analysis.analyses", "outcome", outcome.getTag()).increment();
+    }
+
+    public void contentProcessed(long byteCount, long rowCount, long invalidRowCount) {
+        bytes.increment(byteCount);
+        rows.increment(rowCount);
+        invalidRows.increment(invalidRowCount);
+    }
+
+    private double tempDirSize() {
+        if (!Files.isDirectory(tempDir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.mapToLong(AnalysisMetrics::sizeQuietly).sum();
+        } catch (IOException e) {
+            log.warn("Не удалось определить размер каталога {}", tempDir, e);
+            return Double.NaN;
+        }
+    }
+
+    // Файл мог быть удален между листингом и запросом размера
+    private static long sizeQuietly(Path file) {
+        try {
+            return Files.isRegularFile(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.csvanalyzer.metrics;
+
+public enum AnalysisOutcome {
+    SUCCESS("success"),
+    DUPLICATE("duplicate"),
+    FAILURE("failure");
+
+    private final String tag;
+
+    AnalysisOutcome(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
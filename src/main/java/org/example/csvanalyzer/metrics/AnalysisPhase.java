@@ -0,0 +1,22 @@
+package org.example.csvanalyzer.metrics;
+
+/**
+ * Stages of the analysis pipeline timed separately.
+ */
+public enum AnalysisPhase {
+    UPLOAD_COPY("upload_copy"),
+    HASH("hash"),
+    PARSE("parse"),
+    PERSIST("persist"),
+    RETENTION_CLEANUP("retention_cleanup");
+
+    private final String tag;
+
+    AnalysisPhase(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
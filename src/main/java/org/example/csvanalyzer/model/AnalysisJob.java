@@ -0,0 +1,38 @@
+package org.example.csvanalyzer.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.example.csvanalyzer.analysis.ScanProgress;
+
+import java.time.Instant;
+import java.util.concurrent.Future;
+
+@Getter
+@Setter
+public class AnalysisJob {
+
+    private final String id;
+
+    private final String fileName;
+
+    private final Instant submittedAt = Instant.now();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+
+    private volatile Long recordId;
+
+    private volatile String error;
+
+    private volatile Instant startedAt;
+
+    private volatile Instant finishedAt;
+
+    private volatile Future<?> future;
+
+    private final ScanProgress progress = new ScanProgress();
+
+    public AnalysisJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+    }
+}
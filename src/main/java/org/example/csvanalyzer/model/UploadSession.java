@@ -0,0 +1,68 @@
+package org.example.csvanalyzer.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.example.csvanalyzer.analysis.ColumnarWriter;
+import org.example.csvanalyzer.analysis.CsvValueScanner;
+import org.example.csvanalyzer.analysis.StatisticsAccumulator;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+public class UploadSession {
+
+    private final String id;
+
+    private final String fileName;
+
+    private final List<String> columns;
+
+    private final Instant createdAt = Instant.now();
+
+    private volatile Instant lastActivityAt = createdAt;
+
+    private volatile UploadStatus status = UploadStatus.OPEN;
+
+    private volatile int nextChunk;
+
+    private volatile long bytesReceived;
+
+    private volatile long recordsCount;
+
+    private volatile long missingCount;
+
+    private volatile Long recordId;
+
+    // Состояние разбора между чанками: строка, разрезанная границей, ждет продолжения в сканере
+    private final StatisticsAccumulator accumulator;
+
+    private final CsvValueScanner scanner;
+
+    private final MessageDigest digest;
+
+    private final Path tempFilePath;
+
+    private final Path columnarFilePath;
+
+    private final ColumnarWriter columnarWriter;
+
+    private long processingTimeNanos;
+
+    public UploadSession(String id, String fileName, List<String> columns, StatisticsAccumulator accumulator,
+                         MessageDigest digest, Path tempFilePath, Path columnarFilePath, ColumnarWriter columnarWriter) {
+        this.id = id;
+        this.fileName = fileName;
+        this.columns = columns;
+        this.accumulator = accumulator;
+        this.scanner = new CsvValueScanner(accumulator, columns);
+        this.digest = digest;
+        this.tempFilePath = tempFilePath;
+        this.columnarFilePath = columnarFilePath;
+        this.columnarWriter = columnarWriter;
+        scanner.setColumnarWriter(columnarWriter);
+    }
+}
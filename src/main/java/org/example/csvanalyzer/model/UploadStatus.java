@@ -0,0 +1,6 @@
+package org.example.csvanalyzer.model;
+
+public enum UploadStatus {
+    OPEN,
+    COMPLETED
+}
@@ -0,0 +1,7 @@
+package org.example.csvanalyzer.repository;
+
+import org.example.csvanalyzer.entity.AccumulatorState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AccumulatorStateRepository extends JpaRepository<AccumulatorState, Long> {
+}
@@ -1,11 +1,89 @@
 package org.example.csvanalyzer.repository;
 
 import org.example.csvanalyzer.entity.AnalysisRecord;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 public interface AnalysisRecordRepository extends JpaRepository<AnalysisRecord, Long> {
-    List<AnalysisRecord> findAllByOrderByIdAsc(Pageable pageable);
-}
\ No newline at end of file
+    Optional<AnalysisRecord> findFirstByContentHashAndSelectedColumnsOrderByIdDesc(String contentHash, String selectedColumns);
+
+    // Проекция, а не сущность: сущность не попадает в контекст и потом читается под блокировкой заново
+    @Query("select r.fileSizeBytes as fileSizeBytes, r.recordsCount as recordsCount, r.missingCount as missingCount, "
+            + "r.selectedColumns as selectedColumns, r.histogram as histogram, r.rollup as rollup, "
+            + "s.state as accumulatorState from AnalysisRecord r left join AccumulatorState s on s.recordId = r.id "
+            + "where r.id = :id")
+    Optional<AppendBaseView> findAppendBaseById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from AnalysisRecord r where r.id = :id")
+    Optional<AnalysisRecord> findByIdForUpdate(@Param("id") Long id);
+
+    @Query(value = "select r.id as id, r.fileName as fileName, r.fileSizeBytes as fileSizeBytes, "
+            + "r.processingTimeMs as processingTimeMs, r.mean as mean, r.stdDev as stdDev from AnalysisRecord r",
+            countQuery = "select count(r.id) from AnalysisRecord r")
+    Page<HistoryView> findHistory(Pageable pageable);
+
+    // Порция без подсчета: читается size + 1 строк, чтобы узнать, есть ли следующая
+    @Query("select r.id as id, r.fileName as fileName, r.fileSizeBytes as fileSizeBytes, "
+            + "r.processingTimeMs as processingTimeMs, r.mean as mean, r.stdDev as stdDev from AnalysisRecord r")
+    Slice<HistoryView> findHistorySlice(Pageable pageable);
+
+    @Query("select r.id as id, r.fileName as fileName, r.fileSizeBytes as fileSizeBytes, "
+            + "r.processingTimeMs as processingTimeMs, r.mean as mean, r.stdDev as stdDev from AnalysisRecord r "
+            + "where r.id < :cursor order by r.id desc")
+    List<HistoryView> findHistoryBefore(@Param("cursor") long cursor, Pageable pageable);
+
+    @Query("select r.id from AnalysisRecord r order by r.id desc")
+    List<Long> findIdsNewestFirst(Pageable pageable);
+
+    // Объем на диске: сохраненная копия файла и ее колоночная копия
+    @Query("select r.id, coalesce(r.fileSizeBytes, 0) + coalesce(r.columnarFileSizeBytes, 0) from AnalysisRecord r "
+            + "where r.tempFilePath is not null order by r.id desc")
+    List<Object[]> findStoredFileSizesNewestFirst();
+
+    @Query("select r.tempFilePath from AnalysisRecord r where r.tempFilePath is not null")
+    List<String> findAllTempFilePaths();
+
+    @Query("select r.columnarFilePath from AnalysisRecord r where r.columnarFilePath is not null")
+    List<String> findAllColumnarFilePaths();
+
+    @Query("select r.tempFilePath from AnalysisRecord r "
+            + "where (r.id <= :maxId or r.createdAt < :createdBefore) and r.tempFilePath is not null")
+    List<String> findExpiredTempFilePaths(@Param("maxId") long maxId, @Param("createdBefore") Instant createdBefore);
+
+    @Query("select r.columnarFilePath from AnalysisRecord r "
+            + "where (r.id <= :maxId or r.createdAt < :createdBefore) and r.columnarFilePath is not null")
+    List<String> findExpiredColumnarFilePaths(@Param("maxId") long maxId,
+                                              @Param("createdBefore") Instant createdBefore);
+
+    // Строки коллекций удаляются явно и до самих записей, на них ссылается внешний ключ
+    @Modifying
+    @Query(value = "delete from analysis_record_quantile where record_id in "
+            + "(select id from analysis_record where id <= :maxId or created_at < :createdBefore)", nativeQuery = true)
+    int deleteExpiredQuantiles(@Param("maxId") long maxId, @Param("createdBefore") Instant createdBefore);
+
+    @Modifying
+    @Query(value = "delete from analysis_record_column where record_id in "
+            + "(select id from analysis_record where id <= :maxId or created_at < :createdBefore)", nativeQuery = true)
+    int deleteExpiredColumns(@Param("maxId") long maxId, @Param("createdBefore") Instant createdBefore);
+
+    @Modifying
+    @Query(value = "delete from accumulator_state where record_id in "
+            + "(select id from analysis_record where id <= :maxId or created_at < :createdBefore)", nativeQuery = true)
+    int deleteExpiredAccumulatorStates(@Param("maxId") long maxId, @Param("createdBefore") Instant createdBefore);
+
+    @Modifying
+    @Query("delete from AnalysisRecord r where r.id <= :maxId or r.createdAt < :createdBefore")
+    int deleteExpired(@Param("maxId") long maxId, @Param("createdBefore") Instant createdBefore);
+}
@@ -0,0 +1,21 @@
+package org.example.csvanalyzer.repository;
+
+/**
+ * State of an analysis record that new rows are parsed against before the record is locked.
+ */
+public interface AppendBaseView {
+
+    Long getFileSizeBytes();
+
+    Long getRecordsCount();
+
+    Long getMissingCount();
+
+    String getSelectedColumns();
+
+    byte[] getHistogram();
+
+    byte[] getRollup();
+
+    byte[] getAccumulatorState();
+}
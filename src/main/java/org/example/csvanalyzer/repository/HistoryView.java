@@ -0,0 +1,19 @@
+package org.example.csvanalyzer.repository;
+
+/**
+ * Columns of an analysis record shown in the history list; selected without loading the entity.
+ */
+public interface HistoryView {
+
+    Long getId();
+
+    String getFileName();
+
+    Long getFileSizeBytes();
+
+    Long getProcessingTimeMs();
+
+    Double getMean();
+
+    Double getStdDev();
+}
@@ -0,0 +1,24 @@
+package org.example.csvanalyzer.service;
+
+public interface AdmissionService {
+
+    /**
+     * Reserves room for one analysis of about {@code estimatedBytes}, waiting for a while if the
+     * budget is used up.
+     *
+     * @throws org.example.csvanalyzer.exception.AnalysisBusyException if there is no room in time
+     */
+    Permit acquire(long estimatedBytes);
+
+    interface Permit extends AutoCloseable {
+
+        /**
+         * Raises the reservation to {@code bytes} if it is lower, e.g. as decompressed content streams
+         * in. Never waits: the analysis that holds the permit goes on, later ones see the larger total.
+         */
+        void reserve(long bytes);
+
+        @Override
+        void close();
+    }
+}
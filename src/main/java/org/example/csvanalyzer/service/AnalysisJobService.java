@@ -0,0 +1,16 @@
+package org.example.csvanalyzer.service;
+
+import org.example.csvanalyzer.model.AnalysisJob;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AnalysisJobService {
+
+    AnalysisJob submit(MultipartFile file, List<String> columns);
+
+    Optional<AnalysisJob> findById(String id);
+
+    AnalysisJob cancel(String id);
+}
@@ -1,18 +1,50 @@
 package org.example.csvanalyzer.service;
 
+import org.example.csvanalyzer.analysis.ColumnarFilter;
+import org.example.csvanalyzer.analysis.RangeStatistics;
+import org.example.csvanalyzer.analysis.ScanProgress;
+import org.example.csvanalyzer.analysis.StatisticsAccumulator;
+import org.example.csvanalyzer.analysis.SummaryMerger;
 import org.example.csvanalyzer.entity.AnalysisRecord;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 
 public interface AnalysisService {
 
-    AnalysisRecord analyze(MultipartFile file) throws IOException;
+    AnalysisRecord analyze(MultipartFile file, List<String> columns) throws IOException;
 
-    Page<AnalysisRecord> getHistory(Pageable pageable);
+    /**
+     * @param estimatedBytes expected size of the content, reserved in the admission budget up front
+     */
+    AnalysisRecord analyze(String fileName, InputStream content, long estimatedBytes, List<String> columns);
+
+    Path storeUpload(MultipartFile file);
+
+    AnalysisRecord analyzeStoredFile(String fileName, Path file, List<String> columns, ScanProgress progress);
+
+    /**
+     * Analyzes a stored file like {@link #analyzeStoredFile} but does not save the new record: it is
+     * returned without an id, to be saved with {@link #saveAll}. A duplicate of an earlier upload
+     * returns the existing record.
+     */
+    AnalysisRecord analyzeWithoutSaving(String fileName, Path file, List<String> columns);
+
+    List<AnalysisRecord> saveAll(List<AnalysisRecord> records);
+
+    AnalysisRecord saveScanned(String fileName, long fileSizeBytes, long processingTimeMs,
+                               StatisticsAccumulator accumulator, Path retainedFile, Path columnarFile,
+                               String contentHash, List<String> columns);
+
+    AnalysisRecord append(Long id, InputStream content);
+
+    SummaryMerger merge(List<Long> ids);
+
+    RangeStatistics rangeStatistics(Long id, ColumnarFilter filter);
 
     Optional<AnalysisRecord> findById(Long id);
 
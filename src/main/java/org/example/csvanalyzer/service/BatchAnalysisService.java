@@ -0,0 +1,16 @@
+package org.example.csvanalyzer.service;
+
+import org.example.csvanalyzer.dto.BatchAnalysisDto;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+public interface BatchAnalysisService {
+
+    BatchAnalysisDto analyze(List<MultipartFile> files, List<String> columns);
+
+    /**
+     * Analyzes every file of a zip archive as a separate file of the batch.
+     */
+    BatchAnalysisDto analyzeArchive(MultipartFile archive, List<String> columns);
+}
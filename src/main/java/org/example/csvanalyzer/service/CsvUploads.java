@@ -0,0 +1,61 @@
+package org.example.csvanalyzer.service;
+
+import org.example.csvanalyzer.exception.FileTypeNotSupportedException;
+import org.example.csvanalyzer.exception.InvalidRequestException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Checks an uploaded CSV file and the columns requested for it before the file is stored. Used by the controllers for single uploads and by
+ * the batch service for each file of a batch, where a rejected file is reported in its item.
+ */
+public final class CsvUploads {
+
+    public static final String GZIP = "application/gzip";
+    public static final String ZIP = "application/zip";
+
+    public static final int MAX_COLUMNS = 64;
+    // Выбор хранится в selected_columns через запятую
+    public static final int MAX_COLUMNS_LENGTH = 1024;
+
+    // Сжатые загрузки распаковываются потоком, тип содержимого определяется по сигнатуре
+    private static final Set<String> CONTENT_TYPES = Set.of(
+            "text/csv", GZIP, "application/x-gzip", ZIP, "application/x-zip-compressed");
+
+    private CsvUploads() {
+    }
+
+    public static void validate(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new FileTypeNotSupportedException("Uploaded file is empty");
+        }
+
+        String contentType = file.getContentType();
+        if (contentType == null || !CONTENT_TYPES.contains(contentType.toLowerCase(Locale.ROOT))) {
+            throw new FileTypeNotSupportedException("Only CSV files (optionally gzip or zip compressed) are allowed");
+        }
+    }
+
+    public static void validateColumns(List<String> columns) {
+        if (columns == null || columns.isEmpty()) {
+            return;
+        }
+        if (columns.size() > MAX_COLUMNS) {
+            throw new InvalidRequestException("At most " + MAX_COLUMNS + " columns may be requested");
+        }
+        int length = columns.size() - 1;
+        for (String column : columns) {
+            if (column == null || column.isBlank()) {
+                throw new InvalidRequestException("Column names must not be blank");
+            }
+            length += column.trim().length();
+        }
+        if (length > MAX_COLUMNS_LENGTH) {
+            throw new InvalidRequestException("Requested column names may be at most "
+                    + MAX_COLUMNS_LENGTH + " characters long in total");
+        }
+    }
+}
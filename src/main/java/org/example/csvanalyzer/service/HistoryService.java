@@ -0,0 +1,18 @@
+package org.example.csvanalyzer.service;
+
+import org.example.csvanalyzer.dto.DetailDto;
+import org.example.csvanalyzer.dto.HistoryCursorDto;
+import org.example.csvanalyzer.dto.HistoryDto;
+import org.springframework.data.domain.Slice;
+
+public interface HistoryService {
+
+    /**
+     * @param includeTotal also count all records; the result is then a {@link org.springframework.data.domain.Page}
+     */
+    Slice<HistoryDto> getHistory(int page, int size, boolean includeTotal);
+
+    HistoryCursorDto getHistoryBefore(Long cursor, int size);
+
+    DetailDto getDetail(Long id);
+}
@@ -0,0 +1,8 @@
+package org.example.csvanalyzer.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface JobEventService {
+
+    SseEmitter subscribe(String jobId);
+}
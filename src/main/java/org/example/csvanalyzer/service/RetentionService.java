@@ -0,0 +1,8 @@
+package org.example.csvanalyzer.service;
+
+public interface RetentionService {
+
+    int reap();
+
+    int reconcileOrphans();
+}
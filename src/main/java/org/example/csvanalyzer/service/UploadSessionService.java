@@ -0,0 +1,20 @@
+package org.example.csvanalyzer.service;
+
+import org.example.csvanalyzer.model.UploadSession;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadSessionService {
+
+    UploadSession create(String fileName, List<String> columns);
+
+    Optional<UploadSession> findById(String id);
+
+    UploadSession appendChunk(String id, int index, InputStream content);
+
+    UploadSession complete(String id, Integer expectedChunks);
+
+    void abort(String id);
+}
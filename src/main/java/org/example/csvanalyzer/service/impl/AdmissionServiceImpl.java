@@ -0,0 +1,167 @@
+package org.example.csvanalyzer.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.csvanalyzer.config.AnalysisProperties;
+import org.example.csvanalyzer.exception.AnalysisBusyException;
+import org.example.csvanalyzer.service.AdmissionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budget of analyses running at once and of their size, so that a burst of large uploads waits
+ * instead of exhausting the heap. An analysis starts with an estimate (the upload size) and raises
+ * its reservation to the decompressed size as it reads the content.
+ * <p>
+ * A request that does not fit waits up to {@code max-wait}, at most {@code queue-capacity} of them;
+ * the others are rejected right away. A single request larger than the whole byte budget is let in
+ * when nothing else is running, otherwise it could never run.
+ */
+@Service
+public class AdmissionServiceImpl implements AdmissionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionServiceImpl.class);
+
+    private final int maxConcurrent;
+    private final long maxBytesInFlight;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final Duration retryAfter;
+    private final Counter rejected;
+
+    private int active;
+    private long bytesInFlight;
+    private int waiting;
+
+    public AdmissionServiceImpl(AnalysisProperties analysisProperties, MeterRegistry registry) {
+        AnalysisProperties.Admission admission = analysisProperties.getAdmission();
+        this.maxConcurrent = admission.getMaxConcurrent();
+        this.maxBytesInFlight = admission.getMaxBytesInFlight().toBytes();
+        this.queueCapacity = admission.getQueueCapacity();
+        this.maxWaitNanos = admission.getMaxWait().toNanos();
+        this.retryAfter = admission.getRetryAfter();
+
+        Gauge.builder("csv.admission.active", this, AdmissionServiceImpl::getActive)
+                .description("Analyses admitted and running")
+                .register(registry);
+        Gauge.builder("csv.admission.bytes.in.flight", this, AdmissionServiceImpl::getBytesInFlight)
+                .description("Estimated size of the analyses running")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("csv.admission.waiting", this, AdmissionServiceImpl::getWaiting)
+                .description("Analyses waiting for admission")
+                .register(registry);
+        Gauge.builder("csv.admission.max.concurrent", this, s -> s.maxConcurrent)
+                .description("Budget of analyses running at once")
+                .register(registry);
+        Gauge.builder("csv.admission.max.bytes.in.flight", this, s -> s.maxBytesInFlight)
+                .description("Budget of the estimated size of the analyses running")
+                .baseUnit("bytes")
+                .register(registry);
+        this.rejected = Counter.builder("csv.admission.rejected")
+                .description("Analyses rejected because the budget was used up")
+                .register(registry);
+    }
+
+    @Override
+    public Permit acquire(long estimatedBytes) {
+        long bytes = Math.max(estimatedBytes, 0);
+        synchronized (this) {
+            if (!fits(bytes)) {
+                await(bytes);
+            }
+            active++;
+            bytesInFlight += bytes;
+        }
+        return new BudgetPermit(bytes);
+    }
+
+    // Вызывается под монитором; ожидание освобождает его
+    private void await(long bytes) {
+        if (waiting >= queueCapacity) {
+            throw reject();
+        }
+
+        long deadline = System.nanoTime() + maxWaitNanos;
+        waiting++;
+        try {
+            while (!fits(bytes)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw reject();
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject();
+        } finally {
+            waiting--;
+        }
+    }
+
+    private boolean fits(long bytes) {
+        return active < maxConcurrent && (active == 0 || bytesInFlight + bytes <= maxBytesInFlight);
+    }
+
+    private AnalysisBusyException reject() {
+        rejected.increment();
+        log.warn("Анализ отклонен: выполняется {}, в обработке {} байт, в очереди {}", active, bytesInFlight, waiting);
+        return new AnalysisBusyException("Too many analyses in progress, try again later", retryAfter);
+    }
+
+    private synchronized void reserve(BudgetPermit permit, long bytes) {
+        if (!permit.released && bytes > permit.bytes) {
+            bytesInFlight += bytes - permit.bytes;
+            permit.bytes = bytes;
+        }
+    }
+
+    private synchronized void release(BudgetPermit permit) {
+        if (permit.released) {
+            return;
+        }
+        permit.released = true;
+        active--;
+        bytesInFlight -= permit.bytes;
+        notifyAll();
+    }
+
+    public synchronized int getActive() {
+        return active;
+    }
+
+    public synchronized long getBytesInFlight() {
+        return bytesInFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiting;
+    }
+
+    // Поля меняются только под монитором сервиса
+    private final class BudgetPermit implements Permit {
+
+        private long bytes;
+        private boolean released;
+
+        private BudgetPermit(long bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void reserve(long bytes) {
+            AdmissionServiceImpl.this.reserve(this, bytes);
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.csvanalyzer.service.impl;
+
+import org.example.csvanalyzer.config.AnalysisProperties;
+import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.exception.JobNotFoundException;
+import org.example.csvanalyzer.exception.JobQueueFullException;
+import org.example.csvanalyzer.model.AnalysisJob;
+import org.example.csvanalyzer.model.JobStatus;
+import org.example.csvanalyzer.service.AnalysisJobService;
+import org.example.csvanalyzer.service.AnalysisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+@Service
+public class AnalysisJobServiceImpl implements AnalysisJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisJobServiceImpl.class);
+    private final AnalysisService analysisService;
+    private final ExecutorService executor;
+    private final int historySize;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> finishedJobs = new ConcurrentLinkedQueue<>();
+
+    public AnalysisJobServiceImpl(AnalysisService analysisService,
+                                  @Qualifier("analysisJobExecutor") ExecutorService executor,
+                                  AnalysisProperties analysisProperties) {
+        this.analysisService = analysisService;
+        this.executor = executor;
+        this.historySize = analysisProperties.getJobs().getHistorySize();
+    }
+
+    @Override
+    public AnalysisJob submit(MultipartFile file, List<String> columns) {
+        // Файл запроса удаляется контейнером после ответа, поэтому его нужно сохранить до постановки в очередь
+        Path upload = analysisService.storeUpload(file);
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString(), file.getOriginalFilename());
+        jobs.put(job.getId(), job);
+
+        try {
+            job.setFuture(executor.submit(() -> run(job, upload, columns)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteQuietly(upload);
+            throw new JobQueueFullException("Analysis queue is full, try again later");
+        }
+
+        log.info("Задача анализа {} поставлена в очередь: {}", job.getId(), job.getFileName());
+        return job;
+    }
+
+    @Override
+    public Optional<AnalysisJob> findById(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    @Override
+    public AnalysisJob cancel(String id) {
+        AnalysisJob job = findById(id).orElseThrow(() -> new JobNotFoundException(id));
+
+        synchronized (job) {
+            if (job.getStatus().isFinished()) {
+                return job;
+            }
+            boolean running = job.getStatus() == JobStatus.RUNNING;
+            job.setStatus(JobStatus.CANCELLED);
+            job.setFinishedAt(Instant.now());
+
+            // Задачу из очереди не прерываем: при запуске она увидит отмену и удалит свой файл
+            Future<?> future = job.getFuture();
+            if (running && future != null) {
+                future.cancel(true);
+            }
+        }
+
+        log.info("Задача анализа {} отменена", id);
+        return job;
+    }
+
+    private void run(AnalysisJob job, Path upload, List<String> columns) {
+        synchronized (job) {
+            if (job.getStatus() != JobStatus.QUEUED) {
+                deleteQuietly(upload);
+                finish(job);
+                return;
+            }
+            job.setStatus(JobStatus.RUNNING);
+            job.setStartedAt(Instant.now());
+        }
+
+        try {
+            AnalysisRecord record = analysisService.analyzeStoredFile(job.getFileName(), upload, columns,
+                    job.getProgress());
+
+            // Отмена опоздала: запись уже сохранена (или найдена по хешу), задача считается выполненной
+            synchronized (job) {
+                job.setRecordId(record.getId());
+                job.setStatus(JobStatus.DONE);
+                job.setFinishedAt(Instant.now());
+            }
+        } catch (Exception e) {
+            synchronized (job) {
+                if (job.getStatus() != JobStatus.CANCELLED) {
+                    job.setStatus(JobStatus.FAILED);
+                    job.setError(e.getMessage());
+                    job.setFinishedAt(Instant.now());
+                }
+            }
+            log.error("Ошибка при выполнении задачи анализа {}", job.getId(), e);
+        } finally {
+            finish(job);
+        }
+    }
+
+    private void finish(AnalysisJob job) {
+        finishedJobs.add(job.getId());
+        while (finishedJobs.size() > historySize) {
+            String oldest = finishedJobs.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error("Не удалось удалить файл: {}", path, e);
+        }
+    }
+}
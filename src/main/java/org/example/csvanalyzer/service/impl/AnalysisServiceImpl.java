@@ -1,30 +1,68 @@
 package org.example.csvanalyzer.service.impl;
 
+import org.example.csvanalyzer.analysis.ColumnarFile;
+import org.example.csvanalyzer.analysis.ColumnarFilter;
+import org.example.csvanalyzer.analysis.ColumnarWriter;
+import org.example.csvanalyzer.analysis.Compression;
+import org.example.csvanalyzer.analysis.ContentHash;
+import org.example.csvanalyzer.analysis.CsvSchema;
+import org.example.csvanalyzer.analysis.CsvValueScanner;
+import org.example.csvanalyzer.analysis.ParallelCsvAnalyzer;
+import org.example.csvanalyzer.analysis.RangeStatistics;
+import org.example.csvanalyzer.analysis.ScanProgress;
+import org.example.csvanalyzer.analysis.StatisticsAccumulator;
+import org.example.csvanalyzer.analysis.StatisticsSettings;
+import org.example.csvanalyzer.analysis.SummaryMerger;
+import org.example.csvanalyzer.analysis.TeeInputStream;
+import org.example.csvanalyzer.analysis.UnknownColumnException;
+import org.example.csvanalyzer.config.AnalysisProperties;
 import org.example.csvanalyzer.config.StorageProperties;
+import org.example.csvanalyzer.entity.AccumulatorState;
 import org.example.csvanalyzer.entity.AnalysisRecord;
 import org.example.csvanalyzer.exception.FileProcessingException;
+import org.example.csvanalyzer.exception.InvalidRequestException;
+import org.example.csvanalyzer.exception.RecordNotAppendableException;
 import org.example.csvanalyzer.exception.RecordNotFoundException;
+import org.example.csvanalyzer.exception.RecordNotQueryableException;
+import org.example.csvanalyzer.metrics.AnalysisMetrics;
+import org.example.csvanalyzer.metrics.AnalysisOutcome;
+import org.example.csvanalyzer.metrics.AnalysisPhase;
+import org.example.csvanalyzer.repository.AccumulatorStateRepository;
 import org.example.csvanalyzer.repository.AnalysisRecordRepository;
+import org.example.csvanalyzer.repository.AppendBaseView;
+import org.example.csvanalyzer.service.AdmissionService;
 import org.example.csvanalyzer.service.AnalysisService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Instant;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -32,99 +70,703 @@ import java.util.UUID;
 public class AnalysisServiceImpl implements AnalysisService {
 
     private static final Logger log = LoggerFactory.getLogger(AnalysisServiceImpl.class);
+    static final String COLUMNAR_FILE_SUFFIX = ".col";
+
     private final AnalysisRecordRepository repository;
+    private final AccumulatorStateRepository stateRepository;
+    private final StorageProperties storageProperties;
+    private final AnalysisProperties analysisProperties;
+    private final ParallelCsvAnalyzer parallelAnalyzer;
+    private final ContentHashCache contentHashCache;
+    private final HistoryCache historyCache;
+    private final AnalysisMetrics metrics;
+    private final AdmissionService admissionService;
+    private final StatisticsSettings statisticsSettings;
+    private final TransactionTemplate transactionTemplate;
     private final Path tempDir;
 
     public AnalysisServiceImpl(AnalysisRecordRepository repository,
-                               StorageProperties storageProperties) throws IOException {
+                               AccumulatorStateRepository stateRepository,
+                               StorageProperties storageProperties,
+                               AnalysisProperties analysisProperties,
+                               ParallelCsvAnalyzer parallelAnalyzer,
+                               ContentHashCache contentHashCache,
+                               HistoryCache historyCache,
+                               AnalysisMetrics metrics,
+                               AdmissionService admissionService,
+                               PlatformTransactionManager transactionManager) throws IOException {
         this.repository = repository;
+        this.stateRepository = stateRepository;
+        this.storageProperties = storageProperties;
+        this.analysisProperties = analysisProperties;
+        this.parallelAnalyzer = parallelAnalyzer;
+        this.contentHashCache = contentHashCache;
+        this.historyCache = historyCache;
+        this.metrics = metrics;
+        this.admissionService = admissionService;
+        this.statisticsSettings = analysisProperties.toStatisticsSettings();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.tempDir = Paths.get(storageProperties.getTmpDir());
         if (!Files.exists(tempDir)) {
             Files.createDirectories(tempDir);
         }
     }
 
+    // Каждый разбор занимает место в бюджете допуска; оценка растет до распакованного объема по ходу чтения
     @Override
-    public AnalysisRecord analyze(MultipartFile file) {
-        String tempFileName = "tmp_" + UUID.randomUUID() + ".csv";
-        Path tempFilePath = tempDir.resolve(tempFileName);
+    public AnalysisRecord analyze(MultipartFile file, List<String> columns) throws IOException {
+        try (AdmissionService.Permit permit = admissionService.acquire(file.getSize())) {
+            // Хеш считается в том же проходе, что и разбор; сохранять загрузку заранее нужно только
+            // для параллельного разбора или хеша до разбора
+            if (hashFirst() || parallelAnalyzer.accepts(file.getSize())) {
+                return analyzeStoredFile(file.getOriginalFilename(), storeUpload(file), columns, null, true, permit);
+            }
+            try (InputStream content = file.getInputStream()) {
+                return analyzeStream(file.getOriginalFilename(), content, null, columns, null, true, permit);
+            }
+        }
+    }
 
+    @Override
+    public AnalysisRecord analyze(String fileName, InputStream content, long estimatedBytes, List<String> columns) {
+        try (AdmissionService.Permit permit = admissionService.acquire(estimatedBytes)) {
+            return analyzeStream(fileName, content, null, columns, null, true, permit);
+        }
+    }
+
+    /**
+     * Разбор прямо по потоку: копия загрузки (в исходном, возможно сжатом виде) и хеш распакованного
+     * содержимого пишутся в том же проходе.
+     *
+     * @param storedFile файл, из которого читается поток, если загрузка уже лежит на диске
+     * @param progress   куда сообщать о ходе разбора, может быть {@code null}
+     * @param persist    сохранить запись; иначе она возвращается без id и сохраняется позже через {@link #saveAll}
+     * @param permit     место в бюджете допуска, растет вместе с распакованным объемом
+     */
+    private AnalysisRecord analyzeStream(String fileName, InputStream content, Path storedFile, List<String> columns,
+                                         ScanProgress progress, boolean persist, AdmissionService.Permit permit) {
+        String selectedColumns = selectedColumns(columns);
+        StatisticsAccumulator accumulator = newAccumulator();
+        MessageDigest digest = analysisProperties.getDedup().isEnabled() ? ContentHash.newDigest() : null;
+        long maxInflatedBytes = analysisProperties.getDecompression().getMaxSize().toBytes();
+
+        metrics.analysisStarted();
+        AnalysisOutcome outcome = AnalysisOutcome.FAILURE;
+        Path tempFilePath = storedFile;
+        Path columnarPath = null;
         try {
-            Files.copy(file.getInputStream(), tempFilePath, StandardCopyOption.REPLACE_EXISTING);
+            long startTime = System.currentTimeMillis();
+            long fileSizeBytes;
+
+            try {
+                PushbackInputStream in = new PushbackInputStream(content, Compression.MAGIC_LENGTH);
+                Compression compression = Compression.detect(in);
+                if (storedFile == null && storageProperties.isRetainUploads()) {
+                    tempFilePath = newTempFilePath(compression);
+                }
+                Path copyPath = storedFile == null ? tempFilePath : null;
+                columnarPath = storageProperties.isRetainUploads() ? columnarPathFor(tempFilePath) : null;
+                Path columnarTarget = columnarPath;
+
+                fileSizeBytes = metrics.time(AnalysisPhase.PARSE, () -> {
+                    try (OutputStream retained = copyPath != null
+                            ? new BufferedOutputStream(Files.newOutputStream(copyPath))
+                            : null;
+                         TeeInputStream raw = new TeeInputStream(in, retained);
+                         TeeInputStream csv = new TeeInputStream(new ReservingInputStream(
+                                 compression.decompress(raw, maxInflatedBytes), permit), null, digest);
+                         ColumnarWriter columnar = newColumnarWriter(columnarTarget)) {
+                        CsvValueScanner scanner = new CsvValueScanner(accumulator, columns);
+                        if (progress != null) {
+                            scanner.setProgress(progress);
+                        }
+                        scanner.setColumnarWriter(columnar);
+                        scanner.scan(csv);
+                        // Распаковщик останавливается на конце данных: центральный каталог zip и хвост
+                        // после gzip дочитываются, чтобы копия и размер соответствовали загрузке
+                        raw.transferTo(OutputStream.nullOutputStream());
+                        metrics.contentProcessed(csv.getBytesRead(), accumulator.getRecordsCount(),
+                                accumulator.getMissingCount());
+                        return raw.getBytesRead();
+                    }
+                });
+            } catch (IOException e) {
+                deleteQuietly(tempFilePath);
+                deleteQuietly(columnarPath);
+                throw new FileProcessingException("Failed to read CSV file");
+            } catch (UnknownColumnException e) {
+                deleteQuietly(tempFilePath);
+                deleteQuietly(columnarPath);
+                throw new InvalidRequestException(e.getMessage());
+            } catch (RuntimeException e) {
+                deleteQuietly(tempFilePath);
+                deleteQuietly(columnarPath);
+                throw e;
+            }
+
+            long processingTimeMs = System.currentTimeMillis() - startTime;
+
+            // Поток нельзя прочитать дважды, поэтому повтор здесь распознается только после разбора
+            String contentHash = digest != null ? ContentHash.toHex(digest) : null;
+            Optional<AnalysisRecord> existing = findByContentHash(contentHash, selectedColumns);
+            if (existing.isPresent()) {
+                log.info("Файл {} уже анализировался, используется запись {}", fileName, existing.get().getId());
+                deleteQuietly(tempFilePath);
+                deleteQuietly(columnarPath);
+                outcome = AnalysisOutcome.DUPLICATE;
+                return existing.get();
+            }
+
+            if (storedFile != null && !storageProperties.isRetainUploads()) {
+                deleteQuietly(storedFile);
+                tempFilePath = null;
+            }
+
+            AnalysisRecord saved = saveRecord(fileName, fileSizeBytes, processingTimeMs, accumulator, tempFilePath,
+                    columnarPath, contentHash, selectedColumns, persist);
+            outcome = AnalysisOutcome.SUCCESS;
+            return saved;
+        } finally {
+            metrics.analysisFinished(outcome);
+        }
+    }
+
+    @Override
+    public Path storeUpload(MultipartFile file) {
+        Path tempFilePath = newTempFilePath();
+        try {
+            // Для загрузки, уже сброшенной на диск, контейнер просто переносит файл
+            return metrics.time(AnalysisPhase.UPLOAD_COPY, () -> {
+                file.transferTo(tempFilePath.toAbsolutePath().toFile());
+                return tempFilePath;
+            });
         } catch (IOException e) {
+            deleteQuietly(tempFilePath);
             throw new FileProcessingException("Failed to save temp file");
         }
+    }
 
-        long[] recordsCount = {0};
-        long[] missingCount = {0};
-        double[] minValue = {Double.MAX_VALUE};
-        double[] maxValue = {Double.MIN_VALUE};
-        double[] mean = {0.0};
-        double[] m2 = {0.0};
-        HashSet<Double> uniqueValues = new HashSet<>();
-
-        long startTime = System.currentTimeMillis();
-
-        try (BufferedReader reader = Files.newBufferedReader(tempFilePath)) {
-            reader.lines()
-                    .skip(1)
-                    .map(line -> line.split(","))
-                    .forEach(parts -> {
-                        if (parts.length != 2) {
-                            missingCount[0]++;
-                            return;
-                        }
+    @Override
+    public AnalysisRecord analyzeStoredFile(String fileName, Path tempFilePath, List<String> columns,
+                                            ScanProgress progress) {
+        try (AdmissionService.Permit permit = admit(tempFilePath)) {
+            return analyzeStoredFile(fileName, tempFilePath, columns, progress, true, permit);
+        }
+    }
 
-                        double value;
-                        try {
-                            value = Double.parseDouble(parts[1].trim());
-                        } catch (NumberFormatException ex) {
-                            missingCount[0]++;
-                            return;
-                        }
+    @Override
+    public AnalysisRecord analyzeWithoutSaving(String fileName, Path tempFilePath, List<String> columns) {
+        try (AdmissionService.Permit permit = admit(tempFilePath)) {
+            return analyzeStoredFile(fileName, tempFilePath, columns, null, false, permit);
+        }
+    }
 
-                        recordsCount[0]++;
-                        minValue[0] = Math.min(minValue[0], value);
-                        maxValue[0] = Math.max(maxValue[0], value);
-                        uniqueValues.add(value);
+    // Файл уже на диске: при отказе в допуске он удаляется, как и при ошибке разбора
+    private AdmissionService.Permit admit(Path tempFilePath) {
+        try {
+            return admissionService.acquire(Files.size(tempFilePath));
+        } catch (IOException e) {
+            deleteQuietly(tempFilePath);
+            throw new FileProcessingException("Failed to read CSV file");
+        } catch (RuntimeException e) {
+            deleteQuietly(tempFilePath);
+            throw e;
+        }
+    }
 
-                        // Welford алгоритм
-                        double delta = value - mean[0];
-                        mean[0] += delta / recordsCount[0];
-                        m2[0] += delta * (value - mean[0]);
-                    });
+    // Большой файл разбирается по частям в несколько потоков, небольшой — одним проходом
+    private AnalysisRecord analyzeStoredFile(String fileName, Path tempFilePath, List<String> columns,
+                                             ScanProgress progress, boolean persist, AdmissionService.Permit permit) {
+        // Сжатый файл распаковывается потоком прямо в разбор, распакованная копия на диск не пишется
+        try {
+            if (Compression.detect(tempFilePath) != Compression.NONE) {
+                try (InputStream content = Files.newInputStream(tempFilePath)) {
+                    return analyzeStream(fileName, content, tempFilePath, columns, progress, persist, permit);
+                }
+            }
         } catch (IOException e) {
+            deleteQuietly(tempFilePath);
             throw new FileProcessingException("Failed to read CSV file");
         }
 
-        long endTime = System.currentTimeMillis();
-        long processingTimeMs = endTime - startTime;
+        String selectedColumns = selectedColumns(columns);
+        Path columnarPath = storageProperties.isRetainUploads() ? columnarPathFor(tempFilePath) : null;
+
+        metrics.analysisStarted();
+        AnalysisOutcome outcome = AnalysisOutcome.FAILURE;
+        try {
+            StatisticsAccumulator accumulator;
+            String contentHash = null;
+            long fileSizeBytes;
+            long startTime = System.currentTimeMillis();
+
+            MessageDigest digest = null;
+            try {
+                if (hashFirst()) {
+                    contentHash = metrics.time(AnalysisPhase.HASH, () -> ContentHash.of(tempFilePath));
+                    Optional<AnalysisRecord> existing = findByContentHash(contentHash, selectedColumns);
+                    if (existing.isPresent()) {
+                        log.info("Файл {} уже анализировался, используется запись {}", fileName, existing.get().getId());
+                        deleteQuietly(tempFilePath);
+                        outcome = AnalysisOutcome.DUPLICATE;
+                        return existing.get();
+                    }
+                } else if (analysisProperties.getDedup().isEnabled()) {
+                    digest = ContentHash.newDigest();
+                }
+
+                fileSizeBytes = Files.size(tempFilePath);
+                if (progress != null) {
+                    progress.setTotalBytes(fileSizeBytes);
+                }
+                MessageDigest scanDigest = digest;
+                accumulator = metrics.time(AnalysisPhase.PARSE,
+                        () -> scanStoredFile(tempFilePath, columns, progress, columnarPath, scanDigest));
+            } catch (IOException e) {
+                deleteQuietly(tempFilePath);
+                deleteQuietly(columnarPath);
+                throw new FileProcessingException("Failed to read CSV file");
+            } catch (UnknownColumnException e) {
+                deleteQuietly(tempFilePath);
+                deleteQuietly(columnarPath);
+                throw new InvalidRequestException(e.getMessage());
+            }
+
+            long processingTimeMs = System.currentTimeMillis() - startTime;
+            metrics.contentProcessed(fileSizeBytes, accumulator.getRecordsCount(), accumulator.getMissingCount());
+
+            if (digest != null) {
+                contentHash = ContentHash.toHex(digest);
+                Optional<AnalysisRecord> existing = findByContentHash(contentHash, selectedColumns);
+                if (existing.isPresent()) {
+                    log.info("Файл {} уже анализировался, используется запись {}", fileName, existing.get().getId());
+                    deleteQuietly(tempFilePath);
+                    deleteQuietly(columnarPath);
+                    outcome = AnalysisOutcome.DUPLICATE;
+                    return existing.get();
+                }
+            }
+
+            Path retainedPath = tempFilePath;
+            if (!storageProperties.isRetainUploads()) {
+                deleteQuietly(tempFilePath);
+                retainedPath = null;
+            }
+
+            AnalysisRecord saved = saveRecord(fileName, fileSizeBytes, processingTimeMs, accumulator, retainedPath,
+                    columnarPath, contentHash, selectedColumns, persist);
+            outcome = AnalysisOutcome.SUCCESS;
+            return saved;
+        } finally {
+            metrics.analysisFinished(outcome);
+        }
+    }
+
+    // Содержимое уже разобрано по частям (сессия загрузки): остаются проверка повтора и сохранение
+    @Override
+    public AnalysisRecord saveScanned(String fileName, long fileSizeBytes, long processingTimeMs,
+                                      StatisticsAccumulator accumulator, Path retainedFile, Path columnarFile,
+                                      String contentHash, List<String> columns) {
+        String selectedColumns = selectedColumns(columns);
+
+        metrics.analysisStarted();
+        AnalysisOutcome outcome = AnalysisOutcome.FAILURE;
+        try {
+            metrics.contentProcessed(fileSizeBytes, accumulator.getRecordsCount(), accumulator.getMissingCount());
+
+            Optional<AnalysisRecord> existing = findByContentHash(contentHash, selectedColumns);
+            if (existing.isPresent()) {
+                log.info("Файл {} уже анализировался, используется запись {}", fileName, existing.get().getId());
+                deleteQuietly(retainedFile);
+                deleteQuietly(columnarFile);
+                outcome = AnalysisOutcome.DUPLICATE;
+                return existing.get();
+            }
 
-        double stdDev = recordsCount[0] > 1 ? Math.sqrt(m2[0] / (recordsCount[0] - 1)) : 0.0;
+            AnalysisRecord saved = saveRecord(fileName, fileSizeBytes, processingTimeMs, accumulator, retainedFile,
+                    columnarFile, contentHash, selectedColumns, true);
+            outcome = AnalysisOutcome.SUCCESS;
+            return saved;
+        } finally {
+            metrics.analysisFinished(outcome);
+        }
+    }
 
+    private StatisticsAccumulator scanStoredFile(Path file, List<String> columns, ScanProgress progress,
+                                                 Path columnarPath, MessageDigest digest) throws IOException {
+        if (parallelAnalyzer.accepts(Files.size(file))) {
+            return parallelAnalyzer.analyze(file, columns, this::newAccumulator, progress, columnarPath,
+                    analysisProperties.getColumnar().getBlockRows(), digest);
+        }
+        StatisticsAccumulator accumulator = newAccumulator();
+        try (InputStream content = new TeeInputStream(Files.newInputStream(file), null, digest);
+             ColumnarWriter columnar = newColumnarWriter(columnarPath)) {
+            CsvValueScanner scanner = new CsvValueScanner(accumulator, columns);
+            if (progress != null) {
+                scanner.setProgress(progress);
+            }
+            scanner.setColumnarWriter(columnar);
+            scanner.scan(content);
+        }
+        return accumulator;
+    }
+
+    private boolean hashFirst() {
+        return analysisProperties.getDedup().isEnabled() && analysisProperties.getDedup().isHashFirst();
+    }
+
+    // Колоночная копия кладется рядом с сохраненной загрузкой и живет столько же
+    private Path columnarPathFor(Path retained) {
+        if (retained == null || !analysisProperties.getColumnar().isEnabled()) {
+            return null;
+        }
+        return retained.resolveSibling(retained.getFileName() + COLUMNAR_FILE_SUFFIX);
+    }
+
+    private ColumnarWriter newColumnarWriter(Path columnarPath) throws IOException {
+        return columnarPath != null
+                ? new ColumnarWriter(columnarPath, analysisProperties.getColumnar().getBlockRows())
+                : null;
+    }
+
+    // Состояние аккумулятора хранится в своей таблице и сохраняется в одной транзакции с записью
+    private void saveState(AnalysisRecord record) {
+        if (record.getAccumulatorState() == null) {
+            return;
+        }
+        AccumulatorState state = new AccumulatorState();
+        state.setRecordId(record.getId());
+        state.setState(record.getAccumulatorState());
+        stateRepository.save(state);
+    }
+
+    // Одинаковое содержимое с разным набором колонок дает разные записи
+    private Optional<AnalysisRecord> findByContentHash(String contentHash, String selectedColumns) {
+        if (contentHash == null) {
+            return Optional.empty();
+        }
+
+        String cacheKey = cacheKey(contentHash, selectedColumns);
+        Optional<AnalysisRecord> cached = contentHashCache.get(cacheKey).flatMap(repository::findById);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        // Запись могла быть удалена политикой хранения, либо кэш пуст после перезапуска
+        contentHashCache.evict(cacheKey);
+        Optional<AnalysisRecord> stored = repository
+                .findFirstByContentHashAndSelectedColumnsOrderByIdDesc(contentHash, selectedColumns);
+        stored.ifPresent(r -> contentHashCache.put(cacheKey, r.getId()));
+        return stored;
+    }
+
+    private AnalysisRecord saveRecord(String fileName, long fileSizeBytes, long processingTimeMs,
+                                      StatisticsAccumulator accumulator, Path tempFilePath, Path columnarPath,
+                                      String contentHash, String selectedColumns, boolean persist) {
         AnalysisRecord record = new AnalysisRecord();
-        record.setFileName(file.getOriginalFilename());
-        record.setFileSizeBytes(file.getSize());
+        record.setFileName(fileName);
+        record.setFileSizeBytes(fileSizeBytes);
         record.setProcessingTimeMs(processingTimeMs);
-        record.setMinValue(recordsCount[0] > 0 ? minValue[0] : 0.0);
-        record.setMaxValue(recordsCount[0] > 0 ? maxValue[0] : 0.0);
-        record.setMean(recordsCount[0] > 0 ? mean[0] : 0.0);
-        record.setStdDev(recordsCount[0] > 0 ? stdDev : 0.0);
-        record.setRecordsCount(recordsCount[0]);
-        record.setMissingCount(missingCount[0]);
-        record.setUniqueCount((long) uniqueValues.size());
-        record.setTempFilePath(tempFilePath.toString());
+        record.setCreatedAt(Instant.now());
+        accumulator.applyTo(record);
+        if (analysisProperties.getAppend().isEnabled()) {
+            record.setAccumulatorState(accumulator.stateToBytes());
+        }
+        record.setTempFilePath(tempFilePath != null ? tempFilePath.toString() : null);
+        record.setColumnarFilePath(columnarPath != null ? columnarPath.toString() : null);
+        record.setColumnarFileSizeBytes(columnarPath != null ? columnarPath.toFile().length() : null);
+        record.setContentHash(contentHash);
+        record.setSelectedColumns(selectedColumns);
+        if (!persist) {
+            return record;
+        }
 
-        AnalysisRecord saved = repository.save(record);
+        AnalysisRecord saved = metrics.time(AnalysisPhase.PERSIST, () -> transactionTemplate.execute(status -> {
+            AnalysisRecord persisted = repository.save(record);
+            saveState(persisted);
+            return persisted;
+        }));
+        if (contentHash != null) {
+            contentHashCache.put(cacheKey(contentHash, selectedColumns), saved.getId());
+        }
+        historyCache.recordAdded();
 
-        maintainLast10();
+        return saved;
+    }
 
+    // Записи пакета сохраняются одним saveAll в одной транзакции, кэш истории сбрасывается один раз
+    @Override
+    @Transactional
+    public List<AnalysisRecord> saveAll(List<AnalysisRecord> records) {
+        if (records.isEmpty()) {
+            return records;
+        }
+        List<AnalysisRecord> saved = metrics.time(AnalysisPhase.PERSIST, () -> {
+            List<AnalysisRecord> persisted = repository.saveAll(records);
+            persisted.forEach(this::saveState);
+            return persisted;
+        });
+        afterCommit(() -> {
+            for (AnalysisRecord record : saved) {
+                if (record.getContentHash() != null) {
+                    contentHashCache.put(cacheKey(record.getContentHash(), record.getSelectedColumns()),
+                            record.getId());
+                }
+            }
+            historyCache.recordAdded();
+        });
         return saved;
     }
 
+    /**
+     * Разбираются только новые строки: состояние аккумулятора восстанавливается из записи. Тело запроса
+     * читается и разбирается вне транзакции, строки складываются во временный файл; затем короткая
+     * транзакция блокирует запись и, если ее успели изменить, разбирает этот файл заново от нового
+     * состояния, после чего дописывает строки в копию загрузки и сохраняет запись.
+     */
     @Override
-    public Page<AnalysisRecord> getHistory(Pageable pageable) {
-        return repository.findAll(pageable);
+    public AnalysisRecord append(Long id, InputStream content) {
+        AppendBaseView snapshot = repository.findAppendBaseById(id)
+                .orElseThrow(() -> new RecordNotFoundException(id));
+        if (snapshot.getAccumulatorState() == null) {
+            throw new RecordNotAppendableException(id);
+        }
+
+        metrics.analysisStarted();
+        AnalysisOutcome outcome = AnalysisOutcome.FAILURE;
+        Path rows = newTempFilePath();
+        try (AdmissionService.Permit permit = admissionService.acquire(0)) {
+            long startTime = System.currentTimeMillis();
+            StatisticsAccumulator parsed;
+            long appendedBytes;
+            try {
+                parsed = StatisticsAccumulator.restore(statisticsSettings, snapshot.getAccumulatorState(),
+                        snapshot.getHistogram(), snapshot.getRollup());
+                CsvSchema schema = parsed.getSchema();
+                appendedBytes = metrics.time(AnalysisPhase.PARSE, () -> {
+                    BufferedInputStream in = new BufferedInputStream(new ReservingInputStream(content, permit));
+                    if (schema != null && schema.hasHeader()) {
+                        CsvSchema.skipHeader(in);
+                    }
+                    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(rows));
+                         TeeInputStream tee = new TeeInputStream(in, out)) {
+                        newAppendScanner(parsed, snapshot.getSelectedColumns()).scan(tee);
+                        return tee.getBytesRead();
+                    }
+                });
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to read CSV file");
+            } catch (UnknownColumnException e) {
+                throw new InvalidRequestException(e.getMessage());
+            }
+
+            AnalysisRecord saved = transactionTemplate.execute(status -> {
+                AnalysisRecord record = repository.findByIdForUpdate(id)
+                        .orElseThrow(() -> new RecordNotFoundException(id));
+                StatisticsAccumulator accumulator = parsed;
+                if (!sameContent(record, snapshot)) {
+                    // Запись изменили, пока читалось тело: строки разбираются заново уже из файла на диске
+                    log.info("Запись {} изменилась во время добавления, строки применяются к новому состоянию", id);
+                    accumulator = reparse(record, rows);
+                }
+                return applyAppend(record, accumulator, rows, appendedBytes, startTime);
+            });
+            metrics.contentProcessed(appendedBytes, parsed.getRecordsCount() - snapshot.getRecordsCount(),
+                    parsed.getMissingCount() - snapshot.getMissingCount());
+            log.info("К записи {} добавлено {} байт", id, appendedBytes);
+            outcome = AnalysisOutcome.SUCCESS;
+            return saved;
+        } finally {
+            deleteQuietly(rows);
+            metrics.analysisFinished(outcome);
+        }
+    }
+
+    private AnalysisRecord applyAppend(AnalysisRecord record, StatisticsAccumulator accumulator, Path rows,
+                                       long appendedBytes, long startTime) {
+        Long id = record.getId();
+        Path retained = retainedCopy(record);
+        if (retained != null) {
+            long retainedSize = retained.toFile().length();
+            // Копия загрузки дописывается под блокировкой записи и обрезается обратно, если транзакция откатится
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        truncateQuietly(retained, retainedSize);
+                    }
+                }
+            });
+            try (OutputStream out = new BufferedOutputStream(
+                    Files.newOutputStream(retained, StandardOpenOption.APPEND))) {
+                if (retainedSize > 0 && !endsWithNewline(retained)) {
+                    out.write('\n');
+                }
+                Files.copy(rows, out);
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to save appended rows");
+            }
+        }
+
+        // Содержимое изменилось: прежний хеш больше не описывает запись
+        String cacheKey = record.getContentHash() != null
+                ? cacheKey(record.getContentHash(), record.getSelectedColumns())
+                : null;
+        record.setContentHash(null);
+
+        // Колоночная копия не дописывается: после добавления она бы не совпадала с записью
+        String columnarFilePath = record.getColumnarFilePath();
+        record.setColumnarFilePath(null);
+        record.setColumnarFileSizeBytes(null);
+
+        accumulator.applyTo(record);
+        record.setAccumulatorState(accumulator.stateToBytes());
+        record.setFileSizeBytes(record.getFileSizeBytes() + appendedBytes);
+        record.setProcessingTimeMs(record.getProcessingTimeMs() + System.currentTimeMillis() - startTime);
+
+        AnalysisRecord saved = metrics.time(AnalysisPhase.PERSIST, () -> {
+            AnalysisRecord persisted = repository.save(record);
+            saveState(persisted);
+            return persisted;
+        });
+        afterCommit(() -> {
+            if (cacheKey != null) {
+                contentHashCache.evict(cacheKey);
+            }
+            historyCache.recordChanged(id);
+            if (columnarFilePath != null) {
+                deleteQuietly(Paths.get(columnarFilePath));
+            }
+        });
+        return saved;
+    }
+
+    // Любое добавление увеличивает размер файла, поэтому совпадение размера и счетчиков означает то же состояние
+    private static boolean sameContent(AnalysisRecord record, AppendBaseView snapshot) {
+        return Objects.equals(record.getFileSizeBytes(), snapshot.getFileSizeBytes())
+                && Objects.equals(record.getRecordsCount(), snapshot.getRecordsCount())
+                && Objects.equals(record.getMissingCount(), snapshot.getMissingCount());
+    }
+
+    private StatisticsAccumulator reparse(AnalysisRecord record, Path rows) {
+        record.setAccumulatorState(stateRepository.findById(record.getId())
+                .map(AccumulatorState::getState)
+                .orElse(null));
+        if (record.getAccumulatorState() == null) {
+            throw new RecordNotAppendableException(record.getId());
+        }
+        StatisticsAccumulator accumulator = StatisticsAccumulator.restore(statisticsSettings,
+                record.getAccumulatorState(), record.getHistogram(), record.getRollup());
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(rows))) {
+            metrics.time(AnalysisPhase.PARSE, () -> {
+                newAppendScanner(accumulator, record.getSelectedColumns()).scan(in);
+                return null;
+            });
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read CSV file");
+        } catch (UnknownColumnException e) {
+            throw new InvalidRequestException(e.getMessage());
+        }
+        return accumulator;
+    }
+
+    private static CsvValueScanner newAppendScanner(StatisticsAccumulator accumulator, String selectedColumns) {
+        CsvSchema schema = accumulator.getSchema();
+        return schema != null
+                ? new CsvValueScanner(accumulator, schema)
+                : new CsvValueScanner(accumulator, columnList(selectedColumns));
+    }
+
+    /**
+     * Несжатая копия загрузки дописывается новыми строками; сжатую дописать нельзя, она удаляется
+     * после коммита, чтобы не расходиться с записью.
+     */
+    private Path retainedCopy(AnalysisRecord record) {
+        if (record.getTempFilePath() == null) {
+            return null;
+        }
+        Path path = Paths.get(record.getTempFilePath());
+        try {
+            if (Files.exists(path) && Compression.detect(path) == Compression.NONE) {
+                return path;
+            }
+        } catch (IOException e) {
+            log.error("Не удалось прочитать файл: {}", path, e);
+        }
+        record.setTempFilePath(null);
+        afterCommit(() -> deleteQuietly(path));
+        return null;
+    }
+
+    private static boolean endsWithNewline(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            return last.get(0) == '\n' || last.get(0) == '\r';
+        }
+    }
+
+    // Неудачное добавление не должно оставить в копии загрузки строки, которых нет в статистике
+    private void truncateQuietly(Path retained, long size) {
+        if (retained == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(retained, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        } catch (IOException e) {
+            log.error("Не удалось восстановить файл: {}", retained, e);
+        }
+    }
+
+    // Файлы не читаются: сводки объединяются по сохраненным моментам и скетчам
+    @Override
+    @Transactional(readOnly = true)
+    public SummaryMerger merge(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new InvalidRequestException("At least one analysis record id is required");
+        }
+
+        Map<Long, AnalysisRecord> records = new HashMap<>();
+        repository.findAllById(ids).forEach(r -> records.put(r.getId(), r));
+        stateRepository.findAllById(records.keySet())
+                .forEach(state -> records.get(state.getRecordId()).setAccumulatorState(state.getState()));
+
+        SummaryMerger merger = new SummaryMerger(statisticsSettings);
+        for (Long id : new LinkedHashSet<>(ids)) {
+            AnalysisRecord record = records.get(id);
+            if (record == null) {
+                throw new RecordNotFoundException(id);
+            }
+            merger.add(record);
+        }
+        return merger;
+    }
+
+    // Читается только колоночная копия, блоки вне диапазона пропускаются по заголовкам
+    @Override
+    public RangeStatistics rangeStatistics(Long id, ColumnarFilter filter) {
+        if (filter.from() != null && filter.to() != null && filter.from() >= filter.to()) {
+            throw new InvalidRequestException("from must be before to");
+        }
+        if (filter.minValue() != null && filter.maxValue() != null && filter.minValue() > filter.maxValue()) {
+            throw new InvalidRequestException("minValue must not be greater than maxValue");
+        }
+
+        AnalysisRecord record = repository.findById(id)
+                .orElseThrow(() -> new RecordNotFoundException(id));
+        if (record.getColumnarFilePath() == null) {
+            throw new RecordNotQueryableException(id);
+        }
+
+        Path path = Paths.get(record.getColumnarFilePath());
+        try (ColumnarFile columnar = ColumnarFile.open(path)) {
+            return RangeStatistics.of(columnar, filter);
+        } catch (NoSuchFileException e) {
+            throw new RecordNotQueryableException(id);
+        } catch (IOException e) {
+            log.error("Не удалось прочитать файл: {}", path, e);
+            throw new FileProcessingException("Failed to read columnar file");
+        }
     }
 
     @Override
@@ -149,33 +791,65 @@ public class AnalysisServiceImpl implements AnalysisService {
             }
         }
 
+        if (record.getColumnarFilePath() != null) {
+            deleteQuietly(Paths.get(record.getColumnarFilePath()));
+        }
+
+        stateRepository.deleteById(id);
         repository.deleteById(id);
+        afterCommit(() -> historyCache.recordChanged(id));
         log.info("Удалена запись анализа с id: {}", id);
     }
 
-    @Transactional
-    protected void maintainLast10() {
-        long count = repository.count();
-        if (count <= 10) {
+    // Кэш истории сбрасывается после коммита: чтение до него закэшировало бы прежнее состояние
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
             return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
-        long recordsToDelete = count - 10;
-        Pageable pageable = PageRequest.of(0, (int) recordsToDelete, Sort.by(Sort.Direction.ASC, "id"));
-        List<AnalysisRecord> toDelete = repository.findAllByOrderByIdAsc(pageable);
+    private static String selectedColumns(List<String> columns) {
+        if (columns == null || columns.isEmpty()) {
+            return null;
+        }
+        return String.join(",", columns.stream().map(String::trim).toList());
+    }
 
-        log.info("Удаление {} старых записей для поддержания лимита в 10", toDelete.size());
+    private static List<String> columnList(String selectedColumns) {
+        return selectedColumns == null ? null : List.of(selectedColumns.split(","));
+    }
 
-        for (AnalysisRecord r : toDelete) {
-            if (r.getTempFilePath() != null) {
-                try {
-                    Files.deleteIfExists(Paths.get(r.getTempFilePath()));
-                    log.debug("Удален временный файл: {}", r.getTempFilePath());
-                } catch (IOException e) {
-                    log.error("Не удалось удалить файл: {}", r.getTempFilePath(), e);
-                }
-            }
-            repository.delete(r);
+    private static String cacheKey(String contentHash, String selectedColumns) {
+        return selectedColumns == null ? contentHash : contentHash + "|" + selectedColumns;
+    }
+
+    private StatisticsAccumulator newAccumulator() {
+        return new StatisticsAccumulator(statisticsSettings);
+    }
+
+    private Path newTempFilePath() {
+        return newTempFilePath(Compression.NONE);
+    }
+
+    private Path newTempFilePath(Compression compression) {
+        return tempDir.resolve("tmp_" + UUID.randomUUID() + compression.getFileSuffix());
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error("Не удалось удалить файл: {}", path, e);
         }
     }
 }
\ No newline at end of file
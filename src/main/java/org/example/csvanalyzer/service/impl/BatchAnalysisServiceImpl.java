@@ -0,0 +1,297 @@
+package org.example.csvanalyzer.service.impl;
+
+import org.example.csvanalyzer.analysis.BoundedInputStream;
+import org.example.csvanalyzer.analysis.SummaryMerger;
+import org.example.csvanalyzer.config.AnalysisProperties;
+import org.example.csvanalyzer.config.StorageProperties;
+import org.example.csvanalyzer.dto.BatchAnalysisDto;
+import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.exception.FileProcessingException;
+import org.example.csvanalyzer.exception.FileTypeNotSupportedException;
+import org.example.csvanalyzer.exception.InvalidRequestException;
+import org.example.csvanalyzer.exception.JobQueueFullException;
+import org.example.csvanalyzer.mapper.AnalysisRecordMapper;
+import org.example.csvanalyzer.service.AnalysisService;
+import org.example.csvanalyzer.service.BatchAnalysisService;
+import org.example.csvanalyzer.service.CsvUploads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Analyzes the files of a batch in parallel on a bounded pool and saves all new records with one
+ * {@link AnalysisService#saveAll} call, i.e. in one transaction.
+ * <p>
+ * A file that is rejected or cannot be analyzed is reported in its item and does not fail the others.
+ * Content that was analyzed before, or that occurs twice in the batch, is saved once. Each file takes
+ * its own admission permit while it is analyzed, so at most {@code admission.max-concurrent} files of
+ * all requests are parsed at once.
+ */
+@Service
+public class BatchAnalysisServiceImpl implements BatchAnalysisService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchAnalysisServiceImpl.class);
+
+    private final AnalysisService analysisService;
+    private final AnalysisRecordMapper mapper;
+    private final AnalysisProperties analysisProperties;
+    private final ExecutorService executor;
+    private final Path tempDir;
+
+    public BatchAnalysisServiceImpl(AnalysisService analysisService,
+                                    AnalysisRecordMapper mapper,
+                                    AnalysisProperties analysisProperties,
+                                    StorageProperties storageProperties,
+                                    @Qualifier("batchAnalysisExecutor") ExecutorService executor) {
+        this.analysisService = analysisService;
+        this.mapper = mapper;
+        this.analysisProperties = analysisProperties;
+        this.executor = executor;
+        this.tempDir = Paths.get(storageProperties.getTmpDir());
+    }
+
+    @Override
+    public BatchAnalysisDto analyze(List<MultipartFile> files, List<String> columns) {
+        checkFileCount(files.size());
+
+        List<Item> items = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                Item item = new Item(file.getOriginalFilename());
+                items.add(item);
+                try {
+                    CsvUploads.validate(file);
+                } catch (FileTypeNotSupportedException e) {
+                    item.error = e.getMessage();
+                    continue;
+                }
+                item.upload = analysisService.storeUpload(file);
+                submit(item, columns);
+            }
+        } catch (RuntimeException e) {
+            cancel(items);
+            throw e;
+        }
+        return finish(items);
+    }
+
+    // Архив читается последовательно; файл отдается в разбор, как только он извлечен
+    @Override
+    public BatchAnalysisDto analyzeArchive(MultipartFile archive, List<String> columns) {
+        long maxInflatedBytes = analysisProperties.getDecompression().getMaxSize().toBytes();
+        long inflatedBytes = 0;
+        List<Item> items = new ArrayList<>();
+
+        try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                checkFileCount(items.size() + 1);
+
+                Item item = new Item(entry.getName());
+                items.add(item);
+                Path extracted = tempDir.resolve("tmp_" + UUID.randomUUID() + ".csv");
+                try {
+                    // Лимит распаковки относится ко всему архиву; Files.copy не закрывает поток, архив читается дальше
+                    inflatedBytes += Files.copy(new BoundedInputStream(zip, maxInflatedBytes - inflatedBytes,
+                            "Decompressed archive exceeds the maximum allowed size (" + maxInflatedBytes + " bytes)"),
+                            extracted);
+                } catch (IOException | RuntimeException e) {
+                    deleteQuietly(extracted);
+                    throw e;
+                }
+                item.upload = extracted;
+                submit(item, columns);
+            }
+        } catch (IOException e) {
+            cancel(items);
+            throw new FileProcessingException("Failed to read zip archive");
+        } catch (RuntimeException e) {
+            cancel(items);
+            throw e;
+        }
+
+        if (items.isEmpty()) {
+            throw new FileTypeNotSupportedException("Zip archive does not contain a file");
+        }
+        return finish(items);
+    }
+
+    // Очередь пула ограничена: пакет, не поместившийся в нее, отклоняется целиком
+    private void submit(Item item, List<String> columns) {
+        try {
+            item.future = executor.submit(
+                    () -> analysisService.analyzeWithoutSaving(item.fileName, item.upload, columns));
+        } catch (RejectedExecutionException e) {
+            throw new JobQueueFullException("Batch analysis queue is full, try again later");
+        }
+    }
+
+    private BatchAnalysisDto finish(List<Item> items) {
+        List<AnalysisRecord> pending = new ArrayList<>();
+        Map<String, AnalysisRecord> byContent = new HashMap<>();
+
+        for (Item item : items) {
+            if (item.future == null) {
+                continue;
+            }
+            try {
+                item.record = item.future.get();
+            } catch (ExecutionException e) {
+                item.error = e.getCause().getMessage();
+                log.warn("Файл {} пакета не проанализирован: {}", item.fileName, item.error);
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel(items);
+                throw new FileProcessingException("Batch analysis was interrupted");
+            }
+
+            if (item.record.getId() != null) {
+                item.duplicate = true;
+                continue;
+            }
+            // Одинаковое содержимое внутри пакета сохраняется один раз, как и повторная загрузка
+            String key = item.record.getContentHash() != null
+                    ? item.record.getContentHash() + "|" + item.record.getSelectedColumns()
+                    : null;
+            AnalysisRecord first = key != null ? byContent.putIfAbsent(key, item.record) : null;
+            if (first != null) {
+                discardFiles(item.record);
+                item.record = first;
+                item.duplicate = true;
+            } else {
+                pending.add(item.record);
+            }
+        }
+
+        try {
+            analysisService.saveAll(pending);
+        } catch (RuntimeException e) {
+            pending.forEach(this::discardFiles);
+            throw e;
+        }
+        log.info("Пакет из {} файлов: сохранено новых записей {}", items.size(), pending.size());
+        return toDto(items);
+    }
+
+    private BatchAnalysisDto toDto(List<Item> items) {
+        List<BatchAnalysisDto.Item> results = new ArrayList<>();
+        Map<AnalysisRecord, Boolean> merged = new IdentityHashMap<>();
+        List<Long> recordIds = new ArrayList<>();
+        List<Long> storedIds = new ArrayList<>();
+        List<AnalysisRecord> analyzed = new ArrayList<>();
+
+        for (Item item : items) {
+            if (item.record == null) {
+                results.add(new BatchAnalysisDto.Item(item.fileName, null, false, item.error));
+                continue;
+            }
+            results.add(new BatchAnalysisDto.Item(item.fileName, item.record.getId(), item.duplicate, null));
+            if (merged.put(item.record, Boolean.TRUE) == null) {
+                recordIds.add(item.record.getId());
+                // У найденной в базе записи состояние аккумулятора не загружено, его читает merge
+                if (item.record.getAccumulatorState() == null) {
+                    storedIds.add(item.record.getId());
+                } else {
+                    analyzed.add(item.record);
+                }
+            }
+        }
+
+        SummaryMerger merger = storedIds.isEmpty()
+                ? new SummaryMerger(analysisProperties.toStatisticsSettings())
+                : analysisService.merge(storedIds);
+        analyzed.forEach(merger::add);
+
+        int failed = (int) results.stream().filter(r -> r.error() != null).count();
+        return new BatchAnalysisDto(items.size(), items.size() - failed, failed, results,
+                recordIds.isEmpty() ? null : mapper.toMergeDto(recordIds, merger));
+    }
+
+    private void checkFileCount(int count) {
+        int maxFiles = analysisProperties.getBatch().getMaxFiles();
+        if (count > maxFiles) {
+            throw new InvalidRequestException("A batch may contain at most " + maxFiles + " files");
+        }
+    }
+
+    // Запрос отклонен целиком: разобранные файлы удаляются, еще не начатые задачи отменяются
+    private void cancel(List<Item> items) {
+        for (Item item : items) {
+            if (item.future == null) {
+                if (item.upload != null) {
+                    deleteQuietly(item.upload);
+                }
+                continue;
+            }
+            if (item.future.cancel(false)) {
+                deleteQuietly(item.upload);
+                continue;
+            }
+            try {
+                AnalysisRecord record = item.future.get();
+                if (record.getId() == null) {
+                    discardFiles(record);
+                }
+            } catch (ExecutionException e) {
+                // файлы уже удалены при ошибке разбора
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void discardFiles(AnalysisRecord record) {
+        if (record.getTempFilePath() != null) {
+            deleteQuietly(Paths.get(record.getTempFilePath()));
+        }
+        if (record.getColumnarFilePath() != null) {
+            deleteQuietly(Paths.get(record.getColumnarFilePath()));
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error("Не удалось удалить файл: {}", path, e);
+        }
+    }
+
+    private static final class Item {
+
+        private final String fileName;
+        private Path upload;
+        private Future<AnalysisRecord> future;
+        private AnalysisRecord record;
+        private boolean duplicate;
+        private String error;
+
+        Item(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.csvanalyzer.service.impl;
+
+import org.example.csvanalyzer.config.AnalysisProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded LRU map from content hash (plus the column selection, if any) to the id of the record
+ * analysed from that content.
+ * Entries may outlive their record; callers confirm the id still exists and evict otherwise.
+ */
+@Component
+public class ContentHashCache {
+
+    private final Map<String, Long> entries;
+
+    public ContentHashCache(AnalysisProperties analysisProperties) {
+        int maxSize = analysisProperties.getDedup().getCacheSize();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized Optional<Long> get(String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    public synchronized void put(String key, Long recordId) {
+        entries.put(key, recordId);
+    }
+
+    public synchronized void evict(String key) {
+        entries.remove(key);
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.csvanalyzer.service.impl;
+
+import org.example.csvanalyzer.config.AnalysisProperties;
+import org.example.csvanalyzer.dto.DetailDto;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Small LRU cache of history pages and record details served to polling clients.
+ * <p>
+ * Pages depend on every record, so any change drops all of them; details are dropped per record.
+ * A value loaded while an invalidation happened is returned but not cached, so a read that raced
+ * with a write cannot pin the old state.
+ */
+@Component
+public class HistoryCache {
+
+    private final int maxSize;
+    private final Map<String, Object> pages;
+    private final Map<Long, DetailDto> details;
+    private long generation;
+
+    public HistoryCache(AnalysisProperties analysisProperties) {
+        this.maxSize = analysisProperties.getHistory().getCacheSize();
+        this.pages = lruMap(maxSize);
+        this.details = lruMap(maxSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T page(String key, Supplier<T> loader) {
+        long loadedAt;
+        synchronized (this) {
+            Object cached = pages.get(key);
+            if (cached != null) {
+                return (T) cached;
+            }
+            loadedAt = generation;
+        }
+
+        T value = loader.get();
+        synchronized (this) {
+            if (loadedAt == generation && maxSize > 0) {
+                pages.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public DetailDto detail(Long id, Supplier<DetailDto> loader) {
+        long loadedAt;
+        synchronized (this) {
+            DetailDto cached = details.get(id);
+            if (cached != null) {
+                return cached;
+            }
+            loadedAt = generation;
+        }
+
+        DetailDto value = loader.get();
+        synchronized (this) {
+            if (loadedAt == generation && maxSize > 0) {
+                details.put(id, value);
+            }
+        }
+        return value;
+    }
+
+    // Новая запись меняет состав страниц, но не детали остальных записей
+    public synchronized void recordAdded() {
+        generation++;
+        pages.clear();
+    }
+
+    public synchronized void recordChanged(Long id) {
+        generation++;
+        pages.clear();
+        details.remove(id);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        pages.clear();
+        details.clear();
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
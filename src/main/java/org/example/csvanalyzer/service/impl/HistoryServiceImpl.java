@@ -0,0 +1,67 @@
+package org.example.csvanalyzer.service.impl;
+
+import org.example.csvanalyzer.dto.DetailDto;
+import org.example.csvanalyzer.dto.HistoryCursorDto;
+import org.example.csvanalyzer.dto.HistoryDto;
+import org.example.csvanalyzer.exception.RecordNotFoundException;
+import org.example.csvanalyzer.mapper.AnalysisRecordMapper;
+import org.example.csvanalyzer.repository.AnalysisRecordRepository;
+import org.example.csvanalyzer.repository.HistoryView;
+import org.example.csvanalyzer.service.HistoryService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Read side of the history: list items are selected as projections, not entities, and both
+ * pages and details go through {@link HistoryCache}.
+ */
+@Service
+public class HistoryServiceImpl implements HistoryService {
+
+    private final AnalysisRecordRepository repository;
+    private final AnalysisRecordMapper mapper;
+    private final HistoryCache cache;
+
+    public HistoryServiceImpl(AnalysisRecordRepository repository, AnalysisRecordMapper mapper, HistoryCache cache) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.cache = cache;
+    }
+
+    // Общее число записей считается отдельным запросом, поэтому только по явной просьбе
+    @Override
+    public Slice<HistoryDto> getHistory(int page, int size, boolean includeTotal) {
+        PageRequest pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "id"));
+        if (includeTotal) {
+            return cache.page("page:" + page + ":" + size + ":total", () -> repository.findHistory(pageable)
+                    .map(mapper::toHistoryDto));
+        }
+        return cache.page("page:" + page + ":" + size, () -> repository.findHistorySlice(pageable)
+                .map(mapper::toHistoryDto));
+    }
+
+    // Без подсчета общего числа записей: следующая порция начинается после последнего id предыдущей
+    @Override
+    public HistoryCursorDto getHistoryBefore(Long cursor, int size) {
+        long before = cursor != null ? cursor : Long.MAX_VALUE;
+        return cache.page("cursor:" + before + ":" + size, () -> {
+            List<HistoryView> views = repository.findHistoryBefore(before, PageRequest.of(0, size + 1));
+            boolean hasMore = views.size() > size;
+            List<HistoryDto> items = views.stream().limit(size).map(mapper::toHistoryDto).toList();
+            return new HistoryCursorDto(items, hasMore ? items.get(items.size() - 1).id() : null);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DetailDto getDetail(Long id) {
+        return cache.detail(id, () -> repository.findById(id)
+                .map(mapper::toDetailDto)
+                .orElseThrow(() -> new RecordNotFoundException(id)));
+    }
+}
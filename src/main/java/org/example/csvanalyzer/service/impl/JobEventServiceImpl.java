@@ -0,0 +1,144 @@
+package org.example.csvanalyzer.service.impl;
+
+import org.example.csvanalyzer.analysis.ScanProgress;
+import org.example.csvanalyzer.config.AnalysisProperties;
+import org.example.csvanalyzer.dto.JobProgressDto;
+import org.example.csvanalyzer.exception.JobNotFoundException;
+import org.example.csvanalyzer.mapper.JobMapper;
+import org.example.csvanalyzer.model.AnalysisJob;
+import org.example.csvanalyzer.service.AnalysisJobService;
+import org.example.csvanalyzer.service.JobEventService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the progress of a job as server-sent events: a {@code progress} event every
+ * {@code analysis.jobs.progress-interval}, which also keeps idle proxies from closing the
+ * connection, then the final job state as a {@code done}, {@code failed} or {@code cancelled} event.
+ * <p>
+ * The analysis thread only adds to the job's {@link ScanProgress}; throughput and ETA are computed
+ * here, from the difference between two samples.
+ */
+@Service
+public class JobEventServiceImpl implements JobEventService {
+
+    private static final Logger log = LoggerFactory.getLogger(JobEventServiceImpl.class);
+
+    private final AnalysisJobService jobService;
+    private final JobMapper mapper;
+    private final ScheduledExecutorService executor;
+    private final long intervalMillis;
+    private final long timeoutMillis;
+
+    public JobEventServiceImpl(AnalysisJobService jobService, JobMapper mapper,
+                               @Qualifier("jobEventExecutor") ScheduledExecutorService executor,
+                               AnalysisProperties analysisProperties) {
+        this.jobService = jobService;
+        this.mapper = mapper;
+        this.executor = executor;
+        this.intervalMillis = analysisProperties.getJobs().getProgressInterval().toMillis();
+        this.timeoutMillis = analysisProperties.getJobs().getEventsTimeout().toMillis();
+    }
+
+    @Override
+    public SseEmitter subscribe(String jobId) {
+        AnalysisJob job = jobService.findById(jobId).orElseThrow(() -> new JobNotFoundException(jobId));
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Sampler sampler = new Sampler(job, emitter);
+        emitter.onCompletion(sampler::stop);
+        emitter.onTimeout(sampler::stop);
+        emitter.onError(e -> sampler.stop());
+        sampler.start();
+        return emitter;
+    }
+
+    private final class Sampler implements Runnable {
+
+        private final AnalysisJob job;
+        private final SseEmitter emitter;
+        private ScheduledFuture<?> future;
+        private boolean stopped;
+        private long lastNanos = System.nanoTime();
+        private long lastBytes;
+        private long lastRows;
+
+        private Sampler(AnalysisJob job, SseEmitter emitter) {
+            this.job = job;
+            this.emitter = emitter;
+        }
+
+        private synchronized void start() {
+            if (!stopped) {
+                future = executor.scheduleAtFixedRate(this, 0, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void stop() {
+            stopped = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        private synchronized boolean isStopped() {
+            return stopped;
+        }
+
+        @Override
+        public void run() {
+            if (isStopped()) {
+                return;
+            }
+            try {
+                // Статус читается до счетчиков: завершенная задача уже сообщила все строки
+                boolean finished = job.getStatus().isFinished();
+                emitter.send(SseEmitter.event().name("progress").data(sample()));
+                if (finished) {
+                    emitter.send(SseEmitter.event()
+                            .name(job.getStatus().name().toLowerCase(Locale.ROOT))
+                            .data(mapper.toJobDto(job)));
+                    emitter.complete();
+                    stop();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Клиент отключился
+                log.debug("Поток событий задачи {} закрыт: {}", job.getId(), e.getMessage());
+                stop();
+            } catch (RuntimeException e) {
+                log.error("Ошибка при отправке прогресса задачи {}", job.getId(), e);
+                emitter.completeWithError(e);
+                stop();
+            }
+        }
+
+        private JobProgressDto sample() {
+            ScanProgress progress = job.getProgress();
+            long now = System.nanoTime();
+            long bytes = progress.getBytes();
+            long rows = progress.getRows();
+            double seconds = (now - lastNanos) / 1e9;
+            double bytesPerSecond = seconds > 0 ? (bytes - lastBytes) / seconds : 0;
+            double rowsPerSecond = seconds > 0 ? (rows - lastRows) / seconds : 0;
+            lastNanos = now;
+            lastBytes = bytes;
+            lastRows = rows;
+
+            Long etaSeconds = null;
+            long totalBytes = progress.getTotalBytes();
+            if (totalBytes >= 0 && bytesPerSecond > 0) {
+                etaSeconds = (long) Math.ceil(Math.max(0, totalBytes - bytes) / bytesPerSecond);
+            }
+            return mapper.toJobProgressDto(job, bytesPerSecond, rowsPerSecond, etaSeconds);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.csvanalyzer.service.impl;
+
+import org.example.csvanalyzer.service.AdmissionService;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Raises an admission reservation to the number of bytes read so far, in steps of
+ * {@value #STEP} bytes so that the budget lock is not taken on every read.
+ */
+final class ReservingInputStream extends FilterInputStream {
+
+    private static final long STEP = 1024 * 1024;
+
+    private final AdmissionService.Permit permit;
+    private long bytesRead;
+    private long reserved;
+
+    ReservingInputStream(InputStream in, AdmissionService.Permit permit) {
+        super(in);
+        this.permit = permit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            advance(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            advance(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void advance(long n) {
+        bytesRead += n;
+        if (bytesRead - reserved >= STEP) {
+            reserved = bytesRead;
+            permit.reserve(reserved);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.csvanalyzer.service.impl;
+
+import org.example.csvanalyzer.config.AnalysisProperties;
+import org.example.csvanalyzer.config.StorageProperties;
+import org.example.csvanalyzer.metrics.AnalysisMetrics;
+import org.example.csvanalyzer.metrics.AnalysisPhase;
+import org.example.csvanalyzer.repository.AnalysisRecordRepository;
+import org.example.csvanalyzer.service.RetentionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Removes analysis records that fall outside the retention policy (number of records, age,
+ * total size of the retained uploads), oldest first, off the request path.
+ * <p>
+ * Records are removed with bulk statements in one transaction; their files are deleted afterwards
+ * in batches on the retention thread. At startup, files in the temp directory that no record
+ * refers to are removed.
+ */
+@Service
+public class RetentionServiceImpl implements RetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionServiceImpl.class);
+    private static final String TEMP_FILE_PREFIX = "tmp_";
+
+    private final AnalysisRecordRepository repository;
+    private final AnalysisProperties.Retention retention;
+    private final AnalysisMetrics metrics;
+    private final HistoryCache historyCache;
+    private final ScheduledExecutorService executor;
+    private final TransactionTemplate transactionTemplate;
+    private final Path tempDir;
+    private final Instant startedAt = Instant.now();
+
+    public RetentionServiceImpl(AnalysisRecordRepository repository,
+                                StorageProperties storageProperties,
+                                AnalysisProperties analysisProperties,
+                                AnalysisMetrics metrics,
+                                HistoryCache historyCache,
+                                @Qualifier("retentionExecutor") ScheduledExecutorService executor,
+                                PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.retention = analysisProperties.getRetention();
+        this.metrics = metrics;
+        this.historyCache = historyCache;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tempDir = Paths.get(storageProperties.getTmpDir());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::reconcileOrphans);
+        if (retention.isEnabled()) {
+            long interval = retention.getInterval().toMillis();
+            executor.scheduleWithFixedDelay(this::reapQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public int reap() {
+        List<String> files = new ArrayList<>();
+        int deleted = metrics.time(AnalysisPhase.RETENTION_CLEANUP, () -> transactionTemplate.execute(status -> {
+            long maxId = expiredMaxId();
+            Instant createdBefore = retention.getMaxAge() != null
+                    ? Instant.now().minus(retention.getMaxAge())
+                    : Instant.EPOCH;
+            if (maxId <= 0 && createdBefore.equals(Instant.EPOCH)) {
+                return 0;
+            }
+
+            files.addAll(repository.findExpiredTempFilePaths(maxId, createdBefore));
+            files.addAll(repository.findExpiredColumnarFilePaths(maxId, createdBefore));
+            repository.deleteExpiredQuantiles(maxId, createdBefore);
+            repository.deleteExpiredColumns(maxId, createdBefore);
+            repository.deleteExpiredAccumulatorStates(maxId, createdBefore);
+            return repository.deleteExpired(maxId, createdBefore);
+        }));
+
+        if (deleted > 0) {
+            historyCache.clear();
+            log.info("Политика хранения: удалено записей {}, файлов к удалению {}", deleted, files.size());
+        }
+        deleteInBatches(files);
+        return deleted;
+    }
+
+    /**
+     * Наибольший id, который выходит за лимиты по количеству записей и по объему файлов;
+     * 0, если лимиты не превышены.
+     */
+    private long expiredMaxId() {
+        long maxId = 0;
+
+        Integer maxRecords = retention.getMaxRecords();
+        if (maxRecords != null) {
+            List<Long> firstExpired = repository.findIdsNewestFirst(PageRequest.of(maxRecords, 1));
+            if (!firstExpired.isEmpty()) {
+                maxId = firstExpired.get(0);
+            }
+        }
+
+        if (retention.getMaxDiskSize() != null) {
+            long budget = retention.getMaxDiskSize().toBytes();
+            long total = 0;
+            for (Object[] row : repository.findStoredFileSizesNewestFirst()) {
+                total += row[1] != null ? ((Number) row[1]).longValue() : 0;
+                if (total > budget) {
+                    maxId = Math.max(maxId, (Long) row[0]);
+                    break;
+                }
+            }
+        }
+        return maxId;
+    }
+
+    private void reapQuietly() {
+        try {
+            reap();
+        } catch (RuntimeException e) {
+            // Исключение отменило бы дальнейшие запуски по расписанию
+            log.error("Ошибка при очистке старых записей", e);
+        }
+    }
+
+    @Override
+    public int reconcileOrphans() {
+        if (!Files.isDirectory(tempDir)) {
+            return 0;
+        }
+
+        Set<Path> referenced = new HashSet<>();
+        for (String path : repository.findAllTempFilePaths()) {
+            referenced.add(normalize(Paths.get(path)));
+        }
+        for (String path : repository.findAllColumnarFilePaths()) {
+            referenced.add(normalize(Paths.get(path)));
+        }
+
+        // Файлы, созданные после запуска, могут принадлежать идущему анализу или сессии загрузки
+        List<Path> orphans;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            orphans = files
+                    .filter(file -> file.getFileName().toString().startsWith(TEMP_FILE_PREFIX))
+                    .filter(file -> !referenced.contains(normalize(file)))
+                    .filter(this::createdBeforeStart)
+                    .toList();
+        } catch (IOException e) {
+            log.error("Не удалось прочитать каталог {}", tempDir, e);
+            return 0;
+        }
+
+        for (Path orphan : orphans) {
+            deleteQuietly(orphan);
+        }
+        if (!orphans.isEmpty()) {
+            log.info("Удалено файлов без записи анализа: {}", orphans.size());
+        }
+        return orphans.size();
+    }
+
+    private boolean createdBeforeStart(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(startedAt);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteInBatches(List<String> files) {
+        int batchSize = Math.max(1, retention.getDeleteBatchSize());
+        for (int from = 0; from < files.size(); from += batchSize) {
+            List<String> batch = files.subList(from, Math.min(from + batchSize, files.size()));
+            try {
+                executor.execute(() -> batch.forEach(file -> deleteQuietly(Paths.get(file))));
+            } catch (RejectedExecutionException e) {
+                // Приложение останавливается: оставшиеся файлы удалит сверка при следующем запуске
+                log.warn("Удаление {} файлов отложено до следующего запуска", files.size() - from);
+                return;
+            }
+        }
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+            log.debug("Удален временный файл: {}", path);
+        } catch (IOException e) {
+            log.error("Не удалось удалить файл: {}", path, e);
+        }
+    }
+}
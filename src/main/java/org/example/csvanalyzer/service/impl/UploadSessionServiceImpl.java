@@ -0,0 +1,353 @@
+package org.example.csvanalyzer.service.impl;
+
+import org.example.csvanalyzer.analysis.BoundedInputStream;
+import org.example.csvanalyzer.analysis.ColumnarWriter;
+import org.example.csvanalyzer.analysis.Compression;
+import org.example.csvanalyzer.analysis.ContentHash;
+import org.example.csvanalyzer.analysis.StatisticsAccumulator;
+import org.example.csvanalyzer.analysis.StatisticsSettings;
+import org.example.csvanalyzer.analysis.UnknownColumnException;
+import org.example.csvanalyzer.config.AnalysisProperties;
+import org.example.csvanalyzer.config.StorageProperties;
+import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.exception.FileProcessingException;
+import org.example.csvanalyzer.exception.FileTooLargeException;
+import org.example.csvanalyzer.exception.FileTypeNotSupportedException;
+import org.example.csvanalyzer.exception.InvalidRequestException;
+import org.example.csvanalyzer.exception.UploadConflictException;
+import org.example.csvanalyzer.exception.UploadSessionLimitException;
+import org.example.csvanalyzer.exception.UploadSessionNotFoundException;
+import org.example.csvanalyzer.metrics.AnalysisMetrics;
+import org.example.csvanalyzer.metrics.AnalysisPhase;
+import org.example.csvanalyzer.model.UploadSession;
+import org.example.csvanalyzer.model.UploadStatus;
+import org.example.csvanalyzer.service.AdmissionService;
+import org.example.csvanalyzer.service.AnalysisService;
+import org.example.csvanalyzer.service.UploadSessionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionServiceImpl.class);
+    private final AnalysisService analysisService;
+    private final AdmissionService admissionService;
+    private final StorageProperties storageProperties;
+    private final AnalysisProperties analysisProperties;
+    private final AnalysisMetrics metrics;
+    private final StatisticsSettings statisticsSettings;
+    private final Path tempDir;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    // Места открытых сессий: занимаются при создании, освобождаются при завершении или удалении
+    private final AtomicInteger openSessions = new AtomicInteger();
+
+    public UploadSessionServiceImpl(AnalysisService analysisService,
+                                    AdmissionService admissionService,
+                                    StorageProperties storageProperties,
+                                    AnalysisProperties analysisProperties,
+                                    AnalysisMetrics metrics) {
+        this.analysisService = analysisService;
+        this.admissionService = admissionService;
+        this.storageProperties = storageProperties;
+        this.analysisProperties = analysisProperties;
+        this.metrics = metrics;
+        this.statisticsSettings = analysisProperties.toStatisticsSettings();
+        this.tempDir = Paths.get(storageProperties.getTmpDir());
+    }
+
+    @Override
+    public UploadSession create(String fileName, List<String> columns) {
+        purgeExpired();
+        if (openSessions.incrementAndGet() > analysisProperties.getUploads().getMaxSessions()) {
+            openSessions.decrementAndGet();
+            throw new UploadSessionLimitException("Too many open upload sessions, try again later");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path tempFilePath = null;
+        Path columnarFilePath = null;
+        ColumnarWriter columnarWriter = null;
+        if (storageProperties.isRetainUploads()) {
+            tempFilePath = tempDir.resolve("tmp_" + id + ".csv");
+            try {
+                Files.createFile(tempFilePath);
+                // Колоночная копия пишется по мере разбора чанков, как и при загрузке одним запросом
+                if (analysisProperties.getColumnar().isEnabled()) {
+                    columnarFilePath = tempFilePath.resolveSibling(tempFilePath.getFileName()
+                            + AnalysisServiceImpl.COLUMNAR_FILE_SUFFIX);
+                    columnarWriter = new ColumnarWriter(columnarFilePath,
+                            analysisProperties.getColumnar().getBlockRows());
+                }
+            } catch (IOException e) {
+                openSessions.decrementAndGet();
+                deleteQuietly(tempFilePath);
+                deleteQuietly(columnarFilePath);
+                throw new FileProcessingException("Failed to create temp file");
+            }
+        }
+
+        MessageDigest digest = analysisProperties.getDedup().isEnabled() ? ContentHash.newDigest() : null;
+        UploadSession session = new UploadSession(id, fileName, columns,
+                new StatisticsAccumulator(statisticsSettings), digest, tempFilePath, columnarFilePath, columnarWriter);
+        sessions.put(id, session);
+
+        log.info("Открыта сессия загрузки {}: {}", id, fileName);
+        return session;
+    }
+
+    @Override
+    public Optional<UploadSession> findById(String id) {
+        purgeExpired();
+        return Optional.ofNullable(sessions.get(id));
+    }
+
+    // Чанк и завершение разбираются под допуском, как и загрузка одним запросом
+    @Override
+    public UploadSession appendChunk(String id, int index, InputStream content) {
+        UploadSession session = getSession(id);
+        session.setLastActivityAt(Instant.now());
+        try (AdmissionService.Permit permit = admissionService.acquire(0)) {
+            return appendChunk(session, index, new ReservingInputStream(content, permit));
+        }
+    }
+
+    private UploadSession appendChunk(UploadSession session, int index, InputStream content) {
+
+        // Чанк читается целиком до применения: оборванная передача не должна испортить состояние разбора
+        long maxChunkBytes = analysisProperties.getUploads().getMaxChunkSize().toBytes();
+        byte[] chunk;
+        try {
+            chunk = new BoundedInputStream(content, maxChunkBytes,
+                    "Chunk exceeds the maximum allowed size (" + maxChunkBytes + " bytes)").readAllBytes();
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read chunk");
+        }
+
+        synchronized (session) {
+            ensureOpen(session);
+            if (index < session.getNextChunk()) {
+                // Повтор после обрыва соединения: чанк уже подтвержден
+                return session;
+            }
+            if (index > session.getNextChunk()) {
+                throw new UploadConflictException("Expected chunk " + session.getNextChunk() + ", got " + index);
+            }
+            if (chunk.length == 0) {
+                throw new InvalidRequestException("Chunk is empty");
+            }
+            // Отклоняется только этот чанк: сессию можно завершить с уже принятыми данными
+            long maxSessionBytes = analysisProperties.getUploads().getMaxSessionSize().toBytes();
+            if (session.getBytesReceived() + chunk.length > maxSessionBytes) {
+                throw new FileTooLargeException("Upload exceeds the maximum allowed size (" + maxSessionBytes
+                        + " bytes)");
+            }
+            if (index == 0 && Compression.detect(chunk, chunk.length) != Compression.NONE) {
+                throw new FileTypeNotSupportedException("Upload sessions accept uncompressed CSV only");
+            }
+
+            appendToFile(session, chunk);
+
+            long start = System.nanoTime();
+            try {
+                metrics.time(AnalysisPhase.PARSE, () -> {
+                    if (session.getDigest() != null) {
+                        session.getDigest().update(chunk);
+                    }
+                    session.getScanner().feed(chunk, 0, chunk.length);
+                    return null;
+                });
+            } catch (UnknownColumnException e) {
+                discard(session);
+                throw new InvalidRequestException(e.getMessage());
+            } catch (RuntimeException e) {
+                discard(session);
+                throw e;
+            }
+            session.setProcessingTimeNanos(session.getProcessingTimeNanos() + System.nanoTime() - start);
+
+            session.setBytesReceived(session.getBytesReceived() + chunk.length);
+            session.setRecordsCount(session.getAccumulator().getRecordsCount());
+            session.setMissingCount(session.getAccumulator().getMissingCount());
+            session.setNextChunk(index + 1);
+            session.setLastActivityAt(Instant.now());
+        }
+
+        log.debug("Сессия загрузки {}: принят чанк {} ({} байт)", session.getId(), index, chunk.length);
+        return session;
+    }
+
+    @Override
+    public UploadSession complete(String id, Integer expectedChunks) {
+        UploadSession session = getSession(id);
+        try (AdmissionService.Permit permit = admissionService.acquire(0)) {
+            return complete(session, expectedChunks);
+        }
+    }
+
+    private UploadSession complete(UploadSession session, Integer expectedChunks) {
+        synchronized (session) {
+            if (session.getStatus() == UploadStatus.COMPLETED) {
+                // Повторное завершение после обрыва возвращает ту же запись
+                return session;
+            }
+            ensureOpen(session);
+            if (expectedChunks != null && expectedChunks != session.getNextChunk()) {
+                throw new UploadConflictException("Expected " + expectedChunks + " chunks, received "
+                        + session.getNextChunk());
+            }
+            if (session.getBytesReceived() == 0) {
+                throw new FileTypeNotSupportedException("Uploaded file is empty");
+            }
+
+            long start = System.nanoTime();
+            try {
+                metrics.time(AnalysisPhase.PARSE, () -> {
+                    session.getScanner().finish();
+                    if (session.getColumnarWriter() != null) {
+                        session.getColumnarWriter().close();
+                    }
+                    return null;
+                });
+            } catch (IOException e) {
+                discard(session);
+                throw new FileProcessingException("Failed to write columnar file");
+            } catch (UnknownColumnException e) {
+                discard(session);
+                throw new InvalidRequestException(e.getMessage());
+            } catch (RuntimeException e) {
+                discard(session);
+                throw e;
+            }
+            long processingTimeMs = Duration.ofNanos(session.getProcessingTimeNanos() + System.nanoTime() - start)
+                    .toMillis();
+
+            String contentHash = session.getDigest() != null ? ContentHash.toHex(session.getDigest()) : null;
+            AnalysisRecord record = analysisService.saveScanned(session.getFileName(), session.getBytesReceived(),
+                    processingTimeMs, session.getAccumulator(), session.getTempFilePath(),
+                    session.getColumnarFilePath(), contentHash, session.getColumns());
+
+            session.setRecordId(record.getId());
+            session.setRecordsCount(session.getAccumulator().getRecordsCount());
+            session.setMissingCount(session.getAccumulator().getMissingCount());
+            session.setStatus(UploadStatus.COMPLETED);
+            session.setLastActivityAt(Instant.now());
+            openSessions.decrementAndGet();
+        }
+
+        log.info("Сессия загрузки {} завершена, запись {}", session.getId(), session.getRecordId());
+        return session;
+    }
+
+    @Override
+    public void abort(String id) {
+        UploadSession session = getSession(id);
+        synchronized (session) {
+            if (session.getStatus() == UploadStatus.COMPLETED) {
+                // Файл завершенной сессии принадлежит записи анализа
+                sessions.remove(id);
+            } else {
+                discard(session);
+            }
+        }
+        log.info("Сессия загрузки {} удалена", id);
+    }
+
+    private UploadSession getSession(String id) {
+        return findById(id).orElseThrow(() -> new UploadSessionNotFoundException(id));
+    }
+
+    private void ensureOpen(UploadSession session) {
+        // Сессия могла быть удалена или истечь, пока запрос ждал блокировки
+        if (sessions.get(session.getId()) != session) {
+            throw new UploadSessionNotFoundException(session.getId());
+        }
+        if (session.getStatus() != UploadStatus.OPEN) {
+            throw new UploadConflictException("Upload session " + session.getId() + " is already completed");
+        }
+    }
+
+    private void appendToFile(UploadSession session, byte[] chunk) {
+        Path file = session.getTempFilePath();
+        if (file == null) {
+            return;
+        }
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.APPEND)) {
+            out.write(chunk);
+        } catch (IOException e) {
+            // Частично записанный чанк отрезается, чтобы его можно было отправить повторно
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(session.getBytesReceived());
+            } catch (IOException ex) {
+                log.error("Не удалось восстановить файл сессии загрузки: {}", file, ex);
+            }
+            throw new FileProcessingException("Failed to save chunk");
+        }
+    }
+
+    private void discard(UploadSession session) {
+        // Место освобождается один раз, даже если сессию удаляют одновременно с ошибкой разбора
+        if (sessions.remove(session.getId(), session)) {
+            openSessions.decrementAndGet();
+        }
+        if (session.getColumnarWriter() != null) {
+            try {
+                session.getColumnarWriter().close();
+            } catch (IOException | RuntimeException e) {
+                // файл все равно удаляется
+            }
+        }
+        deleteQuietly(session.getTempFilePath());
+        deleteQuietly(session.getColumnarFilePath());
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error("Не удалось удалить файл: {}", path, e);
+        }
+    }
+
+    // Брошенные сессии удаляются при обращении к сервису, отдельный планировщик не нужен
+    private void purgeExpired() {
+        Instant deadline = Instant.now().minus(analysisProperties.getUploads().getSessionTimeout());
+        for (UploadSession session : sessions.values()) {
+            if (session.getLastActivityAt().isBefore(deadline)) {
+                synchronized (session) {
+                    if (!session.getLastActivityAt().isBefore(deadline)) {
+                        continue;
+                    }
+                    if (session.getStatus() == UploadStatus.COMPLETED) {
+                        sessions.remove(session.getId());
+                    } else {
+                        log.info("Сессия загрузки {} истекла", session.getId());
+                        discard(session);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package org.example.csvanalyzer;
 
+import com.jayway.jsonpath.JsonPath;
+import org.example.csvanalyzer.config.AnalysisProperties;
+import org.example.csvanalyzer.config.StorageProperties;
 import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.entity.ColumnStatistics;
+import org.example.csvanalyzer.repository.AccumulatorStateRepository;
 import org.example.csvanalyzer.repository.AnalysisRecordRepository;
+import org.example.csvanalyzer.service.AdmissionService;
+import org.example.csvanalyzer.service.RetentionService;
+import org.example.csvanalyzer.service.impl.HistoryCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,17 +17,42 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+// Очистка по расписанию отключена, тесты запускают ее сами
+@SpringBootTest(properties = {"analysis.retention.enabled=false", "analysis.admission.max-wait=100ms"})
 @AutoConfigureMockMvc
 public class AnalysisIntegrationTest {
 
@@ -29,9 +62,29 @@ public class AnalysisIntegrationTest {
     @Autowired
     private AnalysisRecordRepository repository;
 
+    @Autowired
+    private AccumulatorStateRepository stateRepository;
+
+    @Autowired
+    private RetentionService retentionService;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    @Autowired
+    private StorageProperties storageProperties;
+
+    @Autowired
+    private HistoryCache historyCache;
+
+    @Autowired
+    private AdmissionService admissionService;
+
     @BeforeEach
     void setup() {
+        stateRepository.deleteAll();
         repository.deleteAll();
+        historyCache.clear();
     }
 
 
@@ -61,6 +114,305 @@ public class AnalysisIntegrationTest {
         assertThat(record.getProcessingTimeMs()).isPositive();
     }
 
+    @Test
+    void testAnalyzeStreamedRequestBody() throws Exception {
+        String csvContent = """
+                timestamp,value
+                2025-03-01T10:00:30,100
+                2025-03-01T10:00:31,bad
+                2025-03-01T10:00:32,200
+                """;
+
+        mockMvc.perform(post("/analyze?fileName=stream.csv")
+                        .contentType("text/csv")
+                        .content(csvContent.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").exists());
+
+        AnalysisRecord record = repository.findAll().get(0);
+        assertThat(record.getFileName()).isEqualTo("stream.csv");
+        assertThat(record.getFileSizeBytes()).isEqualTo(csvContent.getBytes(StandardCharsets.UTF_8).length);
+        assertThat(record.getRecordsCount()).isEqualTo(2);
+        assertThat(record.getMissingCount()).isEqualTo(1);
+        assertThat(record.getMean()).isEqualTo(150.0);
+        assertThat(Files.size(Path.of(record.getTempFilePath())))
+                .isEqualTo(csvContent.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void testDuplicateUploadReusesExistingRecord() throws Exception {
+        byte[] csvContent = """
+                timestamp,value
+                2025-03-01T10:00:30,1
+                2025-03-01T10:00:31,2
+                """.getBytes(StandardCharsets.UTF_8);
+
+        String first = mockMvc.perform(multipart("/analyze")
+                        .file(new MockMultipartFile("file", "a.csv", "text/csv", csvContent)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String second = mockMvc.perform(post("/analyze?fileName=b.csv")
+                        .contentType("text/csv")
+                        .content(csvContent))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(repository.count()).isEqualTo(1);
+        assertThat(repository.findAll().get(0).getContentHash()).hasSize(64);
+    }
+
+    @Test
+    void testAnalyzeCompressedUploads() throws Exception {
+        byte[] csvContent = """
+                timestamp,value
+                2025-03-01T10:00:30,10
+                2025-03-01T10:00:31,30
+                """.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(csvContent);
+        }
+
+        String first = mockMvc.perform(post("/analyze?fileName=data.csv.gz")
+                        .contentType("application/gzip")
+                        .content(gzip.toByteArray()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        AnalysisRecord record = repository.findAll().get(0);
+        assertThat(record.getRecordsCount()).isEqualTo(2);
+        assertThat(record.getMean()).isEqualTo(20.0);
+        assertThat(record.getFileSizeBytes()).isEqualTo(gzip.size());
+        assertThat(record.getTempFilePath()).endsWith(".csv.gz");
+        assertThat(Files.readAllBytes(Path.of(record.getTempFilePath()))).isEqualTo(gzip.toByteArray());
+
+        // Хеш считается по распакованному содержимому, поэтому тот же CSV в zip — повтор
+        String second = mockMvc.perform(multipart("/analyze")
+                        .file(new MockMultipartFile("file", "data.zip", "application/zip",
+                                zip(Map.of("data.csv", csvContent)))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(second).isEqualTo(first);
+        assertThat(repository.count()).isEqualTo(1);
+
+        mockMvc.perform(multipart("/analyze")
+                        .file(new MockMultipartFile("file", "two.zip", "application/zip",
+                                zip(Map.of("a.csv", csvContent, "b.csv", csvContent)))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testAnalyzeStreamedZipRetainsWholeArchive() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            out.putNextEntry(new ZipEntry("data.csv"));
+            out.write("""
+                    timestamp,value
+                    2025-03-01T10:00:30,10
+                    2025-03-01T10:00:31,30
+                    """.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            // Длинный комментарий в конце архива распаковщик не читает
+            out.setComment("x".repeat(20_000));
+        }
+        byte[] archive = bytes.toByteArray();
+
+        mockMvc.perform(post("/analyze?fileName=data.zip").contentType("application/zip").content(archive))
+                .andExpect(status().isOk());
+
+        // Центральный каталог и комментарий архива входят в копию и размер
+        AnalysisRecord record = repository.findAll().get(0);
+        assertThat(record.getRecordsCount()).isEqualTo(2);
+        assertThat(record.getFileSizeBytes()).isEqualTo(archive.length);
+        assertThat(Files.readAllBytes(Path.of(record.getTempFilePath()))).isEqualTo(archive);
+    }
+
+    private static byte[] zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void testAppendRowsUpdatesRecordInPlace() throws Exception {
+        String csvContent = """
+                timestamp,value
+                2025-03-01T10:00:30,10
+                2025-03-01T10:00:31,20""";
+
+        String response = mockMvc.perform(post("/analyze?fileName=series.csv")
+                        .contentType("text/csv")
+                        .content(csvContent.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.read(response, "$.id");
+
+        // Состояние аккумулятора лежит в своей таблице и не читается вместе с записью
+        assertThat(repository.findById(id.longValue()).orElseThrow().getAccumulatorState()).isNull();
+        assertThat(stateRepository.findById(id.longValue())).isPresent();
+
+        mockMvc.perform(post("/history/" + id + "/append")
+                        .contentType("text/csv")
+                        .content("""
+                                timestamp,value
+                                2025-03-01T10:01:00,60
+                                2025-03-01T10:01:01,oops
+                                """.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id))
+                .andExpect(jsonPath("$.recordsCount").value(3))
+                .andExpect(jsonPath("$.missingCount").value(1))
+                .andExpect(jsonPath("$.maxValue").value(60.0));
+
+        assertThat(repository.count()).isEqualTo(1);
+        AnalysisRecord record = repository.findById(id.longValue()).orElseThrow();
+        assertThat(record.getMean()).isEqualTo(30.0);
+        assertThat(record.getUniqueCount()).isEqualTo(3);
+        assertThat(record.getContentHash()).isNull();
+        assertThat(Files.readString(Path.of(record.getTempFilePath()))).isEqualTo(csvContent + """
+
+                2025-03-01T10:01:00,60
+                2025-03-01T10:01:01,oops
+                """);
+
+        mockMvc.perform(post("/history/9999/append").contentType("text/csv").content("1,2\n"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testMergeAnalyses() throws Exception {
+        String first = """
+                timestamp,value
+                2025-03-01T10:00:30,10
+                2025-03-01T10:00:31,20""";
+        String second = """
+                timestamp,value
+                2025-03-02T10:00:30,30
+                2025-03-02T10:00:31,oops
+                2025-03-02T10:00:32,60""";
+
+        Integer firstId = JsonPath.read(mockMvc.perform(post("/analyze?fileName=day1.csv")
+                        .contentType("text/csv")
+                        .content(first.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.id");
+        Integer secondId = JsonPath.read(mockMvc.perform(post("/analyze?fileName=day2.csv")
+                        .contentType("text/csv")
+                        .content(second.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.id");
+
+        mockMvc.perform(get("/history/merge?ids=" + firstId + "," + secondId + "," + firstId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recordIds.length()").value(2))
+                .andExpect(jsonPath("$.recordsCount").value(4))
+                .andExpect(jsonPath("$.missingCount").value(1))
+                .andExpect(jsonPath("$.minValue").value(10.0))
+                .andExpect(jsonPath("$.maxValue").value(60.0))
+                .andExpect(jsonPath("$.mean").value(30.0))
+                .andExpect(jsonPath("$.uniqueCount").value(4))
+                .andExpect(jsonPath("$.uniqueCountExact").value(true))
+                .andExpect(jsonPath("$.quantiles.p50").exists());
+
+        mockMvc.perform(get("/history/merge?ids=" + firstId + ",9999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testAnalyzeBatchOfFilesAndArchive() throws Exception {
+        byte[] day1 = """
+                timestamp,value
+                2025-03-01T10:00:00,10
+                2025-03-01T10:00:01,20
+                """.getBytes(StandardCharsets.UTF_8);
+        byte[] day2 = """
+                timestamp,value
+                2025-03-02T10:00:00,30
+                2025-03-02T10:00:01,40
+                """.getBytes(StandardCharsets.UTF_8);
+        // Сигнатура gzip без корректного содержимого: ошибка только этого файла
+        byte[] broken = {0x1f, (byte) 0x8b, 0x08, 0x00, 0x01, 0x02};
+
+        MvcResult result = mockMvc.perform(multipart("/analyze/batch")
+                        .file(new MockMultipartFile("files", "day1.csv", "text/csv", day1))
+                        .file(new MockMultipartFile("files", "day2.csv", "text/csv", day2))
+                        .file(new MockMultipartFile("files", "copy.csv", "text/csv", day1))
+                        .file(new MockMultipartFile("files", "broken.csv.gz", "application/gzip", broken))
+                        .file(new MockMultipartFile("files", "notes.txt", "text/plain", day2)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filesCount").value(5))
+                .andExpect(jsonPath("$.succeeded").value(3))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.items[0].fileName").value("day1.csv"))
+                .andExpect(jsonPath("$.items[2].duplicate").value(true))
+                .andExpect(jsonPath("$.items[3].id").doesNotExist())
+                .andExpect(jsonPath("$.items[3].error").exists())
+                .andExpect(jsonPath("$.items[4].error")
+                        .value("Only CSV files (optionally gzip or zip compressed) are allowed"))
+                .andExpect(jsonPath("$.summary.recordsCount").value(4))
+                .andExpect(jsonPath("$.summary.mean").value(25.0))
+                .andReturn();
+
+        // Одинаковое содержимое внутри пакета сохраняется одной записью
+        String json = result.getResponse().getContentAsString();
+        Number firstId = JsonPath.read(json, "$.items[0].id");
+        Number copyId = JsonPath.read(json, "$.items[2].id");
+        assertThat(copyId.longValue()).isEqualTo(firstId.longValue());
+        assertThat(repository.count()).isEqualTo(2);
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("week/day1.csv", day1);
+        entries.put("week/day3.csv", """
+                timestamp,value
+                2025-03-03T10:00:00,50
+                """.getBytes(StandardCharsets.UTF_8));
+        mockMvc.perform(multipart("/analyze/batch")
+                        .file(new MockMultipartFile("archive", "week.zip", "application/zip", zip(entries))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filesCount").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(firstId.longValue()))
+                .andExpect(jsonPath("$.items[0].duplicate").value(true))
+                .andExpect(jsonPath("$.items[1].fileName").value("week/day3.csv"))
+                .andExpect(jsonPath("$.summary.recordsCount").value(3));
+        assertThat(repository.count()).isEqualTo(3);
+
+        mockMvc.perform(multipart("/analyze/batch"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testAnalyzeBatchRejectsArchiveOverDecompressionLimitInTotal() throws Exception {
+        byte[] day = """
+                timestamp,value
+                2025-03-01T10:00:00,10
+                """.getBytes(StandardCharsets.UTF_8);
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("day1.csv", day);
+        entries.put("day2.csv", day);
+        entries.put("day3.csv", day);
+
+        // Каждый файл меньше лимита, а все вместе — больше
+        AnalysisProperties.Decompression decompression = analysisProperties.getDecompression();
+        DataSize maxSize = decompression.getMaxSize();
+        decompression.setMaxSize(DataSize.ofBytes(day.length * 2L + 1));
+        try {
+            mockMvc.perform(multipart("/analyze/batch")
+                            .file(new MockMultipartFile("archive", "days.zip", "application/zip", zip(entries))))
+                    .andExpect(status().isPayloadTooLarge());
+        } finally {
+            decompression.setMaxSize(maxSize);
+        }
+        assertThat(repository.count()).isZero();
+    }
+
     @Test
     void testAnalyzeEmptyFile() throws Exception {
         MockMultipartFile file = new MockMultipartFile(
@@ -99,15 +451,89 @@ public class AnalysisIntegrationTest {
 
         mockMvc.perform(get("/history?page=0"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(5));
+                .andExpect(jsonPath("$.content.length()").value(5))
+                .andExpect(jsonPath("$.content[0].fileName").value("file12.csv"))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
 
         // GET second page (5 items)
         mockMvc.perform(get("/history?page=1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(5));
+                .andExpect(jsonPath("$.content.length()").value(5));
+
+        // Общее число записей — только по запросу
+        mockMvc.perform(get("/history?page=2&includeTotal=true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.last").value(true))
+                .andExpect(jsonPath("$.totalElements").value(12));
     }
 
 
+    @Test
+    void testHistoryCursorPagination() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= 12; i++) {
+            AnalysisRecord record = new AnalysisRecord();
+            record.setFileName("file" + i + ".csv");
+            record.setFileSizeBytes(100L + i);
+            record.setMean(i * 10.0);
+            ids.add(repository.save(record).getId());
+        }
+
+        String first = mockMvc.perform(get("/history/cursor?size=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(5))
+                .andExpect(jsonPath("$.items[0].id").value(ids.get(11)))
+                .andExpect(jsonPath("$.items[0].mean").value(120.0))
+                .andExpect(jsonPath("$.nextCursor").value(ids.get(7)))
+                .andReturn().getResponse().getContentAsString();
+
+        Number cursor = JsonPath.read(first, "$.nextCursor");
+        String second = mockMvc.perform(get("/history/cursor?size=5&cursor=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(ids.get(6)))
+                .andReturn().getResponse().getContentAsString();
+
+        cursor = JsonPath.read(second, "$.nextCursor");
+        mockMvc.perform(get("/history/cursor?size=5&cursor=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/history/cursor?size=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testHistoryCacheFollowsAnalyzeAndDelete() throws Exception {
+        String firstResponse = mockMvc.perform(post("/analyze?fileName=first.csv")
+                        .contentType("text/csv")
+                        .content("timestamp,value\n2025-03-01T10:00:30,1\n".getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Integer firstId = JsonPath.read(firstResponse, "$.id");
+
+        mockMvc.perform(get("/history/cursor"))
+                .andExpect(jsonPath("$.items.length()").value(1));
+        mockMvc.perform(get("/history/" + firstId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/analyze?fileName=second.csv")
+                        .contentType("text/csv")
+                        .content("timestamp,value\n2025-03-01T10:00:30,2\n".getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/history/cursor"))
+                .andExpect(jsonPath("$.items.length()").value(2));
+
+        mockMvc.perform(delete("/history/" + firstId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/history/cursor"))
+                .andExpect(jsonPath("$.items.length()").value(1));
+        mockMvc.perform(get("/history/" + firstId))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testGetDetailExistingRecord() throws Exception {
         AnalysisRecord record = new AnalysisRecord();
@@ -121,6 +547,248 @@ public class AnalysisIntegrationTest {
                 .andExpect(jsonPath("$.id").value(record.getId()));
     }
 
+    @Test
+    void testGetHistogram() throws Exception {
+        String csvContent = """
+                timestamp,value
+                2025-03-01T10:00:30,1
+                2025-03-01T10:00:31,2
+                2025-03-01T10:00:32,3
+                """;
+
+        mockMvc.perform(multipart("/analyze").file(new MockMultipartFile(
+                        "file", "hist.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk());
+
+        AnalysisRecord record = repository.findAll().get(0);
+        mockMvc.perform(get("/history/" + record.getId() + "/histogram"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bins.length()").value(3))
+                .andExpect(jsonPath("$.bins[0].count").value(1));
+    }
+
+    @Test
+    void testGetRollup() throws Exception {
+        String csvContent = """
+                timestamp,value
+                2025-03-01T10:00:30,1
+                2025-03-01T10:00:45,3
+                2025-03-01T10:01:10,10
+                2025-03-01T11:00:00,20
+                """;
+
+        mockMvc.perform(multipart("/analyze").file(new MockMultipartFile(
+                        "file", "rollup.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk());
+
+        AnalysisRecord record = repository.findAll().get(0);
+        mockMvc.perform(get("/history/" + record.getId() + "/rollup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("MINUTE"))
+                .andExpect(jsonPath("$.buckets.length()").value(3))
+                .andExpect(jsonPath("$.buckets[0].mean").value(2.0));
+
+        mockMvc.perform(get("/history/" + record.getId() + "/rollup").param("granularity", "HOUR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.buckets.length()").value(2))
+                .andExpect(jsonPath("$.buckets[0].count").value(3))
+                .andExpect(jsonPath("$.buckets[0].max").value(10.0));
+    }
+
+    @Test
+    void testRangeStatsOfStoredFile() throws Exception {
+        String csvContent = """
+                timestamp,value
+                2025-03-01T10:00:00Z,1
+                2025-03-01T10:30:00Z,3
+                2025-03-01T11:00:00Z,10
+                2025-03-01T11:30:00Z,20
+                n/a,40
+                """;
+
+        mockMvc.perform(multipart("/analyze").file(new MockMultipartFile(
+                        "file", "range.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk());
+
+        AnalysisRecord record = repository.findAll().get(0);
+        assertThat(record.getColumnarFilePath()).isNotNull();
+
+        mockMvc.perform(get("/history/" + record.getId() + "/stats")
+                        .param("from", "2025-03-01T10:00:00Z")
+                        .param("to", "2025-03-01T11:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recordsCount").value(2))
+                .andExpect(jsonPath("$.mean").value(2.0))
+                .andExpect(jsonPath("$.minValue").value(1.0))
+                .andExpect(jsonPath("$.maxValue").value(3.0));
+
+        // Без границ по времени учитывается и строка без метки
+        mockMvc.perform(get("/history/" + record.getId() + "/stats").param("minValue", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recordsCount").value(3))
+                .andExpect(jsonPath("$.mean").value(70.0 / 3));
+
+        mockMvc.perform(get("/history/" + record.getId() + "/stats").param("minValue", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recordsCount").value(0))
+                .andExpect(jsonPath("$.blocksSkipped").value(1))
+                .andExpect(jsonPath("$.mean").doesNotExist());
+
+        mockMvc.perform(get("/history/" + record.getId() + "/stats")
+                        .param("minValue", "5")
+                        .param("maxValue", "1"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/history/9999/stats"))
+                .andExpect(status().isNotFound());
+
+        // После добавления строк колоночная копия устаревает и удаляется
+        mockMvc.perform(post("/history/" + record.getId() + "/append")
+                        .contentType("text/csv")
+                        .content("2025-03-01T12:00:00Z,5\n"))
+                .andExpect(status().isOk());
+        assertThat(Files.exists(Path.of(record.getColumnarFilePath()))).isFalse();
+        mockMvc.perform(get("/history/" + record.getId() + "/stats"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testAnalyzeSelectedColumns() throws Exception {
+        String csvContent = """
+                timestamp,value,cpu,host,memory
+                2025-03-01T10:00:30,1,0.5,a,100
+                2025-03-01T10:00:31,2,0.7,b,300
+                """;
+
+        mockMvc.perform(multipart("/analyze")
+                        .file(new MockMultipartFile("file", "wide.csv", "text/csv",
+                                csvContent.getBytes(StandardCharsets.UTF_8)))
+                        .param("columns", "memory,cpu"))
+                .andExpect(status().isOk());
+
+        AnalysisRecord record = repository.findAll().get(0);
+        mockMvc.perform(get("/history/" + record.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recordsCount").value(2))
+                .andExpect(jsonPath("$.columns.length()").value(2))
+                .andExpect(jsonPath("$.columns[0].name").value("cpu"))
+                .andExpect(jsonPath("$.columns[1].name").value("memory"))
+                .andExpect(jsonPath("$.columns[1].mean").value(200.0));
+
+        mockMvc.perform(multipart("/analyze")
+                        .file(new MockMultipartFile("file", "wide.csv", "text/csv",
+                                csvContent.getBytes(StandardCharsets.UTF_8)))
+                        .param("columns", "disk"))
+                .andExpect(status().isBadRequest());
+
+        // Выбор колонок проверяется до сохранения файла
+        String[] tooMany = new String[65];
+        Arrays.setAll(tooMany, i -> "c" + i);
+        mockMvc.perform(multipart("/analyze")
+                        .file(new MockMultipartFile("file", "wide.csv", "text/csv",
+                                csvContent.getBytes(StandardCharsets.UTF_8)))
+                        .param("columns", tooMany))
+                .andExpect(status().isBadRequest());
+
+        String tooLong = "c".repeat(1025);
+        mockMvc.perform(multipart("/jobs")
+                        .file(new MockMultipartFile("file", "wide.csv", "text/csv",
+                                csvContent.getBytes(StandardCharsets.UTF_8)))
+                        .param("columns", tooLong))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/uploads").param("columns", "cpu", tooLong))
+                .andExpect(status().isBadRequest());
+
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testAnalysisPhasesArePublishedAsMetrics() throws Exception {
+        String csvContent = """
+                timestamp,value
+                2025-03-01T10:00:30,1
+                2025-03-01T10:00:31,oops
+                """;
+
+        mockMvc.perform(multipart("/analyze").file(new MockMultipartFile(
+                        "file", "metrics.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(metrics).contains("csv_analysis_phase_seconds_count{application=\"csv-analyzer\",outcome=\"success\",phase=\"parse\"}");
+        assertThat(metrics).contains("csv_analysis_phase_seconds_count{application=\"csv-analyzer\",outcome=\"success\",phase=\"persist\"}");
+        assertThat(metrics).contains("csv_analysis_rows_invalid_total");
+        assertThat(metrics).contains("csv_analysis_in_flight");
+        assertThat(metrics).contains("csv_admission_bytes_in_flight_bytes");
+        assertThat(metrics).contains("csv_admission_rejected_total");
+    }
+
+    @Test
+    void testAnalyzeIsRejectedWhenAdmissionBudgetIsUsedUp() throws Exception {
+        byte[] csvContent = "timestamp,value\n2025-03-01T10:00:30,1\n".getBytes(StandardCharsets.UTF_8);
+        Integer recordId = JsonPath.read(mockMvc.perform(post("/analyze?fileName=base.csv")
+                        .contentType("text/csv").content(csvContent))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.id");
+        String sessionId = JsonPath.read(mockMvc.perform(post("/uploads?fileName=busy.csv"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(), "$.id");
+
+        List<AdmissionService.Permit> permits = new ArrayList<>();
+        try {
+            for (int i = 0; i < analysisProperties.getAdmission().getMaxConcurrent(); i++) {
+                permits.add(admissionService.acquire(1));
+            }
+            mockMvc.perform(post("/analyze?fileName=busy.csv").contentType("text/csv").content(csvContent))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "5"));
+            mockMvc.perform(post("/history/" + recordId + "/append").contentType("text/csv")
+                            .content("2025-03-01T10:00:31,2\n"))
+                    .andExpect(status().isTooManyRequests());
+            mockMvc.perform(put("/uploads/" + sessionId + "/chunks/0").contentType("text/csv").content(csvContent))
+                    .andExpect(status().isTooManyRequests());
+        } finally {
+            permits.forEach(AdmissionService.Permit::close);
+        }
+
+        mockMvc.perform(post("/analyze?fileName=busy.csv").contentType("text/csv").content(csvContent))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testJobEventsStreamProgressAndResult() throws Exception {
+        String csvContent = """
+                timestamp,value
+                2025-03-01T10:00:30,10
+                2025-03-01T10:00:31,bad
+                2025-03-01T10:00:32,30
+                """;
+
+        String response = mockMvc.perform(multipart("/jobs").file(new MockMultipartFile(
+                        "file", "events.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = JsonPath.read(response, "$.id");
+
+        MvcResult events = mockMvc.perform(get("/jobs/" + jobId + "/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        events.getAsyncResult(10_000);
+
+        String stream = events.getResponse().getContentAsString();
+        AnalysisRecord record = repository.findAll().get(0);
+        assertThat(stream).contains("event:progress");
+        assertThat(stream).contains("\"rowsProcessed\":2", "\"invalidRows\":1",
+                "\"bytesProcessed\":" + csvContent.length());
+        assertThat(stream).contains("event:done");
+        assertThat(stream).contains("\"recordId\":" + record.getId());
+
+        mockMvc.perform(get("/jobs/unknown/events"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testGetDetailNonExistingRecord() throws Exception {
         mockMvc.perform(get("/history/9999"))
@@ -145,4 +813,283 @@ public class AnalysisIntegrationTest {
         mockMvc.perform(delete("/history/9999"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void testRetentionReaperRemovesOldestRecordsAndFiles() throws Exception {
+        Path tempDir = Path.of(storageProperties.getTmpDir());
+        Files.createDirectories(tempDir);
+
+        List<AnalysisRecord> records = new ArrayList<>();
+        for (int i = 1; i <= 13; i++) {
+            Path file = Files.writeString(tempDir.resolve("tmp_retention_" + i + ".csv"), "1,2\n");
+            AnalysisRecord record = new AnalysisRecord();
+            record.setFileName("file" + i + ".csv");
+            record.setFileSizeBytes(4L);
+            record.setTempFilePath(file.toString());
+            // Самая новая запись старше лимита по возрасту
+            record.setCreatedAt(i == 13 ? Instant.now().minus(Duration.ofDays(2)) : Instant.now());
+            record.getQuantiles().put(50.0, 1.5);
+            ColumnStatistics column = new ColumnStatistics();
+            column.setColumnIndex(1);
+            column.setName("value");
+            record.getColumns().add(column);
+            records.add(repository.save(record));
+        }
+
+        AnalysisProperties.Retention retention = analysisProperties.getRetention();
+        retention.setMaxAge(Duration.ofDays(1));
+        try {
+            assertThat(retentionService.reap()).isEqualTo(4);
+        } finally {
+            retention.setMaxAge(null);
+        }
+
+        assertThat(repository.count()).isEqualTo(9);
+        for (int i : new int[]{0, 1, 2, 12}) {
+            assertThat(repository.existsById(records.get(i).getId())).isFalse();
+        }
+
+        // Файлы удаляются фоновым потоком
+        Path oldest = Path.of(records.get(0).getTempFilePath());
+        Path expired = Path.of(records.get(12).getTempFilePath());
+        for (int attempt = 0; attempt < 100 && (Files.exists(oldest) || Files.exists(expired)); attempt++) {
+            Thread.sleep(50);
+        }
+        assertThat(Files.exists(oldest)).isFalse();
+        assertThat(Files.exists(expired)).isFalse();
+        assertThat(Files.exists(Path.of(records.get(3).getTempFilePath()))).isTrue();
+
+        assertThat(retentionService.reap()).isZero();
+    }
+
+    @Test
+    void testRetentionDiskBudgetCountsColumnarCopies() throws Exception {
+        Path tempDir = Path.of(storageProperties.getTmpDir());
+        Files.createDirectories(tempDir);
+
+        List<AnalysisRecord> records = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            Path file = Files.writeString(tempDir.resolve("tmp_budget_" + i + ".csv"), "1,2\n");
+            AnalysisRecord record = new AnalysisRecord();
+            record.setFileName("budget" + i + ".csv");
+            record.setFileSizeBytes(4L);
+            record.setColumnarFileSizeBytes(4L);
+            record.setTempFilePath(file.toString());
+            record.setCreatedAt(Instant.now());
+            records.add(repository.save(record));
+        }
+
+        // Без колоночных копий обе записи укладываются в 10 байт, с ними — только новая
+        AnalysisProperties.Retention retention = analysisProperties.getRetention();
+        retention.setMaxDiskSize(DataSize.ofBytes(10));
+        try {
+            assertThat(retentionService.reap()).isEqualTo(1);
+        } finally {
+            retention.setMaxDiskSize(null);
+        }
+        assertThat(repository.existsById(records.get(0).getId())).isFalse();
+        assertThat(repository.existsById(records.get(1).getId())).isTrue();
+    }
+
+    @Test
+    void testRetentionRemovesOrphanedFiles() throws Exception {
+        Path tempDir = Path.of(storageProperties.getTmpDir());
+        Files.createDirectories(tempDir);
+        FileTime beforeStart = FileTime.from(Instant.now().minus(Duration.ofHours(1)));
+
+        Path orphan = Files.writeString(tempDir.resolve("tmp_orphan.csv"), "1,2\n");
+        Files.setLastModifiedTime(orphan, beforeStart);
+        Path referenced = Files.writeString(tempDir.resolve("tmp_referenced.csv"), "1,2\n");
+        Files.setLastModifiedTime(referenced, beforeStart);
+        Path fresh = Files.writeString(tempDir.resolve("tmp_in_progress.csv"), "1,2\n");
+
+        AnalysisRecord record = new AnalysisRecord();
+        record.setFileName("referenced.csv");
+        record.setTempFilePath(referenced.toString());
+        repository.save(record);
+
+        assertThat(retentionService.reconcileOrphans()).isGreaterThanOrEqualTo(1);
+        assertThat(Files.exists(orphan)).isFalse();
+        assertThat(Files.exists(referenced)).isTrue();
+        assertThat(Files.exists(fresh)).isTrue();
+
+        Files.deleteIfExists(referenced);
+        Files.deleteIfExists(fresh);
+    }
+
+    @Test
+    void testAsyncJobProducesRecord() throws Exception {
+        String csvContent = """
+                timestamp,value
+                2025-03-01T10:00:30,10
+                2025-03-01T10:00:31,30
+                """;
+
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "async.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8)
+        );
+
+        String response = mockMvc.perform(multipart("/jobs").file(file))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").exists())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = JsonPath.read(response, "$.id");
+
+        String status = null;
+        for (int attempt = 0; attempt < 100 && !"DONE".equals(status); attempt++) {
+            Thread.sleep(50);
+            String job = mockMvc.perform(get("/jobs/" + jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            status = JsonPath.read(job, "$.status");
+        }
+
+        assertThat(status).isEqualTo("DONE");
+        AnalysisRecord record = repository.findAll().get(0);
+        assertThat(record.getFileName()).isEqualTo("async.csv");
+        assertThat(record.getMean()).isEqualTo(20.0);
+
+        mockMvc.perform(get("/jobs/" + jobId))
+                .andExpect(jsonPath("$.recordId").value(record.getId()))
+                .andExpect(jsonPath("$.recordUrl").value("/history/" + record.getId()));
+    }
+
+    @Test
+    void testChunkedUploadMatchesOneShotAnalysis() throws Exception {
+        byte[] csvContent = """
+                timestamp,value,load
+                2025-03-01T10:00:30,10,1
+                2025-03-01T10:00:31,bad,2
+                2025-03-01T10:01:02,30.5,3
+                2025-03-01T10:02:10,-4,4
+                """.getBytes(StandardCharsets.UTF_8);
+        // Границы чанков режут строки посередине
+        int[] cuts = {0, 30, 61, 100, csvContent.length};
+
+        String session = mockMvc.perform(post("/uploads?fileName=big.csv"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String sessionId = JsonPath.read(session, "$.id");
+
+        for (int i = 0; i + 1 < cuts.length; i++) {
+            byte[] chunk = Arrays.copyOfRange(csvContent, cuts[i], cuts[i + 1]);
+            mockMvc.perform(put("/uploads/" + sessionId + "/chunks/" + i).contentType("text/csv").content(chunk))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.nextChunk").value(i + 1));
+            // Повтор подтвержденного чанка после обрыва ничего не меняет
+            mockMvc.perform(put("/uploads/" + sessionId + "/chunks/" + i).contentType("text/csv").content(chunk))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.nextChunk").value(i + 1));
+        }
+        mockMvc.perform(put("/uploads/" + sessionId + "/chunks/9").contentType("text/csv").content(csvContent))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/uploads/" + sessionId + "/complete?chunks=" + (cuts.length - 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").exists());
+        AnalysisRecord chunked = repository.findAll().get(0);
+        assertThat(chunked.getColumnarFilePath()).isNotNull();
+        assertThat(chunked.getColumnarFileSizeBytes()).isEqualTo(Files.size(Path.of(chunked.getColumnarFilePath())));
+        mockMvc.perform(get("/history/" + chunked.getId() + "/stats").param("minValue", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recordsCount").value(2))
+                .andExpect(jsonPath("$.mean").value(20.25));
+
+        repository.deleteAll();
+        mockMvc.perform(post("/analyze?fileName=big.csv").contentType("text/csv").content(csvContent))
+                .andExpect(status().isOk());
+        AnalysisRecord oneShot = repository.findAll().get(0);
+
+        assertThat(chunked.getFileSizeBytes()).isEqualTo(oneShot.getFileSizeBytes());
+        assertThat(chunked.getContentHash()).isEqualTo(oneShot.getContentHash());
+        assertThat(chunked.getRecordsCount()).isEqualTo(oneShot.getRecordsCount()).isEqualTo(3);
+        assertThat(chunked.getMissingCount()).isEqualTo(oneShot.getMissingCount()).isEqualTo(1);
+        assertThat(chunked.getUniqueCount()).isEqualTo(oneShot.getUniqueCount());
+        assertThat(chunked.getMinValue()).isEqualTo(oneShot.getMinValue());
+        assertThat(chunked.getMaxValue()).isEqualTo(oneShot.getMaxValue());
+        assertThat(chunked.getMean()).isEqualTo(oneShot.getMean());
+        assertThat(chunked.getStdDev()).isEqualTo(oneShot.getStdDev());
+        assertThat(chunked.getRollup()).isEqualTo(oneShot.getRollup());
+        assertThat(Files.readAllBytes(Path.of(chunked.getTempFilePath()))).isEqualTo(csvContent);
+    }
+
+    @Test
+    void testUploadSessionRejectsChunkOverTotalLimit() throws Exception {
+        String session = mockMvc.perform(post("/uploads?fileName=limited.csv"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String sessionId = JsonPath.read(session, "$.id");
+
+        AnalysisProperties.Uploads uploads = analysisProperties.getUploads();
+        DataSize maxSessionSize = uploads.getMaxSessionSize();
+        uploads.setMaxSessionSize(DataSize.ofBytes(40));
+        try {
+            mockMvc.perform(put("/uploads/" + sessionId + "/chunks/0").contentType("text/csv")
+                            .content("timestamp,value\n2025-03-01T10:00:00,1\n"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(put("/uploads/" + sessionId + "/chunks/1").contentType("text/csv")
+                            .content("2025-03-01T10:00:01,2\n"))
+                    .andExpect(status().isPayloadTooLarge());
+        } finally {
+            uploads.setMaxSessionSize(maxSessionSize);
+        }
+
+        mockMvc.perform(post("/uploads/" + sessionId + "/complete?chunks=1"))
+                .andExpect(status().isOk());
+        assertThat(repository.findAll().get(0).getRecordsCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testUploadSessionLimitHoldsUnderConcurrentCreates() throws Exception {
+        AnalysisProperties.Uploads uploads = analysisProperties.getUploads();
+        int maxSessions = uploads.getMaxSessions();
+        uploads.setMaxSessions(8);
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            // Свободные места с учетом сессий, оставшихся от других тестов
+            List<String> ids = new ArrayList<>();
+            MvcResult result;
+            while ((result = mockMvc.perform(post("/uploads")).andReturn()).getResponse().getStatus() == 201) {
+                ids.add(JsonPath.read(result.getResponse().getContentAsString(), "$.id"));
+            }
+            assertThat(result.getResponse().getStatus()).isEqualTo(503);
+            int free = ids.size();
+            for (String id : ids) {
+                mockMvc.perform(delete("/uploads/" + id)).andExpect(status().isNoContent());
+            }
+
+            List<Future<MvcResult>> attempts = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                attempts.add(clients.submit(() -> mockMvc.perform(post("/uploads")).andReturn()));
+            }
+            ids.clear();
+            for (Future<MvcResult> attempt : attempts) {
+                MvcResult created = attempt.get();
+                if (created.getResponse().getStatus() == 201) {
+                    ids.add(JsonPath.read(created.getResponse().getContentAsString(), "$.id"));
+                } else {
+                    assertThat(created.getResponse().getStatus()).isEqualTo(503);
+                }
+            }
+            assertThat(ids).hasSize(free);
+            for (String id : ids) {
+                mockMvc.perform(delete("/uploads/" + id)).andExpect(status().isNoContent());
+            }
+        } finally {
+            clients.shutdownNow();
+            uploads.setMaxSessions(maxSessions);
+        }
+    }
+
+    @Test
+    void testGetNonExistingUploadSession() throws Exception {
+        mockMvc.perform(get("/uploads/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetNonExistingJob() throws Exception {
+        mockMvc.perform(get("/jobs/unknown"))
+                .andExpect(status().isNotFound());
+    }
 }
@@ -0,0 +1,137 @@
+package org.example.csvanalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ColumnarFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void blocksHoldRowsInOrderWithTheirRanges() throws IOException {
+        Path file = tempDir.resolve("values.col");
+        try (ColumnarWriter writer = new ColumnarWriter(file, 4)) {
+            for (int i = 0; i < 10; i++) {
+                writer.accept(i == 5 ? ColumnarFile.NO_TIMESTAMP : 1_000 + i, i * 1.5);
+            }
+        }
+
+        try (ColumnarFile columnar = ColumnarFile.open(file)) {
+            assertThat(columnar.getRowCount()).isEqualTo(10);
+            assertThat(columnar.getBlockCount()).isEqualTo(3);
+            assertThat(columnar.blockRowCount(0)).isEqualTo(4);
+            assertThat(columnar.blockRowCount(2)).isEqualTo(2);
+
+            assertThat(columnar.blockMinValue(1)).isEqualTo(6.0);
+            assertThat(columnar.blockMaxValue(1)).isEqualTo(10.5);
+            // Строка без метки времени не входит в диапазон меток блока
+            assertThat(columnar.blockMinTimestamp(1)).isEqualTo(1_004);
+            assertThat(columnar.blockMaxTimestamp(1)).isEqualTo(1_007);
+
+            LongBuffer timestamps = columnar.timestamps(1);
+            DoubleBuffer values = columnar.values(2);
+            assertThat(timestamps.remaining()).isEqualTo(4);
+            assertThat(timestamps.get(1)).isEqualTo(ColumnarFile.NO_TIMESTAMP);
+            assertThat(values.remaining()).isEqualTo(2);
+            assertThat(values.get(0)).isEqualTo(12.0);
+            assertThat(values.get(1)).isEqualTo(13.5);
+        }
+        // Последний блок не дополняется до полного размера
+        assertThat(Files.size(file)).isEqualTo(ColumnarFile.HEADER_SIZE + 2 * ColumnarFile.blockSize(4)
+                + ColumnarFile.blockSize(2));
+    }
+
+    @Test
+    void scannerWritesEveryValidRow() throws IOException {
+        byte[] csv = generate(50_000);
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        Path file = tempDir.resolve("scan.col");
+        try (ColumnarWriter writer = new ColumnarWriter(file, 1024)) {
+            CsvValueScanner scanner = new CsvValueScanner(accumulator);
+            scanner.setColumnarWriter(writer);
+            scanner.scan(new ByteArrayInputStream(csv));
+        }
+
+        try (ColumnarFile columnar = ColumnarFile.open(file)) {
+            long rows = accumulator.getRecordsCount();
+            assertThat(columnar.getRowCount()).isEqualTo(rows);
+            assertThat(columnar.getBlockCount()).isEqualTo((int) ((rows + 1023) / 1024));
+
+            double sum = 0;
+            for (int block = 0; block < columnar.getBlockCount(); block++) {
+                DoubleBuffer values = columnar.values(block);
+                while (values.hasRemaining()) {
+                    sum += values.get();
+                }
+            }
+            assertThat(sum / rows).isCloseTo(accumulator.getMean(), within(1e-9));
+        }
+    }
+
+    @Test
+    void parallelScanWritesTheSameFileAsSequential() throws IOException {
+        byte[] csv = generate(200_000);
+        Path source = tempDir.resolve("data.csv");
+        Files.write(source, csv);
+
+        Path sequential = tempDir.resolve("sequential.col");
+        try (ColumnarWriter writer = new ColumnarWriter(sequential, 1000)) {
+            CsvValueScanner scanner = new CsvValueScanner(new StatisticsAccumulator());
+            scanner.setColumnarWriter(writer);
+            scanner.scan(new ByteArrayInputStream(csv));
+        }
+
+        Path parallel = tempDir.resolve("parallel.col");
+        try (ParallelCsvAnalyzer analyzer = new ParallelCsvAnalyzer(4, 4096, 0)) {
+            analyzer.analyze(source, null, StatisticsAccumulator::new, null, parallel, 1000);
+        }
+
+        try (ColumnarFile expected = ColumnarFile.open(sequential);
+             ColumnarFile actual = ColumnarFile.open(parallel)) {
+            assertThat(actual.getRowCount()).isEqualTo(expected.getRowCount());
+            assertThat(rows(actual)).isEqualTo(rows(expected));
+        }
+        // Части удаляются после склейки
+        try (var files = Files.list(tempDir)) {
+            assertThat(files.noneMatch(p -> p.getFileName().toString().contains(".part"))).isTrue();
+        }
+    }
+
+    private static List<String> rows(ColumnarFile columnar) {
+        List<String> rows = new ArrayList<>();
+        for (int block = 0; block < columnar.getBlockCount(); block++) {
+            LongBuffer timestamps = columnar.timestamps(block);
+            DoubleBuffer values = columnar.values(block);
+            while (values.hasRemaining()) {
+                rows.add(timestamps.get() + ":" + values.get());
+            }
+        }
+        return rows;
+    }
+
+    private byte[] generate(int rows) {
+        Random random = new Random(rows);
+        StringBuilder sb = new StringBuilder("timestamp,value\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append(i % 100 == 0 ? "bad" : "2025-03-01T10:" + (10 + i % 50) + ":00").append(',');
+            sb.append(random.nextInt(40) == 0 ? "n/a" : String.valueOf(Math.round(random.nextGaussian() * 10_000) / 100.0));
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.csvanalyzer.analysis;
+
+import org.example.csvanalyzer.exception.FileTooLargeException;
+import org.example.csvanalyzer.exception.FileTypeNotSupportedException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressionTest {
+
+    private static final byte[] CSV = "timestamp,value\n2025-03-01T10:00:30,1.5\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void detectsByMagicBytesAndLeavesStreamIntact() throws IOException {
+        for (byte[] content : new byte[][]{CSV, gzip(CSV), zip("data.csv"), new byte[]{'a'}, new byte[0]}) {
+            PushbackInputStream in = new PushbackInputStream(new ByteArrayInputStream(content), Compression.MAGIC_LENGTH);
+            Compression.detect(in);
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        assertThat(detect(CSV)).isEqualTo(Compression.NONE);
+        assertThat(detect(gzip(CSV))).isEqualTo(Compression.GZIP);
+        assertThat(detect(zip("data.csv"))).isEqualTo(Compression.ZIP);
+    }
+
+    @Test
+    void decompressesGzipAndSingleEntryZip() throws IOException {
+        assertThat(Compression.GZIP.decompress(new ByteArrayInputStream(gzip(CSV)), Long.MAX_VALUE).readAllBytes())
+                .isEqualTo(CSV);
+        assertThat(Compression.ZIP.decompress(new ByteArrayInputStream(zip("data.csv")), Long.MAX_VALUE).readAllBytes())
+                .isEqualTo(CSV);
+    }
+
+    @Test
+    void rejectsZipWithSeveralFiles() throws IOException {
+        InputStream in = Compression.ZIP.decompress(new ByteArrayInputStream(zip("a.csv", "b.csv")), Long.MAX_VALUE);
+        assertThatThrownBy(in::readAllBytes)
+                .isInstanceOf(FileTypeNotSupportedException.class)
+                .hasMessageContaining("exactly one file");
+    }
+
+    @Test
+    void limitsInflatedSize() throws IOException {
+        InputStream in = Compression.GZIP.decompress(new ByteArrayInputStream(gzip(CSV)), CSV.length - 1);
+        assertThatThrownBy(in::readAllBytes)
+                .isInstanceOf(FileTooLargeException.class)
+                .hasMessageContaining("Decompressed file");
+    }
+
+    private static Compression detect(byte[] content) throws IOException {
+        return Compression.detect(new PushbackInputStream(new ByteArrayInputStream(content), Compression.MAGIC_LENGTH));
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] zip(String... names) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            out.putNextEntry(new ZipEntry("dir/"));
+            out.closeEntry();
+            for (String name : names) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(CSV);
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,218 @@
+package org.example.csvanalyzer.analysis;
+
+import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.entity.ColumnStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class CsvValueScannerTest {
+
+    @Test
+    void matchesSplitAndParseDoubleOnMixedInput() throws IOException {
+        String csv = String.join("\n",
+                "timestamp,value",
+                "2025-03-01T10:00:30,105.4",
+                "2025-03-01T10:00:31, 95.56 ",
+                "2025-03-01T10:00:32,",
+                "2025-03-01T10:00:33,abc",
+                "2025-03-01T10:00:34,1,2",
+                "2025-03-01T10:00:35,7,,",
+                ",8",
+                "",
+                "no-comma",
+                "2025-03-01T10:00:36,-0.0",
+                "2025-03-01T10:00:37,NaN",
+                "2025-03-01T10:00:38,1e3");
+
+        assertMatchesReference(csv);
+        assertMatchesReference(csv.replace("\n", "\r\n"));
+        assertMatchesReference(csv.replace("\n", "\r"));
+    }
+
+    @Test
+    void randomInputIsBitIdenticalForAnyChunking() throws IOException {
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder("timestamp,value\n");
+        for (int i = 0; i < 50_000; i++) {
+            sb.append("2025-03-01T10:00:").append(i % 60).append(',');
+            int kind = random.nextInt(20);
+            if (kind == 0) {
+                sb.append("n/a");
+            } else if (kind == 1) {
+                sb.append("1,2");
+            } else {
+                sb.append(random.nextGaussian() * 1000);
+            }
+            sb.append(random.nextInt(10) == 0 ? "\r\n" : "\n");
+        }
+        String csv = sb.toString();
+
+        AnalysisRecord expected = reference(csv);
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        for (int chunk : new int[]{1, 2, 7, 4096, bytes.length}) {
+            StatisticsAccumulator accumulator = new StatisticsAccumulator();
+            CsvValueScanner scanner = new CsvValueScanner(accumulator);
+            for (int off = 0; off < bytes.length; off += chunk) {
+                scanner.feed(bytes, off, Math.min(chunk, bytes.length - off));
+            }
+            scanner.finish();
+            assertSame(expected, accumulator);
+        }
+    }
+
+    @Test
+    void computesStatisticsPerColumn() throws IOException {
+        String csv = String.join("\n",
+                "timestamp,value,cpu,host,memory",
+                "2025-03-01T10:00:30,1,0.5,a,100",
+                "2025-03-01T10:00:31,2,0.7,b,",
+                "2025-03-01T10:00:32,3,x,c,300",
+                "2025-03-01T10:00:33,4,0.9",
+                "2025-03-01T10:00:34,5,1,d,1,extra");
+
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        new CsvValueScanner(accumulator).scan(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        AnalysisRecord record = new AnalysisRecord();
+        accumulator.applyTo(record);
+
+        assertThat(record.getRecordsCount()).isEqualTo(4);
+        assertThat(record.getMissingCount()).isEqualTo(1);
+        assertThat(record.getColumns().stream().map(ColumnStatistics::getName).toList())
+                .containsExactly("value", "cpu", "memory");
+
+        ColumnStatistics cpu = record.getColumns().get(1);
+        assertThat(cpu.getColumnIndex()).isEqualTo(2);
+        assertThat(cpu.getRecordsCount()).isEqualTo(3);
+        assertThat(cpu.getMissingCount()).isEqualTo(2);
+        assertThat(cpu.getMean()).isCloseTo(0.7, within(1e-12));
+
+        ColumnStatistics memory = record.getColumns().get(2);
+        assertThat(memory.getRecordsCount()).isEqualTo(2);
+        assertThat(memory.getMaxValue()).isEqualTo(300.0);
+    }
+
+    @Test
+    void projectsRequestedColumnsAndDetectsMissingHeader() throws IOException {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        new CsvValueScanner(accumulator, List.of("memory", "host"))
+                .scan(new ByteArrayInputStream("t,value,host,memory\n1,2,h,4\n".getBytes(StandardCharsets.UTF_8)));
+        AnalysisRecord record = new AnalysisRecord();
+        accumulator.applyTo(record);
+        assertThat(record.getColumns().stream().map(ColumnStatistics::getName).toList())
+                .containsExactly("host", "memory");
+        assertThat(record.getColumns().get(0).getMissingCount()).isEqualTo(1);
+        assertThat(record.getColumns().get(1).getMean()).isEqualTo(4.0);
+
+        assertThatThrownBy(() -> new CsvValueScanner(new StatisticsAccumulator(), List.of("nope"))
+                .scan(new ByteArrayInputStream("t,value\n1,2\n".getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(UnknownColumnException.class);
+
+        StatisticsAccumulator headerless = new StatisticsAccumulator();
+        new CsvValueScanner(headerless)
+                .scan(new ByteArrayInputStream("1,2,3\n4,5,6\n".getBytes(StandardCharsets.UTF_8)));
+        assertThat(headerless.getRecordsCount()).isEqualTo(2);
+        assertThat(headerless.columnStatistics().get(2).getName()).isEqualTo("column3");
+    }
+
+    @Test
+    void timestampedFileWithoutHeaderKeepsFirstRow() throws IOException {
+        String csv = "2025-03-01T10:00:30,105.4\n2025-03-01T10:00:31,95.5\n2025-03-01 10:00:32Z,7\n";
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        new CsvValueScanner(accumulator).scan(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        AnalysisRecord record = new AnalysisRecord();
+        accumulator.applyTo(record);
+        assertThat(record.getRecordsCount()).isEqualTo(3);
+        assertThat(record.getMaxValue()).isEqualTo(105.4);
+        assertThat(accumulator.columnStatistics().stream().map(ColumnStatistics::getName).toList())
+                .containsExactly("column2");
+
+        BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        CsvSchema.skipHeader(in);
+        assertThat(in.available()).isEqualTo(csv.length());
+
+        byte[] header = "timestamp,value".getBytes(StandardCharsets.UTF_8);
+        assertThat(CsvSchema.detect(header, 0, header.length, null).hasHeader()).isTrue();
+    }
+
+    private void assertMatchesReference(String csv) throws IOException {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        new CsvValueScanner(accumulator).scan(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        assertSame(reference(csv), accumulator);
+    }
+
+    private void assertSame(AnalysisRecord expected, StatisticsAccumulator accumulator) {
+        AnalysisRecord actual = new AnalysisRecord();
+        accumulator.applyTo(actual);
+        assertThat(actual.getRecordsCount()).isEqualTo(expected.getRecordsCount());
+        assertThat(actual.getMissingCount()).isEqualTo(expected.getMissingCount());
+        assertThat(actual.getUniqueCount()).isEqualTo(expected.getUniqueCount());
+        assertThat(Double.doubleToRawLongBits(actual.getMean()))
+                .isEqualTo(Double.doubleToRawLongBits(expected.getMean()));
+        assertThat(Double.doubleToRawLongBits(actual.getMinValue()))
+                .isEqualTo(Double.doubleToRawLongBits(expected.getMinValue()));
+        assertThat(Double.doubleToRawLongBits(actual.getMaxValue()))
+                .isEqualTo(Double.doubleToRawLongBits(expected.getMaxValue()));
+        assertThat(Double.doubleToRawLongBits(actual.getStdDev()))
+                .isEqualTo(Double.doubleToRawLongBits(expected.getStdDev()));
+    }
+
+    // Прежняя реализация цикла анализа: line.split(",") + Double.parseDouble
+    private AnalysisRecord reference(String csv) throws IOException {
+        long[] recordsCount = {0};
+        long[] missingCount = {0};
+        double[] minValue = {Double.MAX_VALUE};
+        double[] maxValue = {Double.MIN_VALUE};
+        double[] mean = {0.0};
+        double[] m2 = {0.0};
+        HashSet<Double> uniqueValues = new HashSet<>();
+
+        try (BufferedReader reader = new BufferedReader(new StringReader(csv))) {
+            reader.lines()
+                    .skip(1)
+                    .map(line -> line.split(","))
+                    .forEach(parts -> {
+                        if (parts.length != 2) {
+                            missingCount[0]++;
+                            return;
+                        }
+                        double value;
+                        try {
+                            value = Double.parseDouble(parts[1].trim());
+                        } catch (NumberFormatException ex) {
+                            missingCount[0]++;
+                            return;
+                        }
+                        recordsCount[0]++;
+                        minValue[0] = Math.min(minValue[0], value);
+                        maxValue[0] = Math.max(maxValue[0], value);
+                        uniqueValues.add(value);
+                        double delta = value - mean[0];
+                        mean[0] += delta / recordsCount[0];
+                        m2[0] += delta * (value - mean[0]);
+                    });
+        }
+
+        AnalysisRecord record = new AnalysisRecord();
+        record.setRecordsCount(recordsCount[0]);
+        record.setMissingCount(missingCount[0]);
+        record.setUniqueCount((long) uniqueValues.size());
+        record.setMinValue(recordsCount[0] > 0 ? minValue[0] : 0.0);
+        record.setMaxValue(recordsCount[0] > 0 ? maxValue[0] : 0.0);
+        record.setMean(recordsCount[0] > 0 ? mean[0] : 0.0);
+        record.setStdDev(recordsCount[0] > 1 ? Math.sqrt(m2[0] / (recordsCount[0] - 1)) : 0.0);
+        return record;
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.csvanalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DistinctCounterTest {
+
+    @Test
+    void staysExactBelowThreshold() {
+        DistinctCounter counter = new DistinctCounter(1000, Long.MAX_VALUE, 12);
+        for (int i = 0; i < 5000; i++) {
+            counter.add(i % 1000);
+        }
+
+        assertThat(counter.isExact()).isTrue();
+        assertThat(counter.count()).isEqualTo(1000);
+        assertThat(counter.relativeError()).isEqualTo(0.0);
+    }
+
+    @Test
+    void switchesToSketchPastCardinalityThreshold() {
+        int distinct = 500_000;
+        DistinctCounter counter = new DistinctCounter(10_000, Long.MAX_VALUE, 14);
+        for (int i = 0; i < distinct; i++) {
+            counter.add(i * 0.01);
+        }
+
+        assertThat(counter.isExact()).isFalse();
+        assertThat(counter.relativeError()).isCloseTo(1.04 / 128, within(1e-12));
+        assertThat((double) counter.count()).isCloseTo(distinct, within(distinct * 0.03));
+    }
+
+    @Test
+    void switchesToSketchPastMemoryThreshold() {
+        DistinctCounter counter = new DistinctCounter(Long.MAX_VALUE, 64 * 1024, 12);
+        for (int i = 0; i < 100_000; i++) {
+            counter.add(i);
+        }
+
+        assertThat(counter.isExact()).isFalse();
+    }
+
+    @Test
+    void foldedSketchEqualsSketchOfLowerPrecision() {
+        HyperLogLog high = new HyperLogLog(14);
+        HyperLogLog low = new HyperLogLog(10);
+        for (int i = 0; i < 200_000; i++) {
+            high.add(i * 0.25);
+            low.add(i * 0.25);
+        }
+
+        HyperLogLog folded = high.fold(10);
+
+        assertThat(folded.getPrecision()).isEqualTo(10);
+        assertThat(folded.getRegisters()).isEqualTo(low.getRegisters());
+    }
+
+    @Test
+    void mergesSketchesOfDifferentPrecision() {
+        DistinctCounter coarse = new DistinctCounter(1_000, Long.MAX_VALUE, 12);
+        DistinctCounter fine = new DistinctCounter(1_000, Long.MAX_VALUE, 14);
+        for (int i = 0; i < 50_000; i++) {
+            coarse.add(i);
+            fine.add(i + 25_000);
+        }
+
+        fine.merge(coarse);
+
+        assertThat(fine.relativeError()).isCloseTo(1.04 / 64, within(1e-12));
+        assertThat((double) fine.count()).isCloseTo(75_000, within(75_000 * 0.05));
+    }
+
+    @Test
+    void mergesExactAndEstimatedPartials() {
+        DistinctCounter exact = new DistinctCounter(100_000, Long.MAX_VALUE, 14);
+        DistinctCounter estimated = new DistinctCounter(1_000, Long.MAX_VALUE, 14);
+        for (int i = 0; i < 50_000; i++) {
+            exact.add(i);
+            estimated.add(i + 25_000);
+        }
+
+        exact.merge(estimated);
+
+        assertThat(exact.isExact()).isFalse();
+        assertThat((double) exact.count()).isCloseTo(75_000, within(75_000 * 0.03));
+    }
+
+    @Test
+    void hyperLogLogIsAccurateForSmallCardinalities() {
+        HyperLogLog sketch = new HyperLogLog(14);
+        for (int i = 0; i < 100; i++) {
+            sketch.add(i);
+            sketch.add(i);
+        }
+
+        assertThat((double) sketch.estimate()).isCloseTo(100, within(2.0));
+    }
+}
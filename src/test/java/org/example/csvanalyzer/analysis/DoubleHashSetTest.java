@@ -0,0 +1,78 @@
+package org.example.csvanalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DoubleHashSetTest {
+
+    @Test
+    void followsHashSetOfDoubleEquality() {
+        DoubleHashSet set = new DoubleHashSet();
+        HashSet<Double> reference = new HashSet<>();
+        double[] values = {
+                0.0, -0.0, 0.0, Double.NaN, Double.longBitsToDouble(0x7ff8000000000001L), 0.0 / 0.0,
+                1.0, 1.0, Double.MIN_VALUE, Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY
+        };
+        for (double value : values) {
+            assertThat(set.add(value)).isEqualTo(reference.add(value));
+        }
+
+        assertThat(set.size()).isEqualTo(reference.size());
+        assertThat(set.contains(-0.0)).isTrue();
+        assertThat(set.contains(0.0)).isTrue();
+        assertThat(set.contains(Double.NaN)).isTrue();
+        assertThat(set.contains(2.0)).isFalse();
+    }
+
+    @Test
+    void growsAndMergesLikeHashSet() {
+        Random random = new Random(1);
+        DoubleHashSet left = new DoubleHashSet();
+        DoubleHashSet right = new DoubleHashSet();
+        HashSet<Double> reference = new HashSet<>();
+        for (int i = 0; i < 300_000; i++) {
+            double value = random.nextInt(10) == 0 ? random.nextInt(1000) : random.nextDouble();
+            (i % 2 == 0 ? left : right).add(value);
+            reference.add(value);
+        }
+        left.addAll(right);
+
+        assertThat(left.size()).isEqualTo(reference.size());
+        for (Double value : reference) {
+            assertThat(left.contains(value)).isTrue();
+        }
+    }
+
+    @Test
+    void tableStaysBetweenTwoAndFourSlotsPerEntry() {
+        DoubleHashSet set = new DoubleHashSet();
+        assertThat(set.capacity()).isEqualTo(128);
+        for (int i = 1; i <= 1_000_000; i++) {
+            set.add(i * 0.5);
+            if (i > 32 && Integer.bitCount(i) == 1) {
+                assertThat(set.capacity()).isEqualTo(2 * i);
+            }
+        }
+
+        // 2^21 слотов по 8 байт: меньше 17 байт на значение против ~50 у узла HashSet<Double>
+        assertThat(set.size()).isEqualTo(1_000_000);
+        assertThat(set.capacity()).isEqualTo(1 << 21);
+        assertThat(set.memoryBytes()).isEqualTo(16L + (8L << 21));
+
+        // Заранее заданный размер не требует перестроений
+        DoubleHashSet presized = new DoubleHashSet(1_000_000);
+        assertThat(presized.capacity()).isEqualTo(1 << 21);
+        for (int i = 0; i < 1_000_000; i++) {
+            presized.add(i * 0.5);
+        }
+        assertThat(presized.capacity()).isEqualTo(1 << 21);
+
+        set.clear();
+        assertThat(set.size()).isZero();
+        assertThat(set.capacity()).isEqualTo(1 << 21);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.csvanalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistogramTest {
+
+    @Test
+    void countsEveryValueExactlyWithinBinCount() {
+        Random random = new Random(2);
+        Histogram histogram = new Histogram(50, false);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 25 + 100;
+            histogram.add(values[i]);
+        }
+
+        List<Histogram.Bin> bins = histogram.bins();
+        assertThat(bins.size()).isLessThanOrEqualTo(50);
+        assertThat(bins.size()).isGreaterThanOrEqualTo(12);
+        assertThat(bins.stream().mapToLong(Histogram.Bin::count).sum()).isEqualTo(values.length);
+
+        for (Histogram.Bin bin : bins) {
+            long expected = 0;
+            for (double value : values) {
+                if (value >= bin.lower() && value < bin.upper()) {
+                    expected++;
+                }
+            }
+            assertThat(bin.count()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void mergeEqualsSingleHistogram() {
+        Random random = new Random(4);
+        Histogram single = new Histogram(32, false);
+        Histogram left = new Histogram(32, false);
+        Histogram right = new Histogram(32, false);
+        for (int i = 0; i < 50_000; i++) {
+            double value = i % 2 == 0 ? random.nextDouble() * 10 : -500 + random.nextDouble();
+            single.add(value);
+            (i < 25_000 ? left : right).add(value);
+        }
+        left.merge(right);
+
+        assertThat(left.bins()).isEqualTo(single.bins());
+    }
+
+    @Test
+    void logScaleSeparatesNonPositiveValues() {
+        Histogram histogram = new Histogram(20, true);
+        for (double value : new double[]{-1, 0, 1, 10, 100, 1000, 10_000}) {
+            histogram.add(value);
+        }
+
+        assertThat(histogram.getNonPositiveCount()).isEqualTo(2);
+        assertThat(histogram.bins().stream().mapToLong(Histogram.Bin::count).sum()).isEqualTo(5);
+        assertThat(histogram.bins().get(0).lower()).isLessThanOrEqualTo(1.0);
+    }
+
+    @Test
+    void roundTripsThroughCompactEncoding() {
+        Histogram histogram = new Histogram(64, false);
+        for (int i = 0; i < 10_000; i++) {
+            histogram.add(i % 997);
+        }
+
+        byte[] bytes = histogram.toBytes();
+
+        assertThat(bytes.length).isLessThan(64 * 3 + 32);
+        assertThat(Histogram.fromBytes(bytes).bins()).isEqualTo(histogram.bins());
+        assertThat(Histogram.fromBytes(new Histogram(8, false).toBytes()).bins()).isEmpty();
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.csvanalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NumberParserTest {
+
+    private final NumberParser parser = new NumberParser();
+
+    @Test
+    void parsesLikeDoubleParseDouble() {
+        String[] samples = {
+                "0", "-0", "+0", "0.0", "-0.0", "1", "105.4", "95.56", " 42 ", "\t-3.5\r",
+                ".5", "5.", "+.25", "1e3", "1E-3", "-2.5e+10", "0.1", "0.3", "123456789012345",
+                "1234567890123456789", "9007199254740993", "1e22", "1e23", "1e-22", "1e-23",
+                "4.9e-324", "1.7976931348623157e308", "1e309", "0.000000000000000000000000001",
+                "NaN", "-Infinity", "0x1p3", "1d", "2.5f", "00012.5000"
+        };
+        for (String sample : samples) {
+            assertSameAsJdk(sample);
+        }
+    }
+
+    @Test
+    void rejectsWhatDoubleParseDoubleRejects() {
+        String[] samples = {"", " ", "-", ".", "e5", "1e", "1e+", "1.2.3", "abc", "1,5", "--1", "1 2"};
+        for (String sample : samples) {
+            byte[] bytes = sample.getBytes(StandardCharsets.UTF_8);
+            assertThat(parser.parse(bytes, 0, bytes.length)).as(sample).isFalse();
+        }
+    }
+
+    @Test
+    void randomDecimalsAreBitIdentical() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            if (random.nextBoolean()) {
+                sb.append('-');
+            }
+            sb.append(random.nextInt(1_000_000));
+            if (random.nextInt(4) != 0) {
+                sb.append('.');
+                int decimals = 1 + random.nextInt(12);
+                for (int d = 0; d < decimals; d++) {
+                    sb.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+            if (random.nextInt(8) == 0) {
+                sb.append('e').append(random.nextInt(60) - 30);
+            }
+            assertSameAsJdk(sb.toString());
+            assertSameAsJdk(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20)));
+        }
+    }
+
+    private void assertSameAsJdk(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        assertThat(parser.parse(bytes, 0, bytes.length)).as(text).isTrue();
+        assertThat(Double.doubleToRawLongBits(parser.value()))
+                .as(text)
+                .isEqualTo(Double.doubleToRawLongBits(Double.parseDouble(text)));
+    }
+}
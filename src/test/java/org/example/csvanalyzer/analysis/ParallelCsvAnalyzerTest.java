@@ -0,0 +1,218 @@
+package org.example.csvanalyzer.analysis;
+
+import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ParallelCsvAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void mergedChunksMatchSequentialScan() throws IOException {
+        for (String newline : new String[]{"\n", "\r\n"}) {
+            byte[] csv = generate(200_000, newline);
+            Path file = tempDir.resolve("data" + newline.length() + ".csv");
+            Files.write(file, csv);
+
+            StatisticsAccumulator sequential = new StatisticsAccumulator();
+            new CsvValueScanner(sequential).scan(new ByteArrayInputStream(csv));
+
+            try (ParallelCsvAnalyzer analyzer = new ParallelCsvAnalyzer(4, 4096, 0)) {
+                assertThat(analyzer.accepts(csv.length)).isTrue();
+                StatisticsAccumulator parallel = analyzer.analyze(file, null, StatisticsAccumulator::new);
+
+                AnalysisRecord expected = new AnalysisRecord();
+                sequential.applyTo(expected);
+                AnalysisRecord actual = new AnalysisRecord();
+                parallel.applyTo(actual);
+
+                assertThat(actual.getRecordsCount()).isEqualTo(expected.getRecordsCount());
+                assertThat(actual.getMissingCount()).isEqualTo(expected.getMissingCount());
+                assertThat(actual.getUniqueCount()).isEqualTo(expected.getUniqueCount());
+                assertThat(actual.getMinValue()).isEqualTo(expected.getMinValue());
+                assertThat(actual.getMaxValue()).isEqualTo(expected.getMaxValue());
+                assertThat(actual.getMean()).isCloseTo(expected.getMean(), within(1e-9));
+                assertThat(actual.getStdDev()).isCloseTo(expected.getStdDev(), within(1e-9));
+
+                assertThat(actual.getColumns()).hasSize(2);
+                for (int i = 0; i < 2; i++) {
+                    assertThat(actual.getColumns().get(i).getName()).isEqualTo(expected.getColumns().get(i).getName());
+                    assertThat(actual.getColumns().get(i).getRecordsCount())
+                            .isEqualTo(expected.getColumns().get(i).getRecordsCount());
+                    assertThat(actual.getColumns().get(i).getMissingCount())
+                            .isEqualTo(expected.getColumns().get(i).getMissingCount());
+                    assertThat(actual.getColumns().get(i).getMean())
+                            .isCloseTo(expected.getColumns().get(i).getMean(), within(1e-9));
+                }
+            }
+        }
+    }
+
+    @Test
+    void progressAddsUpToFileAndRowCounts() throws IOException {
+        byte[] csv = generate(100_000, "\n");
+        Path file = tempDir.resolve("progress.csv");
+        Files.write(file, csv);
+
+        ScanProgress sequentialProgress = new ScanProgress();
+        StatisticsAccumulator sequential = new StatisticsAccumulator();
+        CsvValueScanner scanner = new CsvValueScanner(sequential);
+        scanner.setProgress(sequentialProgress);
+        scanner.scan(new ByteArrayInputStream(csv));
+
+        assertThat(sequentialProgress.getBytes()).isEqualTo(csv.length);
+        assertThat(sequentialProgress.getRows()).isEqualTo(sequential.getRecordsCount());
+        assertThat(sequentialProgress.getInvalidRows()).isEqualTo(sequential.getMissingCount());
+
+        try (ParallelCsvAnalyzer analyzer = new ParallelCsvAnalyzer(4, 4096, 0)) {
+            ScanProgress parallelProgress = new ScanProgress();
+            StatisticsAccumulator parallel = analyzer.analyze(file, null, StatisticsAccumulator::new, parallelProgress);
+
+            assertThat(parallelProgress.getBytes()).isEqualTo(csv.length);
+            assertThat(parallelProgress.getRows()).isEqualTo(parallel.getRecordsCount());
+            assertThat(parallelProgress.getInvalidRows()).isEqualTo(parallel.getMissingCount());
+        }
+    }
+
+    @Test
+    void firstLineLongerThanHeaderLimitIsData() throws IOException {
+        StringBuilder sb = new StringBuilder("2025-03-01T09:59:59,1.5,");
+        sb.append("x".repeat(CsvSchema.MAX_HEADER_LENGTH)).append(",,\n");
+        byte[] csv = (sb + new String(generate(50_000, "\n"), StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+        Path file = tempDir.resolve("long-first-line.csv");
+        Files.write(file, csv);
+
+        StatisticsAccumulator sequential = new StatisticsAccumulator();
+        new CsvValueScanner(sequential).scan(new ByteArrayInputStream(csv));
+
+        try (ParallelCsvAnalyzer analyzer = new ParallelCsvAnalyzer(4, 4096, 0)) {
+            StatisticsAccumulator parallel = analyzer.analyze(file, null, StatisticsAccumulator::new);
+
+            AnalysisRecord expected = new AnalysisRecord();
+            sequential.applyTo(expected);
+            AnalysisRecord actual = new AnalysisRecord();
+            parallel.applyTo(actual);
+
+            assertThat(actual.getRecordsCount()).isEqualTo(expected.getRecordsCount());
+            assertThat(actual.getMissingCount()).isEqualTo(expected.getMissingCount());
+            assertThat(actual.getMinValue()).isEqualTo(expected.getMinValue());
+            assertThat(actual.getMaxValue()).isEqualTo(expected.getMaxValue());
+            assertThat(actual.getColumns().stream().map(c -> c.getName()).toList())
+                    .containsExactly("column2", "column3");
+            assertThat(expected.getColumns().stream().map(c -> c.getName()).toList())
+                    .containsExactly("column2", "column3");
+        }
+    }
+
+    @Test
+    void digestCoversWholeFileWhileChunksAreScanned() throws IOException {
+        byte[] csv = generate(100_000, "\n");
+        Path file = tempDir.resolve("digest.csv");
+        Files.write(file, csv);
+
+        StatisticsAccumulator sequential = new StatisticsAccumulator();
+        new CsvValueScanner(sequential).scan(new ByteArrayInputStream(csv));
+
+        try (ParallelCsvAnalyzer analyzer = new ParallelCsvAnalyzer(4, 4096, 0)) {
+            MessageDigest digest = ContentHash.newDigest();
+            StatisticsAccumulator parallel = analyzer.analyze(file, null, StatisticsAccumulator::new, null, null, 0,
+                    digest);
+
+            assertThat(ContentHash.toHex(digest)).isEqualTo(ContentHash.of(file));
+            assertThat(parallel.getRecordsCount()).isEqualTo(sequential.getRecordsCount());
+        }
+    }
+
+    @Test
+    void interruptStopsRunningScan() throws Exception {
+        byte[] csv = generate(200_000, "\n");
+        Path file = tempDir.resolve("cancelled.csv");
+        Files.write(file, csv);
+
+        // Части ждут, пока вызывающий поток не будет прерван, и проверяют отмену уже на первом буфере
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Supplier<StatisticsAccumulator> accumulators = () -> {
+            started.countDown();
+            try {
+                interrupted.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new StatisticsAccumulator();
+        };
+
+        try (ParallelCsvAnalyzer analyzer = new ParallelCsvAnalyzer(4, 4096, 0)) {
+            ScanProgress progress = new ScanProgress();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread scan = new Thread(() -> {
+                try {
+                    analyzer.analyze(file, null, accumulators, progress);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            scan.start();
+            started.await();
+            scan.interrupt();
+            // Прерывание обработано, когда флаг сброшен, а поток снова ждет — уже завершения частей
+            while (scan.isInterrupted() || scan.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+            interrupted.countDown();
+            scan.join(10_000);
+
+            assertThat(scan.isAlive()).isFalse();
+            assertThat(failure.get()).isInstanceOf(InterruptedIOException.class);
+            assertThat(progress.getRows()).isZero();
+
+            // Пул свободен для следующего разбора
+            StatisticsAccumulator next = analyzer.analyze(file, null, StatisticsAccumulator::new);
+            assertThat(next.getRecordsCount()).isPositive();
+        }
+    }
+
+    @Test
+    void smallFilesStaySequential() {
+        try (ParallelCsvAnalyzer analyzer = new ParallelCsvAnalyzer(4, 4 * 1024 * 1024, 16 * 1024 * 1024)) {
+            assertThat(analyzer.accepts(1024)).isFalse();
+            assertThat(analyzer.accepts(64L * 1024 * 1024)).isTrue();
+        }
+        try (ParallelCsvAnalyzer analyzer = new ParallelCsvAnalyzer(1, 4096, 0)) {
+            assertThat(analyzer.accepts(64L * 1024 * 1024)).isFalse();
+        }
+    }
+
+    private byte[] generate(int rows, String newline) {
+        Random random = new Random(rows);
+        StringBuilder sb = new StringBuilder("timestamp,value,load").append(newline);
+        for (int i = 0; i < rows; i++) {
+            sb.append("2025-03-01T10:00:").append(i % 60).append(',');
+            if (random.nextInt(50) == 0) {
+                sb.append("n/a");
+            } else {
+                sb.append(Math.round(random.nextGaussian() * 10_000) / 100.0);
+            }
+            sb.append(',').append(i % 7 == 0 ? "" : String.valueOf(random.nextInt(100)));
+            sb.append(newline);
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
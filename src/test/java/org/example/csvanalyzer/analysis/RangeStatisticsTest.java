@@ -0,0 +1,84 @@
+package org.example.csvanalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RangeStatisticsTest {
+
+    private static final int ROWS = 100_000;
+    private static final long START = 1_740_823_200L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void matchesFilteringEveryRow() throws IOException {
+        long[] timestamps = new long[ROWS];
+        double[] values = new double[ROWS];
+        Path file = write(timestamps, values);
+
+        ColumnarFilter[] filters = {
+                new ColumnarFilter(null, null, null, null),
+                new ColumnarFilter(START + 1_000, START + 5_000, null, null),
+                new ColumnarFilter(null, START + 50_000, 0.0, null),
+                new ColumnarFilter(null, null, -10.0, 10.0),
+                new ColumnarFilter(START + 20_000, null, 50.0, 60.0),
+        };
+        try (ColumnarFile columnar = ColumnarFile.open(file)) {
+            for (ColumnarFilter filter : filters) {
+                RangeStatistics actual = RangeStatistics.of(columnar, filter);
+
+                StatisticsAccumulator expected = new StatisticsAccumulator();
+                for (int i = 0; i < ROWS; i++) {
+                    if (filter.matches(timestamps[i], values[i])) {
+                        expected.accept(values[i]);
+                    }
+                }
+
+                assertThat(actual.getCount()).isEqualTo(expected.getRecordsCount());
+                assertThat(actual.getMin()).isEqualTo(expected.getMinValue());
+                assertThat(actual.getMax()).isEqualTo(expected.getMaxValue());
+                assertThat(actual.getMean()).isCloseTo(expected.getMean(), within(1e-9));
+                assertThat(actual.getStdDev())
+                        .isCloseTo(Math.sqrt(expected.getM2() / (expected.getRecordsCount() - 1)), within(1e-9));
+                assertThat(actual.getBlocksScanned() + actual.getBlocksSkipped()).isEqualTo(columnar.getBlockCount());
+            }
+        }
+    }
+
+    @Test
+    void narrowTimeRangeSkipsMostBlocks() throws IOException {
+        Path file = write(new long[ROWS], new double[ROWS]);
+
+        try (ColumnarFile columnar = ColumnarFile.open(file)) {
+            RangeStatistics statistics = RangeStatistics.of(columnar,
+                    new ColumnarFilter(START + 10_000, START + 11_000, null, null));
+
+            // В окне 1000 строк, у 10 из них (номера кратны 97) метки нет
+            assertThat(statistics.getCount()).isEqualTo(990);
+            assertThat(statistics.getBlocksScanned()).isLessThanOrEqualTo(2);
+            assertThat(statistics.getBlocksSkipped()).isEqualTo(columnar.getBlockCount() - statistics.getBlocksScanned());
+        }
+    }
+
+    // Метки возрастают по секунде, каждая 97-я строка без метки
+    private Path write(long[] timestamps, double[] values) throws IOException {
+        Random random = new Random(42);
+        Path file = tempDir.resolve("values.col");
+        try (ColumnarWriter writer = new ColumnarWriter(file, 1024)) {
+            for (int i = 0; i < ROWS; i++) {
+                timestamps[i] = i % 97 == 0 ? ColumnarFile.NO_TIMESTAMP : START + i;
+                values[i] = Math.round(random.nextGaussian() * 10_000) / 100.0;
+                writer.accept(timestamps[i], values[i]);
+            }
+        }
+        return file;
+    }
+}
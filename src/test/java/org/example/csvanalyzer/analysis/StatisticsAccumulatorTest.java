@@ -0,0 +1,98 @@
+package org.example.csvanalyzer.analysis;
+
+import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StatisticsAccumulatorTest {
+
+    @Test
+    void restoredStateContinuesLikeSingleScan() throws IOException {
+        String head = generate(0, 20_000, true);
+        String tail = generate(20_000, 15_000, false);
+
+        // Второй вариант — множество уникальных значений уже свернуто в HyperLogLog
+        for (long maxExactDistinct : new long[]{Long.MAX_VALUE, 1_000}) {
+            StatisticsSettings settings = new StatisticsSettings(maxExactDistinct, Long.MAX_VALUE, 12, 100,
+                    new double[]{50, 99}, 50, false, RollupGranularity.MINUTE, 100_000);
+
+            StatisticsAccumulator whole = new StatisticsAccumulator(settings);
+            new CsvValueScanner(whole).scan(stream(head + tail));
+            AnalysisRecord expected = new AnalysisRecord();
+            whole.applyTo(expected);
+
+            StatisticsAccumulator first = new StatisticsAccumulator(settings);
+            new CsvValueScanner(first).scan(stream(head));
+            AnalysisRecord stored = new AnalysisRecord();
+            first.applyTo(stored);
+
+            StatisticsAccumulator restored = StatisticsAccumulator.restore(settings, first.stateToBytes(),
+                    stored.getHistogram(), stored.getRollup());
+            new CsvValueScanner(restored, restored.getSchema()).scan(stream(tail));
+            AnalysisRecord actual = new AnalysisRecord();
+            restored.applyTo(actual);
+
+            assertThat(actual.getRecordsCount()).isEqualTo(expected.getRecordsCount());
+            assertThat(actual.getMissingCount()).isEqualTo(expected.getMissingCount());
+            assertThat(actual.getUniqueCount()).isEqualTo(expected.getUniqueCount());
+            assertThat(actual.getUniqueCountExact()).isEqualTo(expected.getUniqueCountExact());
+            assertThat(actual.getMinValue()).isEqualTo(expected.getMinValue());
+            assertThat(actual.getMaxValue()).isEqualTo(expected.getMaxValue());
+            assertThat(actual.getMean()).isEqualTo(expected.getMean());
+            assertThat(actual.getStdDev()).isEqualTo(expected.getStdDev());
+            assertThat(actual.getHistogram()).isEqualTo(expected.getHistogram());
+            assertThat(actual.getRollup()).isEqualTo(expected.getRollup());
+            assertThat(actual.getQuantiles().get(50.0)).isCloseTo(expected.getQuantiles().get(50.0), within(1.0));
+            assertThat(actual.getQuantiles().get(99.0)).isCloseTo(expected.getQuantiles().get(99.0), within(5.0));
+
+            assertThat(actual.getColumns()).hasSize(expected.getColumns().size());
+            for (int i = 0; i < expected.getColumns().size(); i++) {
+                assertThat(actual.getColumns().get(i).getName()).isEqualTo(expected.getColumns().get(i).getName());
+                assertThat(actual.getColumns().get(i).getRecordsCount())
+                        .isEqualTo(expected.getColumns().get(i).getRecordsCount());
+                assertThat(actual.getColumns().get(i).getMissingCount())
+                        .isEqualTo(expected.getColumns().get(i).getMissingCount());
+                assertThat(actual.getColumns().get(i).getMean()).isEqualTo(expected.getColumns().get(i).getMean());
+            }
+        }
+    }
+
+    @Test
+    void skipsRepeatedHeaderOnly() throws IOException {
+        assertThat(afterHeader("timestamp,value\r\n2025-03-01T10:00:30,1\n")).isEqualTo("2025-03-01T10:00:30,1\n");
+        assertThat(afterHeader("timestamp,value\n")).isEqualTo("");
+        assertThat(afterHeader("timestamp,value")).isEqualTo("");
+        assertThat(afterHeader("1,2\n3,4\n")).isEqualTo("1,2\n3,4\n");
+        assertThat(afterHeader("")).isEqualTo("");
+    }
+
+    private static String afterHeader(String csv) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(stream(csv));
+        CsvSchema.skipHeader(in);
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static ByteArrayInputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String generate(int from, int rows, boolean header) {
+        Random random = new Random(from);
+        StringBuilder sb = new StringBuilder(header ? "timestamp,value,load\n" : "");
+        for (int i = from; i < from + rows; i++) {
+            sb.append("2025-03-01T").append(10 + i / 3600 % 10).append(':')
+                    .append(String.format("%02d:%02d", i / 60 % 60, i % 60)).append(',');
+            sb.append(random.nextInt(40) == 0 ? "n/a" : String.valueOf(Math.round(random.nextGaussian() * 10_000) / 100.0));
+            sb.append(',').append(random.nextInt(100)).append('\n');
+        }
+        return sb.toString();
+    }
+}
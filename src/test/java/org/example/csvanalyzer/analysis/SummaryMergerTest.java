@@ -0,0 +1,106 @@
+package org.example.csvanalyzer.analysis;
+
+import org.example.csvanalyzer.entity.AnalysisRecord;
+import org.example.csvanalyzer.entity.ColumnStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SummaryMergerTest {
+
+    private final StatisticsSettings settings = StatisticsSettings.defaults();
+
+    @Test
+    void mergedSummariesMatchOneAnalysisOfAllFiles() throws IOException {
+        String[] days = {generate(1, 10_000, 0), generate(2, 25_000, 1000), generate(3, 5_000, -500)};
+
+        AnalysisRecord expected = analyze(String.join("", days).replace("\ntimestamp,value\n", "\n"));
+        SummaryMerger merger = new SummaryMerger(settings);
+        for (String day : days) {
+            merger.add(analyze(day));
+        }
+
+        ColumnStatistics merged = merger.toStatistics();
+        assertThat(merged.getRecordsCount()).isEqualTo(expected.getRecordsCount());
+        assertThat(merged.getMissingCount()).isEqualTo(expected.getMissingCount());
+        assertThat(merged.getMinValue()).isEqualTo(expected.getMinValue());
+        assertThat(merged.getMaxValue()).isEqualTo(expected.getMaxValue());
+        assertThat(merged.getMean()).isCloseTo(expected.getMean(), within(1e-9));
+        assertThat(merged.getStdDev()).isCloseTo(expected.getStdDev(), within(1e-9));
+
+        assertThat(merger.hasSketches()).isTrue();
+        assertThat(merger.uniqueCount()).isEqualTo(expected.getUniqueCount());
+        assertThat(merger.isUniqueCountExact()).isTrue();
+        assertThat(merger.quantiles().get(50.0)).isCloseTo(expected.getQuantiles().get(50.0), within(5.0));
+        assertThat(merger.quantiles().get(99.0)).isCloseTo(expected.getQuantiles().get(99.0), within(20.0));
+    }
+
+    @Test
+    void summariesWithoutStateMergeMomentsOnly() throws IOException {
+        AnalysisRecord first = analyze(generate(1, 1_000, 0));
+        AnalysisRecord second = analyze(generate(2, 3_000, 50));
+        AnalysisRecord expected = analyze(generate(1, 1_000, 0) + generate(2, 3_000, 50).substring(16));
+        second.setAccumulatorState(null);
+
+        SummaryMerger merger = new SummaryMerger(settings);
+        merger.add(first);
+        merger.add(second);
+
+        assertThat(merger.toStatistics().getRecordsCount()).isEqualTo(expected.getRecordsCount());
+        assertThat(merger.toStatistics().getMean()).isCloseTo(expected.getMean(), within(1e-9));
+        assertThat(merger.toStatistics().getStdDev()).isCloseTo(expected.getStdDev(), within(1e-9));
+        assertThat(merger.hasSketches()).isFalse();
+        assertThat(merger.quantiles()).isEmpty();
+    }
+
+    @Test
+    void mergesSketchesOfDifferentPrecision() throws IOException {
+        StatisticsSettings fine = new StatisticsSettings(1_000, Long.MAX_VALUE, 14, 100, new double[]{50}, 50, false,
+                null, 0);
+        StatisticsSettings coarse = new StatisticsSettings(1_000, Long.MAX_VALUE, 12, 100, new double[]{50}, 50, false,
+                null, 0);
+        String first = generate(1, 20_000, 0);
+        String second = generate(2, 20_000, 1000);
+        AnalysisRecord expected = analyze(first + second.substring(16), settings);
+
+        SummaryMerger merger = new SummaryMerger(fine);
+        merger.add(analyze(first, fine));
+        merger.add(analyze(second, coarse));
+
+        assertThat(merger.hasSketches()).isTrue();
+        assertThat(merger.isUniqueCountExact()).isFalse();
+        assertThat(merger.uniqueCountError()).isCloseTo(1.04 / 64, within(1e-12));
+        assertThat((double) merger.uniqueCount())
+                .isCloseTo(expected.getUniqueCount(), within(expected.getUniqueCount() * 0.05));
+    }
+
+    private AnalysisRecord analyze(String csv) throws IOException {
+        return analyze(csv, settings);
+    }
+
+    private AnalysisRecord analyze(String csv, StatisticsSettings settings) throws IOException {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator(settings);
+        new CsvValueScanner(accumulator).scan(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        AnalysisRecord record = new AnalysisRecord();
+        accumulator.applyTo(record);
+        record.setAccumulatorState(accumulator.stateToBytes());
+        return record;
+    }
+
+    private static String generate(int day, int rows, double shift) {
+        Random random = new Random(day);
+        StringBuilder sb = new StringBuilder("timestamp,value\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append("2025-03-0").append(day).append("T10:00:00,");
+            sb.append(random.nextInt(30) == 0 ? "n/a" : String.valueOf(shift + Math.round(random.nextGaussian() * 10_000) / 100.0));
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
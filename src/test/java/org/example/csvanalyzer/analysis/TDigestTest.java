@@ -0,0 +1,100 @@
+package org.example.csvanalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TDigestTest {
+
+    private static final double[] QUANTILES = {0.01, 0.1, 0.5, 0.9, 0.95, 0.99, 0.999};
+
+    @Test
+    void rankErrorStaysSmallForSkewedData() {
+        Random random = new Random(3);
+        double[] values = new double[1_000_000];
+        TDigest digest = new TDigest(100);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = -Math.log(1 - random.nextDouble()) * 10;
+            digest.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        // Ошибка измеряется в рангах: доля значений между оценкой и истинным квантилем
+        for (double q : QUANTILES) {
+            double rank = rankOf(values, digest.quantile(q));
+            double allowed = q < 0.05 || q > 0.95 ? 0.001 : 0.005;
+            assertThat(Math.abs(rank - q)).as("q=%s", q).isLessThan(allowed);
+        }
+        assertThat(digest.centroidCount()).isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    void mergedDigestsAreAsAccurateAsOne() {
+        Random random = new Random(5);
+        double[] values = new double[400_000];
+        TDigest[] parts = new TDigest[8];
+        for (int p = 0; p < parts.length; p++) {
+            parts[p] = new TDigest(100);
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 50 + 100;
+            parts[i % parts.length].add(values[i]);
+        }
+        TDigest merged = new TDigest(100);
+        for (TDigest part : parts) {
+            merged.merge(part);
+        }
+        Arrays.sort(values);
+
+        assertThat(merged.size()).isEqualTo(values.length);
+        for (double q : QUANTILES) {
+            double rank = rankOf(values, merged.quantile(q));
+            assertThat(Math.abs(rank - q)).as("q=%s", q).isLessThan(0.005);
+        }
+    }
+
+    @Test
+    void smallInputsAreExactAtTheEnds() {
+        TDigest digest = new TDigest(100);
+        digest.add(100);
+        digest.add(200);
+
+        assertThat(digest.quantile(0)).isEqualTo(100.0);
+        assertThat(digest.quantile(1)).isEqualTo(200.0);
+        assertThat(digest.quantile(0.5)).isEqualTo(150.0);
+        assertThat(new TDigest(100).quantile(0.5)).isNaN();
+    }
+
+    @Test
+    void perRowCostIsBounded() {
+        Random random = new Random(11);
+        double[] values = new double[2_000_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian();
+        }
+
+        TDigest warmup = new TDigest(100);
+        for (double value : values) {
+            warmup.add(value);
+        }
+
+        TDigest digest = new TDigest(100);
+        long start = System.nanoTime();
+        for (double value : values) {
+            digest.add(value);
+        }
+        digest.quantile(0.5);
+        double nanosPerRow = (double) (System.nanoTime() - start) / values.length;
+
+        // Сортировка буфера дает амортизированные ~50-150 нс на строку; порог взят с большим запасом
+        assertThat(nanosPerRow).isLessThan(2_000.0);
+    }
+
+    private static double rankOf(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        return (double) (index >= 0 ? index : -index - 1) / sorted.length;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.csvanalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class TimeRollupTest {
+
+    private static final long START = 1_740_787_200L; // 2025-03-01T00:00:00Z
+
+    @Test
+    void aggregatesValuesPerBucket() {
+        TimeRollup rollup = new TimeRollup(RollupGranularity.MINUTE, 1000);
+        rollup.add(START + 5, 1.0);
+        rollup.add(START + 59, 3.0);
+        rollup.add(START + 60, 10.0);
+        rollup.addUnparsed();
+
+        List<TimeRollup.Bucket> buckets = rollup.buckets();
+        assertThat(buckets).hasSize(2);
+        assertThat(buckets.get(0)).isEqualTo(new TimeRollup.Bucket(START, 2, 1.0, 3.0, 2.0));
+        assertThat(buckets.get(1)).isEqualTo(new TimeRollup.Bucket(START + 60, 1, 10.0, 10.0, 10.0));
+        assertThat(rollup.getUnparsedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void coarsensWhenBucketLimitIsExceeded() {
+        TimeRollup rollup = new TimeRollup(RollupGranularity.MINUTE, 100);
+        for (int i = 0; i < 3 * 3600; i++) {
+            rollup.add(START + i, i);
+        }
+
+        assertThat(rollup.getGranularity()).isEqualTo(RollupGranularity.HOUR);
+        assertThat(rollup.size()).isEqualTo(3);
+        assertThat(rollup.buckets().get(1).count()).isEqualTo(3600);
+        assertThat(rollup.buckets().get(1).mean()).isCloseTo(3600 + 1799.5, within(1e-9));
+    }
+
+    @Test
+    void mergeEqualsSingleRollup() {
+        Random random = new Random(8);
+        TimeRollup whole = new TimeRollup(RollupGranularity.MINUTE, 100_000);
+        TimeRollup left = new TimeRollup(RollupGranularity.MINUTE, 100_000);
+        TimeRollup right = new TimeRollup(RollupGranularity.MINUTE, 100_000);
+        for (int i = 0; i < 50_000; i++) {
+            long time = START + random.nextInt(86_400);
+            double value = random.nextGaussian();
+            whole.add(time, value);
+            (i % 2 == 0 ? left : right).add(time, value);
+        }
+        left.merge(right);
+
+        List<TimeRollup.Bucket> expected = whole.buckets();
+        List<TimeRollup.Bucket> actual = left.buckets();
+        assertThat(actual).hasSize(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).startEpochSecond()).isEqualTo(expected.get(i).startEpochSecond());
+            assertThat(actual.get(i).count()).isEqualTo(expected.get(i).count());
+            assertThat(actual.get(i).min()).isEqualTo(expected.get(i).min());
+            assertThat(actual.get(i).max()).isEqualTo(expected.get(i).max());
+            assertThat(actual.get(i).mean()).isCloseTo(expected.get(i).mean(), within(1e-12));
+        }
+    }
+
+    @Test
+    void rollsUpToCoarserGranularityAndSurvivesSerialization() {
+        TimeRollup rollup = new TimeRollup(RollupGranularity.MINUTE, 1000);
+        for (int i = 0; i < 120; i++) {
+            rollup.add(START - 3600 + i * 60, i);
+        }
+
+        TimeRollup restored = TimeRollup.fromBytes(rollup.toBytes());
+        assertThat(restored.buckets()).isEqualTo(rollup.buckets());
+
+        List<TimeRollup.Bucket> hours = restored.buckets(RollupGranularity.HOUR);
+        assertThat(hours).hasSize(2);
+        assertThat(hours.get(0).startEpochSecond()).isEqualTo(START - 3600);
+        assertThat(hours.get(0).count()).isEqualTo(60);
+        assertThat(hours.get(0).max()).isEqualTo(59.0);
+        assertThat(hours.get(0).mean()).isCloseTo(29.5, within(1e-9));
+        assertThat(hours.get(1).count()).isEqualTo(60);
+        assertThatThrownBy(() -> TimeRollup.fromBytes(new TimeRollup(RollupGranularity.DAY, 10).toBytes())
+                .buckets(RollupGranularity.HOUR))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
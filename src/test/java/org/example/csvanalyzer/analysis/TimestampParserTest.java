@@ -0,0 +1,64 @@
+package org.example.csvanalyzer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimestampParserTest {
+
+    private final TimestampParser parser = new TimestampParser();
+
+    @Test
+    void parsesFixedLayoutLikeJavaTime() {
+        Random random = new Random(5);
+        for (int i = 0; i < 10_000; i++) {
+            long epochSecond = random.nextLong(-2_000_000_000L, 4_000_000_000L);
+            LocalDateTime time = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+            String text = String.format("%04d-%02d-%02dT%02d:%02d:%02d", time.getYear(), time.getMonthValue(),
+                    time.getDayOfMonth(), time.getHour(), time.getMinute(), time.getSecond());
+            assertThat(parse(text)).as(text).isTrue();
+            assertThat(parser.epochSecond()).as(text).isEqualTo(epochSecond);
+        }
+    }
+
+    @Test
+    void appliesFractionAndOffset() {
+        long expected = Instant.parse("2025-03-01T08:00:30Z").getEpochSecond();
+
+        assertThat(parse("2025-03-01T10:00:30.250+02:00")).isTrue();
+        assertThat(parser.epochSecond()).isEqualTo(expected);
+        assertThat(parse("2025-03-01 08:00:30Z")).isTrue();
+        assertThat(parser.epochSecond()).isEqualTo(expected);
+        assertThat(parse(" 2025-03-01T08:00:30 ")).isTrue();
+        assertThat(parser.epochSecond()).isEqualTo(expected);
+    }
+
+    @Test
+    void fallsBackForIrregularLayouts() {
+        assertThat(parse("2025-03-01T08:00")).isTrue();
+        assertThat(parser.epochSecond()).isEqualTo(Instant.parse("2025-03-01T08:00:00Z").getEpochSecond());
+        assertThat(parse("2025-03-01")).isTrue();
+        assertThat(parser.epochSecond()).isEqualTo(Instant.parse("2025-03-01T00:00:00Z").getEpochSecond());
+    }
+
+    @Test
+    void rejectsInvalidTimestamps() {
+        assertThat(parse("timestamp")).isFalse();
+        assertThat(parse("2025-02-30T10:00:00")).isFalse();
+        assertThat(parse("2025-13-01T10:00:00")).isFalse();
+        assertThat(parse("2025-03-01T24:00:00")).isFalse();
+        assertThat(parse("2025-03-01T10:00:00+2")).isFalse();
+        assertThat(parse("")).isFalse();
+    }
+
+    private boolean parse(String text) {
+        byte[] bytes = ("," + text + ",").getBytes(StandardCharsets.UTF_8);
+        return parser.parse(bytes, 1, bytes.length - 1);
+    }
+}